@@ -0,0 +1,106 @@
+package benchmark;
+
+import model.book.AuthorRegistry;
+import model.book.Book;
+import model.book.TagRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the heap kept per book with and without the author and tag registries of the library.
+ * <p>
+ * Every book gets its own author and tag list, as the controllers, the importers and the storage create them.
+ * With sharing the registries then swap them for the shared copies, as the library does when a book is added.
+ * The heap used is read after a settled garbage collection before the books are loaded and again after,
+ * while the books and the registries are still reachable. The difference divided by the amount of books
+ * is reported as the "bytesPerBook" counter next to the load time - compare it between the two values of sharing.
+ * <p>
+ * JMH adds up such counters over the measured iterations, so only one iteration is measured, after warmup
+ * iterations that let the heap left by class loading and compilation be collected first. Don't pass "-i".
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g", "-XX:+UseSerialGC"})
+@State(Scope.Thread)
+public class BookFootprintBenchmark {
+
+    private static final int SETTLING_COLLECTIONS = 5;
+
+    @Param({"10000", "100000"})
+    private int catalogSize;
+
+    @Param({"false", "true"})
+    private boolean sharing;
+
+    private List<Book> books;
+    private AuthorRegistry authorRegistry;
+    private TagRegistry tagRegistry;
+
+    @Setup(Level.Iteration)
+    public void releaseBooks() {
+        books = null;
+        authorRegistry = null;
+        tagRegistry = null;
+    }
+
+    @Benchmark
+    public List<Book> loadBooks(Footprint footprint) {
+        long usedBefore = settledHeapUsed();
+
+        books = new ArrayList<>(catalogSize);
+        authorRegistry = new AuthorRegistry();
+        tagRegistry = new TagRegistry();
+
+        for (int book = 0; book < catalogSize; book++) {
+            Book paperBook = LibraryFixture.paperBook(book, 5);
+
+            if (sharing) {
+                authorRegistry.share(paperBook);
+                tagRegistry.share(paperBook);
+            }
+
+            books.add(paperBook);
+        }
+
+        long usedAfter = settledHeapUsed();
+
+        footprint.bytesPerBook = (double) (usedAfter - usedBefore) / catalogSize;
+
+        return books;
+    }
+
+    /**
+     * @return The heap used after several collections, so only reachable objects are counted.
+     */
+    private static long settledHeapUsed() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        for (int collection = 0; collection < SETTLING_COLLECTIONS; collection++) {
+            memory.gc();
+        }
+
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Reports the measured heap per book of the last invocation as a secondary result.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        public double bytesPerBook;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerBook = 0;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package benchmark;
+
+import controller.BookController;
+import enums.BookTags;
+import model.user.impl.Author;
+import org.openjdk.jmh.annotations.*;
+import repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to load a whole catalog through BookController.addPaperBook.
+ * Each insert validates the ISBN against the books already in the library, so the time per book
+ * stays flat when the existence check is a hash lookup and grows with the catalog when it is a scan.
+ * Compare the score divided by catalogSize between the parameters to see the shape of the curve.
+ * <p>
+ * The values of the books are made by {@link LibraryFixture} before the measurement, so only adding them is measured.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class BulkLoadBenchmark {
+
+    @Param({"1000", "10000", "50000", "100000"})
+    private int catalogSize;
+
+    private String[] isbns;
+    private String[] titles;
+    private List<List<Author>> authors;
+    private List<List<BookTags>> tags;
+    private BookController bookController;
+
+    @Setup(Level.Trial)
+    public void createBookValues() {
+        isbns = new String[catalogSize];
+        titles = new String[catalogSize];
+        authors = new ArrayList<>(catalogSize);
+        tags = new ArrayList<>(catalogSize);
+
+        for (int book = 0; book < catalogSize; book++) {
+            isbns[book] = LibraryFixture.isbn(book);
+            titles[book] = LibraryFixture.title(book);
+            authors.add(List.of(LibraryFixture.author(book)));
+            tags.add(LibraryFixture.tags(book));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createEmptyLibrary() {
+        bookController = new BookController(new UserRepository());
+    }
+
+    @Benchmark
+    public BookController loadCatalog() {
+        for (int book = 0; book < catalogSize; book++) {
+            bookController.addPaperBook(isbns[book], titles[book], LibraryFixture.SUMMARY, authors.get(book),
+                    LibraryFixture.genre(book), tags.get(book), 5);
+        }
+
+        return bookController;
+    }
+}
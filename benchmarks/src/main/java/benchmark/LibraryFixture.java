@@ -0,0 +1,106 @@
+package benchmark;
+
+import enums.BookGenre;
+import enums.BookTags;
+import model.book.impl.PaperBook;
+import model.common.Address;
+import model.common.PasswordHash;
+import model.user.impl.Author;
+import model.user.impl.User;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static enums.Gender.MALE;
+
+/**
+ * Builds the books and users shared by the benchmarks, so that every benchmark
+ * runs against a library with the same shape for the same sizes.
+ * <p>
+ * ISBNs follow the library format "####-#", which allows at most 100 000 books.
+ * Titles and authors repeat in cycles, so searches find a stable share of the catalog.
+ */
+final class LibraryFixture {
+
+    static final String SUMMARY = "Very interesting book about internal and  external royal family affairs.";
+    static final int AUTHORS = 1000;
+    static final String PASSWORD = "validPassword";
+
+    private static final String[] TITLES = {
+            "Game of thrones", "Harry Potter", "The day the earth stood still", "Dune", "Foundation",
+            "Neuromancer", "The hobbit", "Brave new world"};
+    private static final BookGenre[] GENRES = BookGenre.values();
+    private static final BookTags[] TAGS = BookTags.values();
+    private static final Address ADDRESS = new Address("Bulgaria", "Haskovo", "Orfej 16");
+    private static final PasswordHash PASSWORD_HASH = PasswordHash.of(PASSWORD);
+
+    private LibraryFixture() {
+    }
+
+    /**
+     * @return ISBN of the book with the given number.
+     */
+    static String isbn(int book) {
+        return String.format("%04d-%d", book / 10, book % 10);
+    }
+
+    /**
+     * @return Username of the user with the given number.
+     */
+    static String username(int user) {
+        return "benchmarkUser" + user;
+    }
+
+    /**
+     * @return Title of the book with the given number.
+     */
+    static String title(int book) {
+        return TITLES[book % TITLES.length] + " " + book;
+    }
+
+    /**
+     * @return The only author of the book with the given number.
+     */
+    static Author author(int book) {
+        int author = book % AUTHORS;
+
+        return new Author("Author" + author, "Surname" + author, LocalDate.of(1965, 1, 1), null);
+    }
+
+    /**
+     * @return Genre of the book with the given number.
+     */
+    static BookGenre genre(int book) {
+        return GENRES[book % GENRES.length];
+    }
+
+    /**
+     * @return One or two tags of the book with the given number.
+     */
+    static List<BookTags> tags(int book) {
+        BookTags first = TAGS[book % TAGS.length];
+        BookTags second = TAGS[(book / TAGS.length) % TAGS.length];
+
+        return first == second ? Collections.singletonList(first) : Arrays.asList(first, second);
+    }
+
+    /**
+     * @return Paper book with the given number and amount of copies.
+     */
+    static PaperBook paperBook(int book, int copies) {
+        return new PaperBook(isbn(book), title(book), SUMMARY, Collections.singletonList(author(book)),
+                genre(book), tags(book), copies, copies);
+    }
+
+    /**
+     * All users share one hash of {@link #PASSWORD}, so building many users doesn't hash the password for each one.
+     *
+     * @return User with the given number.
+     */
+    static User user(int user) {
+        return new User("Simeon", "Atanasov", ADDRESS, MALE, username(user), PASSWORD_HASH,
+                "valid@email.address", true, 33);
+    }
+}
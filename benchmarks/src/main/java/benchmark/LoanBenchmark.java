@@ -0,0 +1,106 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import repository.BookRepository;
+import repository.UserRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the loan operations of BookRepository in a library that already has
+ * the given amount of books, users and active loans.
+ * <p>
+ * The cycle benchmark requests, borrows and returns a book, so the loans are back in the same state
+ * after every operation. Only the histories of the users grow by one book per cycle, so the library is created
+ * again for every iteration and the scores don't drift with the length of the run.
+ * The waiting benchmark repeats the request of a user who is already in the queue for a book without free copies.
+ * The day change benchmark moves the date past the due dates of all loans and offers, which bans the borrowers
+ * and hands the offered copy to the next user in the queue. It changes the library for good, so it runs once
+ * per iteration on the freshly created library.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoanBenchmark {
+
+    private static final int COPIES = 1_000_000;
+
+    @Param({"1000", "10000"})
+    private int catalogSize;
+
+    @Param({"100", "10000"})
+    private int userCount;
+
+    @Param({"0", "10000"})
+    private int activeLoans;
+
+    private BookRepository bookRepository;
+    private String[] isbns;
+    private String[] usernames;
+    private String waitedISBN;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void createLibrary() {
+        UserRepository userRepository = new UserRepository(userCount);
+
+        bookRepository = new BookRepository(userRepository);
+        next = 0;
+        isbns = new String[catalogSize];
+        usernames = new String[userCount];
+
+        for (int book = 0; book < catalogSize; book++) {
+            bookRepository.addBookToLibrary(LibraryFixture.paperBook(book, COPIES));
+            isbns[book] = LibraryFixture.isbn(book);
+        }
+
+        for (int user = 0; user < userCount; user++) {
+            userRepository.addUser(LibraryFixture.user(user));
+            usernames[user] = LibraryFixture.username(user);
+        }
+
+        for (int loan = 0; loan < activeLoans; loan++) {
+            String username = usernames[loan % userCount];
+            String isbn = isbns[(loan / userCount + loan) % catalogSize];
+
+            bookRepository.requestBook(username, isbn);
+            bookRepository.borrowBook(username, isbn);
+        }
+
+        waitedISBN = LibraryFixture.isbn(catalogSize);
+        bookRepository.addBookToLibrary(LibraryFixture.paperBook(catalogSize, 1));
+        bookRepository.requestBook(usernames[0], waitedISBN);
+        bookRepository.requestBook(usernames[userCount - 1], waitedISBN);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(3)
+    public String requestBorrowReturn() {
+        int operation = next++;
+        String username = usernames[operation % userCount];
+        String isbn = isbns[(operation * 31) % catalogSize];
+
+        bookRepository.requestBook(username, isbn);
+        bookRepository.borrowBook(username, isbn);
+
+        return bookRepository.returnBookToLibrary(username, isbn);
+    }
+
+    @Benchmark
+    public String requestBookWhileWaiting() {
+        return bookRepository.requestBook(usernames[userCount - 1], waitedISBN);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public int changeDay() {
+        bookRepository.changeDay(BookRepository.INITIAL_BORROW_TIME + 1);
+
+        return bookRepository.getPenaltiesSize();
+    }
+}
@@ -0,0 +1,80 @@
+package benchmark;
+
+import controller.BookController;
+import enums.BookGenre;
+import enums.BookTags;
+import model.book.Book;
+import model.common.BookQuery;
+import org.openjdk.jmh.annotations.*;
+import repository.UserRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the searches of BookController over catalogs of different sizes.
+ * Each search finds a small, fixed share of the catalog, so the scores show how the cost
+ * of a search grows with the amount of books that don't match.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    private BookController bookController;
+    private BookQuery query;
+
+    @Setup(Level.Trial)
+    public void createLibrary() {
+        bookController = new BookController(new UserRepository());
+
+        for (int book = 0; book < catalogSize; book++) {
+            bookController.addPaperBook(LibraryFixture.isbn(book), LibraryFixture.title(book), LibraryFixture.SUMMARY,
+                    List.of(LibraryFixture.author(book)), LibraryFixture.genre(book), LibraryFixture.tags(book), 5);
+        }
+
+        query = BookQuery.builder()
+                .genre(BookGenre.FANTASY)
+                .withTags(BookTags.STORY)
+                .authorNameContaining("Surname1")
+                .titleContaining("Game")
+                .onlyAvailable()
+                .build();
+    }
+
+    @Benchmark
+    public List<Book> searchByBookTitle() {
+        return bookController.searchByBookTitle("thrones 12");
+    }
+
+    @Benchmark
+    public List<Book> searchByBookGenre() {
+        return bookController.searchByBookGenre("drama");
+    }
+
+    @Benchmark
+    public List<Book> searchByBookTags() {
+        return bookController.searchByBookTags("CHILDREN");
+    }
+
+    @Benchmark
+    public List<Book> searchByAllBookTags() {
+        return bookController.searchByAllBookTags("CHILDREN", "STORY");
+    }
+
+    @Benchmark
+    public List<Book> searchBooksWithQuery() {
+        return bookController.searchBooks(query);
+    }
+
+    @Benchmark
+    public List<Book> searchBookByAuthorsFullName() {
+        return bookController.searchBookByAuthorsFullName("Author12 Surname12");
+    }
+}
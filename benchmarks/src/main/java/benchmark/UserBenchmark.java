@@ -0,0 +1,50 @@
+package benchmark;
+
+import controller.UserController;
+import org.openjdk.jmh.annotations.*;
+import repository.UserRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the authentication of users against repositories of different sizes,
+ * both for registered users and for usernames that don't exist.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserBenchmark {
+
+    @Param({"1000", "100000"})
+    private int userCount;
+
+    private UserController userController;
+    private String[] usernames;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createUsers() {
+        UserRepository userRepository = new UserRepository(userCount);
+
+        userController = new UserController(userRepository);
+        usernames = new String[userCount];
+
+        for (int user = 0; user < userCount; user++) {
+            userRepository.addUser(LibraryFixture.user(user));
+            usernames[user] = LibraryFixture.username(user);
+        }
+    }
+
+    @Benchmark
+    public boolean validateCredentials() {
+        return userController.validateCredentials(usernames[next++ % userCount], LibraryFixture.PASSWORD);
+    }
+
+    @Benchmark
+    public boolean validateCredentialsOfMissingUser() {
+        return userController.validateCredentials("missingUser", LibraryFixture.PASSWORD);
+    }
+}
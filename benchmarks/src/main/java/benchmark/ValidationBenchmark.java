@@ -0,0 +1,63 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import validation.ISBNValidator;
+import validation.LinkValidator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the hand-written ISBN and link validators with the regular expressions they replaced,
+ * both recompiled on every call as Pattern.matches does and compiled once.
+ * Run with "-prof gc" to see that the validators allocate nothing per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidationBenchmark {
+
+    private static final String ISBN_REGEX = "^([0-9]){4}-[0-9]";
+    private static final String LINK_REGEX = "^(http)(s)*://(www.)*([a-z0-9]+.)+[a-z]+(:[0-9]{1,4})*";
+    private static final Pattern ISBN_PATTERN = Pattern.compile(ISBN_REGEX);
+    private static final Pattern LINK_PATTERN = Pattern.compile(LINK_REGEX);
+
+    @Param({"1234-5", "12a4-5"})
+    private String isbn;
+
+    @Param({"http://harrypotter.online.read.com", "https://www.library.com:80800"})
+    private String link;
+
+    @Benchmark
+    public boolean isbnPatternMatches() {
+        return Pattern.matches(ISBN_REGEX, isbn);
+    }
+
+    @Benchmark
+    public boolean isbnCompiledPattern() {
+        return ISBN_PATTERN.matcher(isbn).matches();
+    }
+
+    @Benchmark
+    public boolean isbnValidator() {
+        return ISBNValidator.isValid(isbn);
+    }
+
+    @Benchmark
+    public boolean linkPatternMatches() {
+        return Pattern.matches(LINK_REGEX, link);
+    }
+
+    @Benchmark
+    public boolean linkCompiledPattern() {
+        return LINK_PATTERN.matcher(link).matches();
+    }
+
+    @Benchmark
+    public boolean linkValidator() {
+        return LinkValidator.isValid(link);
+    }
+}
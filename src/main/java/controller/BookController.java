@@ -2,18 +2,37 @@ package controller;
 
 import enums.BookTags;
 import enums.BookGenre;
+import enums.LibraryOperation;
+import controller.cache.SearchCache;
+import controller.importing.BookFileFormat;
+import controller.importing.BookRecord;
 import exception.CustomException;
 import model.book.Book;
 import model.book.impl.DownloadableEBook;
 import model.book.impl.EBook;
 import model.book.impl.PaperBook;
+import model.common.BookQuery;
+import model.common.CacheStatistics;
+import model.common.ImportReport;
+import model.common.Page;
 import model.user.impl.Author;
 import repository.BookRepository;
 import repository.UserRepository;
-
+import repository.metrics.LibraryMetrics;
+import repository.storage.StorageEngine;
+import repository.wal.LoanJournal;
+import validation.ISBNValidator;
+import validation.LinkValidator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 
 /**
@@ -23,25 +42,139 @@ import java.util.stream.Collectors;
  */
 public class BookController {
 
+    public static final int IMPORT_BATCH_SIZE = 50_000;
+    private static final Map<String, BookGenre> GENRES_BY_NAME = Arrays.stream(BookGenre.values())
+            .collect(Collectors.toUnmodifiableMap(Enum::name, genre -> genre));
+    private static final Map<String, BookTags> TAGS_BY_NAME = Arrays.stream(BookTags.values())
+            .collect(Collectors.toUnmodifiableMap(Enum::name, tag -> tag));
+    public static final int SEARCH_CACHE_CAPACITY = 1024;
+    public static final int MAX_CACHED_RESULT_SIZE = 10_000;
+    private static final String INVALID_ISBN_MESSAGE = "The provided ISBN was not valid. " +
+            "The ISBN should consist of 5 numbers and a '-' symbol in the format '####-#'.";
     private final BookRepository bookRepository;
+    private final LibraryMetrics metrics;
+    private final SearchCache searchCache = new SearchCache(SEARCH_CACHE_CAPACITY, MAX_CACHED_RESULT_SIZE);
 
     public BookController(UserRepository userRepository) {
         bookRepository = new BookRepository(userRepository);
+        metrics = userRepository.getMetrics();
     }
 
+    /**
+     * Creates a controller over a library kept in the given storage.
+     * The books stored before are available right away, without being validated and added again.
+     *
+     * @param userRepository Repository with the registered users.
+     * @param storage        Storage engine holding the library.
+     */
+    public BookController(UserRepository userRepository, StorageEngine storage) {
+        bookRepository = new BookRepository(userRepository, storage);
+        metrics = userRepository.getMetrics();
+    }
 
     /**
-     * Iterates through all of the books in the library
-     * and gets all which titles contain the given string.
+     * Creates a controller over a library kept in the given storage with its loans kept in the given journal.
+     *
+     * @param userRepository Repository with the registered users.
+     * @param storage        Storage engine holding the library.
+     * @param journal        Journal holding the changes of the loans, offers, waiting queues and bans.
+     */
+    public BookController(UserRepository userRepository, StorageEngine storage, LoanJournal journal) {
+        bookRepository = new BookRepository(userRepository, storage, journal);
+        metrics = userRepository.getMetrics();
+    }
+
+
+    /**
+     * Looks up the title index of the library for all books which titles contain the given string.
      *
      * @param title A string that is expected to be contained in the title of some books.
      * @return List of books matching the criteria or empty list.
      */
     public List<Book> searchByBookTitle(String title) {
-        return isStringValid(title) ? bookRepository.getAllBooksInLibrary()
-                .stream()
-                .filter(book -> book.getTitle().contains(title))
-                .collect(Collectors.toUnmodifiableList()) : new ArrayList<>();
+        return metrics.timed(LibraryOperation.SEARCH_BY_TITLE, () -> {
+            return isStringValid(title) ?
+                    cachedSearch("title\u0000" + title, () -> bookRepository.findBooksByTitleContaining(title)) :
+                    new ArrayList<>();
+        });
+    }
+
+    /**
+     * Looks up the title index of the library for one page of the books which titles contain the given string.
+     * The page costs as much as the candidates of the title index scanned to fill it, not only the page size.
+     * Unlike {@link #searchByBookTitle(String)} the pages are not kept in the search cache - every page is read
+     * from the index of the library.
+     *
+     * @param title    A string that is expected to be contained in the title of some books.
+     * @param cursor   Cursor from the previous page of the same title or null for the first page.
+     * @param pageSize Maximal amount of books on the page.
+     * @return Page of the matching books in the order they were added to the library.
+     */
+    public Page<Book> searchByBookTitle(String title, String cursor, int pageSize) {
+        return metrics.timed(LibraryOperation.SEARCH_BY_TITLE, () -> {
+            return isStringValid(title) ?
+                    bookRepository.findBooks(BookQuery.builder().titleContaining(title).build(), cursor, pageSize) :
+                    new Page<>(new ArrayList<>(), null);
+        });
+    }
+
+    /**
+     * Looks up the title index of the library for all books which titles start with the given string.
+     *
+     * @param titlePrefix A string that is expected to be the beginning of the title of some books.
+     * @return List of books matching the criteria or empty list.
+     */
+    public List<Book> searchByBookTitlePrefix(String titlePrefix) {
+        return metrics.timed(LibraryOperation.SEARCH_BY_TITLE, () -> {
+            return isStringValid(titlePrefix) ?
+                    Collections.unmodifiableList(bookRepository.findBooksByTitleStartingWith(titlePrefix)) : new ArrayList<>();
+        });
+    }
+
+    /**
+     * Searches for books matching all criteria of the query at once - title, author, genre, tags and availability.
+     * The library starts from the criterion that the fewest books can match.
+     *
+     * @param query Criteria of the search, created with {@link BookQuery#builder()}.
+     * @return List of books matching the criteria or empty list.
+     */
+    public List<Book> searchBooks(BookQuery query) {
+        return metrics.timed(LibraryOperation.SEARCH_BY_QUERY, () -> {
+            if (query == null) {
+                throw new CustomException("Please provide a query. Query can't be null.");
+            }
+
+            return Collections.unmodifiableList(bookRepository.findBooks(query));
+        });
+    }
+
+    /**
+     * Searches for one page of the books matching all criteria of the query.
+     *
+     * @param query    Criteria of the search, created with {@link BookQuery#builder()}.
+     * @param cursor   Cursor from the previous page of the same query or null for the first page.
+     * @param pageSize Maximal amount of books on the page.
+     * @return Page of the matching books in the order they were added to the library.
+     */
+    public Page<Book> searchBooks(BookQuery query, String cursor, int pageSize) {
+        return metrics.timed(LibraryOperation.SEARCH_BY_QUERY, () -> {
+            if (query == null) {
+                throw new CustomException("Please provide a query. Query can't be null.");
+            }
+
+            return bookRepository.findBooks(query, cursor, pageSize);
+        });
+    }
+
+    /**
+     * Gets one page of all books in the library ordered by title and then by ISBN.
+     *
+     * @param cursor   Cursor from the previous page or null for the first page.
+     * @param pageSize Maximal amount of books on the page.
+     * @return Page of the books in order of title.
+     */
+    public Page<Book> browseBooksByTitle(String cursor, int pageSize) {
+        return bookRepository.getBooksOrderedByTitle(cursor, pageSize);
     }
 
     /**
@@ -51,46 +184,97 @@ public class BookController {
      * @return List of books matching the criteria or empty list.
      */
     public List<Book> searchByBookGenre(String genreName) {
-        if (genreName == null) {
-            throw new CustomException("Please input name for the genre. Genre can't be null.");
-        }
+        return metrics.timed(LibraryOperation.SEARCH_BY_GENRE, () -> {
+            if (genreName == null) {
+                throw new CustomException("Please input name for the genre. Genre can't be null.");
+            }
 
-        List<String> allGenreNames = Arrays.stream(BookGenre.values())
-                .map(Enum::name)
-                .collect(Collectors.toList());
+            BookGenre genre = GENRES_BY_NAME.get(genreName.toUpperCase());
 
-        if (allGenreNames.contains(genreName.toUpperCase())) {
-            return bookRepository.getAllBooksInLibrary().stream()
-                    .filter(book -> book.getGenre().name().equalsIgnoreCase(genreName))
-                    .collect(Collectors.toUnmodifiableList());
-        }
-
-        return new ArrayList<>();
+            return genre == null ? new ArrayList<>() :
+                    cachedSearch("genre\u0000" + genre.name(), () -> bookRepository.findBooksByGenre(genre));
+        });
     }
 
     /**
-     * Searches for books that contain all the provided tags in its list of tags.
+     * Searches for books that contain at least one of the provided tags in its list of tags.
      *
      * @param searchTags Collection of tags - strings - provided by the user.
      * @return List of books matching the criteria or empty list.
      */
     public List<Book> searchByBookTags(String... searchTags) {
+        return metrics.timed(LibraryOperation.SEARCH_BY_TAGS, () -> {
+            long tagMask = tagMaskOf(searchTags);
 
-        if (searchTags == null || searchTags.length < 1) {
-            return new ArrayList<>();
-        }
+            return tagMask == 0 ? new ArrayList<>() :
+                    cachedSearch("any tags\u0000" + tagMask, () -> bookRepository.findBooksWithAnyTag(tagMask));
+        });
+    }
 
-        List<String> searchedTags = Arrays.asList(searchTags);
+    /**
+     * Searches for books that contain all the provided tags in its list of tags.
+     *
+     * @param searchTags Collection of tags - strings - provided by the user.
+     * @return List of books matching the criteria or empty list if any of the tags does not exist.
+     */
+    public List<Book> searchByAllBookTags(String... searchTags) {
+        return metrics.timed(LibraryOperation.SEARCH_BY_TAGS, () -> {
+            long tagMask = tagMaskOf(searchTags);
+
+            if (tagMask == 0 || Arrays.stream(searchTags).anyMatch(tag -> tag == null || tagOf(tag) == null)) {
+                return new ArrayList<>();
+            }
+
+            return cachedSearch("all tags\u0000" + tagMask, () -> bookRepository.findBooksWithAllTags(tagMask));
+        });
+    }
 
-        Set<Book> foundBooks = new HashSet<>();
+    /**
+     * Serves the search from the search cache while no books were added since it was computed.
+     *
+     * @param key    Normalized search - the kind of search and its parameters.
+     * @param search Computes the result of the search from the library.
+     * @return Unmodifiable list with the result of the search.
+     */
+    private List<Book> cachedSearch(String key, Supplier<List<Book>> search) {
+        return searchCache.get(key, bookRepository.getCatalogGeneration(), search);
+    }
 
-        for (String tag : searchedTags) {
-            foundBooks.addAll(bookRepository.getAllBooksInLibrary().stream()
-                    .filter(book -> book.getBookTags().contains(tag.toUpperCase()))
-                    .collect(Collectors.toList()));
+    /**
+     * @return Hits, misses and evictions of the cache of title, genre and tag searches.
+     */
+    public CacheStatistics getSearchCacheStatistics() {
+        return searchCache.getStatistics();
+    }
+
+    /**
+     * @param tagNames Names of tags in any case. Names that are not tags are skipped.
+     * @return Bit mask of the named tags - bit n is set for the tag with ordinal n.
+     */
+    private long tagMaskOf(String... tagNames) {
+        long tagMask = 0;
+
+        if (tagNames == null) {
+            return tagMask;
+        }
+
+        for (String tagName : tagNames) {
+            BookTags tag = tagName == null ? null : tagOf(tagName);
+
+            if (tag != null) {
+                tagMask |= 1L << tag.ordinal();
+            }
         }
 
-        return new ArrayList<>(foundBooks);
+        return tagMask;
+    }
+
+    /**
+     * @param tagName Name of a tag in any case.
+     * @return The tag with that name or null if there is no such tag.
+     */
+    private BookTags tagOf(String tagName) {
+        return TAGS_BY_NAME.get(tagName.toUpperCase());
     }
 
     /**
@@ -100,16 +284,10 @@ public class BookController {
      * @return List of found books or an empty list if nothing matched the search parameters.
      */
     public List<Book> searchBookByAuthorsFullName(String fullNameContaining) {
-        if (!isStringValid(fullNameContaining)) {
-            return new ArrayList<>();
-        }
-
-        List<Book> foundBooks = bookRepository.getAllBooksInLibrary().stream()
-                .filter(book -> book.getAuthors().stream()
-                        .anyMatch(author -> author.getFullName().contains(fullNameContaining)))
-                .collect(Collectors.toList());
-
-        return !foundBooks.isEmpty() ? foundBooks : new ArrayList<>();
+        return metrics.timed(LibraryOperation.SEARCH_BY_AUTHOR, () -> {
+            return isStringValid(fullNameContaining) ?
+                    bookRepository.findBooksByAuthorsFullName(fullNameContaining) : new ArrayList<>();
+        });
     }
 
     /**
@@ -119,16 +297,10 @@ public class BookController {
      * @return List of found books or an empty list if nothing matched the search parameters.
      */
     public List<Book> searchBookByAuthorsLastName(String lastNameContaining) {
-        if (!isStringValid(lastNameContaining)) {
-            return new ArrayList<>();
-        }
-
-        List<Book> foundBooks = bookRepository.getAllBooksInLibrary().stream()
-                .filter(book -> book.getAuthors().stream()
-                        .anyMatch(author -> author.getLastName().contains(lastNameContaining)))
-                .collect(Collectors.toList());
-
-        return !foundBooks.isEmpty() ? foundBooks : new ArrayList<>();
+        return metrics.timed(LibraryOperation.SEARCH_BY_AUTHOR, () -> {
+            return isStringValid(lastNameContaining) ?
+                    bookRepository.findBooksByAuthorsLastName(lastNameContaining) : new ArrayList<>();
+        });
     }
 
     /**
@@ -138,16 +310,10 @@ public class BookController {
      * @return List of found books or an empty list if nothing matched the search parameters.
      */
     public List<Book> searchBookByAuthorsFirstName(String firstNameContaining) {
-        if (!isStringValid(firstNameContaining)) {
-            return new ArrayList<>();
-        }
-
-        List<Book> foundBooks = bookRepository.getAllBooksInLibrary().stream()
-                .filter(book -> book.getAuthors().stream()
-                        .anyMatch(author -> author.getFirstName().contains(firstNameContaining)))
-                .collect(Collectors.toList());
-
-        return !foundBooks.isEmpty() ? foundBooks : new ArrayList<>();
+        return metrics.timed(LibraryOperation.SEARCH_BY_AUTHOR, () -> {
+            return isStringValid(firstNameContaining) ?
+                    bookRepository.findBooksByAuthorsFirstName(firstNameContaining) : new ArrayList<>();
+        });
     }
 
     /**
@@ -168,7 +334,7 @@ public class BookController {
                                        List<Author> authors, BookGenre bookGenre, List<BookTags> bookTags,
                                        String readLink, String downloadLink) {
         if (isBookValid(bookISBN, bookTitle, summary, authors, bookGenre, bookTags) && isLinkValid(readLink) && isLinkValid(downloadLink)) {
-            DownloadableEBook newDownloadableEBook = new DownloadableEBook(bookISBN, bookTitle, summary, authors, bookGenre, bookTags,
+            DownloadableEBook newDownloadableEBook = new DownloadableEBook(bookISBN.trim(), bookTitle, summary, authors, bookGenre, bookTags,
                     readLink, downloadLink);
 
             bookRepository.addBookToLibrary(newDownloadableEBook);
@@ -196,7 +362,7 @@ public class BookController {
                            List<Author> authors, BookGenre bookGenre, List<BookTags> bookTags,
                            String readLink) {
         if (isBookValid(bookISBN, bookTitle, summary, authors, bookGenre, bookTags) && isLinkValid(readLink)) {
-            EBook newEBook = new EBook(bookISBN, bookTitle, summary, authors, bookGenre, bookTags,
+            EBook newEBook = new EBook(bookISBN.trim(), bookTitle, summary, authors, bookGenre, bookTags,
                     readLink);
 
             bookRepository.addBookToLibrary(newEBook);
@@ -226,7 +392,7 @@ public class BookController {
                                int totalCopies) {
 
         if (isBookValid(bookISBN, bookTitle, summary, authors, bookGenre, bookTags) && areCopiesAtLeastOne(totalCopies)) {
-            PaperBook newPaperBook = new PaperBook(bookISBN, bookTitle, summary, authors, bookGenre, bookTags,
+            PaperBook newPaperBook = new PaperBook(bookISBN.trim(), bookTitle, summary, authors, bookGenre, bookTags,
                     totalCopies, totalCopies);
 
             bookRepository.addBookToLibrary(newPaperBook);
@@ -238,13 +404,185 @@ public class BookController {
     }
 
     /**
-     * Validates the link with a regular expression for links.
+     * Reads books from a CSV or JSON lines file and adds the valid ones to the library.
+     * The lines are read in batches which are validated in parallel and added to the library at once.
+     * Records with invalid values or with an ISBN that is already in the library or earlier in the file
+     * are skipped and reported instead of stopping the import.
+     *
+     * @param file Path to a ".csv" or ".jsonl" file in the format described in {@link BookFileFormat}.
+     * @return Report with the amount of added books and the errors for the skipped records.
+     */
+    public ImportReport importBooks(Path file) {
+        return metrics.timed(LibraryOperation.IMPORT_BOOKS, () -> {
+            if (file == null) {
+                throw new CustomException("Please provide a file to import books from.");
+            }
+
+            BookFileFormat format = BookFileFormat.of(file);
+            ImportReport report = new ImportReport();
+            Set<String> importedISBNs = new HashSet<>();
+
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                List<String> lines = new ArrayList<>(IMPORT_BATCH_SIZE);
+                long[] lineNumbers = new long[IMPORT_BATCH_SIZE];
+                long lineNumber = 0;
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+
+                    if (line.isBlank() || (lineNumber == 1 && format.isHeader(line))) {
+                        continue;
+                    }
+
+                    lineNumbers[lines.size()] = lineNumber;
+                    lines.add(line);
+
+                    if (lines.size() == IMPORT_BATCH_SIZE) {
+                        importBatch(format, lines, lineNumbers, importedISBNs, report);
+                        lines.clear();
+                    }
+                }
+
+                importBatch(format, lines, lineNumbers, importedISBNs, report);
+            } catch (IOException exception) {
+                throw new CustomException("Books could not be imported from " + file + ": " + exception.getMessage());
+            }
+
+            return report;
+        });
+    }
+
+    /**
+     * Parses and validates the lines in parallel, then in the order of the lines skips the ISBNs
+     * that are already in the library or were already imported and adds the remaining books to the library at once.
+     * Every record is either counted as imported or reported with an error.
+     *
+     * @param format        Format of the lines.
+     * @param lines         Lines of the batch.
+     * @param lineNumbers   Numbers of the lines in the file.
+     * @param importedISBNs ISBNs of the books imported with the previous lines.
+     * @param report        Report to add the result of the batch to.
+     */
+    private void importBatch(BookFileFormat format, List<String> lines, long[] lineNumbers,
+                             Set<String> importedISBNs, ImportReport report) {
+        Book[] books = new Book[lines.size()];
+        String[] errors = new String[lines.size()];
+
+        IntStream.range(0, lines.size()).parallel().forEach(i -> {
+            BookRecord record = format.parse(lineNumbers[i], lines.get(i));
+
+            try {
+                String error = record.getParseError() != null ? record.getParseError() : validateRecord(record);
+
+                if (error == null) {
+                    books[i] = createBook(record);
+                } else {
+                    errors[i] = error;
+                }
+            } catch (CustomException exception) {
+                errors[i] = exception.getMessage();
+            }
+        });
+
+        List<Book> validBooks = new ArrayList<>(lines.size());
+        Map<Book, Long> lineNumbersOfBooks = new IdentityHashMap<>();
+
+        for (int i = 0; i < lines.size(); i++) {
+            if (errors[i] != null) {
+                report.addError(lineNumbers[i], errors[i]);
+            } else if (bookRepository.containsBook(books[i].getISBN())) {
+                report.addError(lineNumbers[i], alreadyInLibrary(books[i]));
+            } else if (!importedISBNs.add(books[i].getISBN())) {
+                report.addError(lineNumbers[i], "Book with ISBN " + books[i].getISBN() + " appears earlier in the file.");
+            } else {
+                validBooks.add(books[i]);
+                lineNumbersOfBooks.put(books[i], lineNumbers[i]);
+            }
+        }
+
+        // A book with the same ISBN can be added by another thread after the records were validated.
+        List<Book> duplicateBooks = bookRepository.addBooksToLibrary(validBooks);
+
+        for (Book book : duplicateBooks) {
+            report.addError(lineNumbersOfBooks.get(book), alreadyInLibrary(book));
+        }
+
+        report.addImportedBooks(validBooks.size() - duplicateBooks.size());
+    }
+
+    /**
+     * @param book Book of an imported record.
+     * @return Message reporting that the ISBN of the book is already in the library.
+     */
+    private static String alreadyInLibrary(Book book) {
+        return "Book with ISBN " + book.getISBN() + " is already in the library.";
+    }
+
+    /**
+     * Validates the values of an imported record the same way as adding a single book does.
+     *
+     * @param record Values read from the import file.
+     * @return Message explaining the first invalid value or null if the record is valid.
+     */
+    private String validateRecord(BookRecord record) {
+        String type = record.getType() == null ? "" : record.getType().trim().toUpperCase();
+
+        if (!type.equals("PAPER") && !type.equals("EBOOK") && !type.equals("DOWNLOADABLE_EBOOK")) {
+            return "Unknown book type " + record.getType() + ". Expected PAPER, EBOOK or DOWNLOADABLE_EBOOK.";
+        }
+
+        String error = validateBook(record.getISBN(), record.getTitle(), record.getSummary(),
+                record.getAuthors(), record.getGenre(), record.getTags());
+
+        if (error != null) {
+            return error;
+        }
+
+        if (type.equals("PAPER") && !areCopiesAtLeastOne(record.getTotalCopies())) {
+            return "The provided amount of copies is not valid. A paper book must have at least one copy.";
+        }
+
+        if (!type.equals("PAPER") && !isLinkValid(record.getReadLink())) {
+            return "The provided read link is not valid.";
+        }
+
+        if (type.equals("DOWNLOADABLE_EBOOK") && !isLinkValid(record.getDownloadLink())) {
+            return "The provided download link is not valid.";
+        }
+
+        return null;
+    }
+
+    /**
+     * @param record Values read from the import file, already validated.
+     * @return The book described by the record.
+     */
+    private Book createBook(BookRecord record) {
+        String ISBN = record.getISBN().trim();
+
+        switch (record.getType().trim().toUpperCase()) {
+            case "PAPER":
+                return new PaperBook(ISBN, record.getTitle(), record.getSummary(), record.getAuthors(),
+                        record.getGenre(), record.getTags(), record.getTotalCopies(), record.getTotalCopies());
+            case "EBOOK":
+                return new EBook(ISBN, record.getTitle(), record.getSummary(), record.getAuthors(),
+                        record.getGenre(), record.getTags(), record.getReadLink());
+            default:
+                return new DownloadableEBook(ISBN, record.getTitle(), record.getSummary(), record.getAuthors(),
+                        record.getGenre(), record.getTags(), record.getReadLink(), record.getDownloadLink());
+        }
+    }
+
+    /**
+     * Validates the link with the same rules as the regular expression
+     * "^(http)(s)*://(www.)*([a-z0-9]+.)+[a-z]+(:[0-9]{1,4})*".
      *
      * @param bookLink String representation of a link.
      * @return true if the link matches the regexp or false if doesn't.
      */
     private boolean isLinkValid(String bookLink) {
-        return bookLink != null && Pattern.matches("^(http)(s)*://(www.)*([a-z0-9]+.)+[a-z]+(:[0-9]{1,4})*", bookLink);
+        return LinkValidator.isValid(bookLink);
     }
 
     /**
@@ -259,7 +597,7 @@ public class BookController {
 
     /**
      * Calls methods to validate separately each of the parameters and
-     * returns an error message whe the first invalid method is found.
+     * throws an exception with the error message of the first invalid parameter.
      *
      * @param bookISBN       Unique book identification.
      * @param bookTitle      String representation of the title of the book.
@@ -272,37 +610,67 @@ public class BookController {
      */
     private boolean isBookValid(String bookISBN, String bookTitle, String summary,
                                 List<Author> authors, BookGenre bookGenre, List<BookTags> bookCategories) {
+        if (isISBNTaken(bookISBN)) {
+            throw new CustomException(INVALID_ISBN_MESSAGE);
+        }
+
+        String error = validateBook(bookISBN, bookTitle, summary, authors, bookGenre, bookCategories);
+
+        if (error != null) {
+            throw new CustomException(error);
+        }
+
+        return true;
+    }
+
+    /**
+     * Calls methods to validate separately each of the parameters and
+     * returns an error message when the first invalid parameter is found.
+     *
+     * @param bookISBN       Unique book identification.
+     * @param bookTitle      String representation of the title of the book.
+     * @param summary        Short info describing the book.
+     * @param authors        List of objects of type Author with length at least one.
+     * @param bookGenre      List of objects of type BookGenre with length at least one.
+     * @param bookCategories List of objects of type BookCategory with length at least one.
+     * @return Message explaining the first invalid parameter or null if all parameters are valid.
+     */
+    private String validateBook(String bookISBN, String bookTitle, String summary,
+                                List<Author> authors, BookGenre bookGenre, List<BookTags> bookCategories) {
+        if (bookISBN == null) {
+            return "ISBN can't be null.";
+        }
+
         if (isISBNInvalid(bookISBN)) {
-            throw new CustomException("The provided ISBN was not valid. " +
-                    "The ISBN should consist of 5 numbers and a '-' symbol in the format '####-#'.");
+            return INVALID_ISBN_MESSAGE;
         }
 
         if (isTitleInvalid(bookTitle)) {
-            throw new CustomException("The provided book title is not valid. " +
-                    "The title should be at least 3 symbols long.");
+            return "The provided book title is not valid. " +
+                    "The title should be at least 3 symbols long.";
         }
 
         if (isSummaryInvalid(summary)) {
-            throw new CustomException("The provided summary is not valid. " +
-                    "The summary must be at least 50 symbols in length.");
+            return "The provided summary is not valid. " +
+                    "The summary must be at least 50 symbols in length.";
         }
 
         if (areAuthorsInvalid(authors)) {
-            throw new CustomException("The provided author/authors is/are not valid. " +
-                    "Please provide at least one, valid author to add a book to the library.");
+            return "The provided author/authors is/are not valid. " +
+                    "Please provide at least one, valid author to add a book to the library.";
         }
 
         if (isGenreInvalid(bookGenre)) {
-            throw new CustomException("The provided genre/s of the book are not valid. " +
-                    "Please provide at least one valid book genre.");
+            return "The provided genre/s of the book are not valid. " +
+                    "Please provide at least one valid book genre.";
         }
 
         if (areBookTagsInvalid(bookCategories)) {
-            throw new CustomException("The provided book tags are not valid. " +
-                    "Please provide at least one valid tag to add a book to the library.");
+            return "The provided book tags are not valid. " +
+                    "Please provide at least one valid tag to add a book to the library.";
         }
 
-        return true;
+        return null;
     }
 
     /**
@@ -356,26 +724,26 @@ public class BookController {
     }
 
     /**
-     * Validates the provided ISBN for the new book.
+     * Validates the format of the provided ISBN for the new book.
      *
      * @param bookISBN String representation of the ISBN - should be in format "####-#".
-     * @return true if input is valid otherwise -false.
+     * @return true if the ISBN is not in the expected format, otherwise - false.
      */
     private boolean isISBNInvalid(String bookISBN) {
         if (bookISBN == null) {
             throw new CustomException("ISBN can't be null.");
         }
 
-        boolean result = true;
-
-        if (isStringValid(bookISBN) && Pattern.matches("^([0-9]){4}-[0-9]", bookISBN.trim())) {
-            result = bookRepository
-                    .getAllBooksInLibrary()
-                    .stream()
-                    .anyMatch(book -> book.getISBN().equals(bookISBN.trim()));
-        }
+        return !(isStringValid(bookISBN) && ISBNValidator.isValid(bookISBN.trim()));
+    }
 
-        return result;
+    /**
+     * @param bookISBN String representation of the ISBN.
+     * @return true if the ISBN is in the expected format and a book with it is already in the library,
+     * otherwise - false.
+     */
+    private boolean isISBNTaken(String bookISBN) {
+        return bookISBN != null && !isISBNInvalid(bookISBN) && bookRepository.containsBook(bookISBN.trim());
     }
 
     /**
@@ -1,9 +1,11 @@
 package controller;
 
 import enums.Gender;
+import enums.LibraryOperation;
 import model.common.Address;
 import model.user.impl.User;
 import repository.UserRepository;
+import repository.metrics.LibraryMetrics;
 
 import java.util.regex.Pattern;
 
@@ -15,10 +17,14 @@ import java.util.regex.Pattern;
  */
 public class UserController {
 
+    private static final Pattern EMAIL_PATTERN =
+            Pattern.compile("^[a-z][a-zA-Z0-9_.]*@([a-z][a-zA-Z0-9_]*(\\.))+[a-zA-Z]+");
     private final UserRepository userRepository;
+    private final LibraryMetrics metrics;
 
     public UserController(UserRepository userRepository) {
         this.userRepository = userRepository;
+        this.metrics = userRepository.getMetrics();
     }
 
     /**
@@ -30,13 +36,15 @@ public class UserController {
      * @return true if authentication is successful or false on failure.
      */
     public boolean validateCredentials(String username, String password) {
-        User userToAuthenticate = getUser(username);
+        return metrics.timed(LibraryOperation.VALIDATE_CREDENTIALS, () -> {
+            User userToAuthenticate = getUser(username);
 
-        if (userToAuthenticate != null) {
-            return userToAuthenticate.getPassword().equals(password);
-        }
+            if (userToAuthenticate != null) {
+                return userToAuthenticate.hasPassword(password);
+            }
 
-        return false;
+            return false;
+        });
     }
 
     /**
@@ -69,14 +77,16 @@ public class UserController {
     public String registerUser(String username, String password, boolean GDPR,
                                String firstName, String lastName,
                                int age, Address address, Gender gender, String email) {
-        if (validateUserData(username, password, GDPR, firstName, lastName, age, address, gender, email)) {
-            User user = new User(firstName, lastName, address,
-                    gender, username, password, email, GDPR, age);
+        return metrics.timed(LibraryOperation.REGISTER_USER, () -> {
+            if (validateUserData(username, password, GDPR, firstName, lastName, age, address, gender, email)) {
+                User user = new User(firstName, lastName, address,
+                        gender, username, password, email, GDPR, age);
 
-            return userRepository.addUser(user);
-        }
+                return userRepository.addUser(user);
+            }
 
-        return "User not created.";
+            return "User not created.";
+        });
     }
 
     /**
@@ -170,14 +180,13 @@ public class UserController {
     }
 
     /**
-     * Validation of the email using a regex.
+     * Validation of the email using a regex compiled once for all users.
      *
      * @param email String representation of the user's email.
      * @return true if parameter is valid or false if not valid.
      */
     private boolean isEmailInvalid(String email) {
-        return !Pattern.matches(
-                "^[a-z][a-zA-Z0-9_.]*@([a-z][a-zA-Z0-9_]*(\\.))+[a-zA-Z]+", email);
+        return !EMAIL_PATTERN.matcher(email).matches();
     }
 
     /**
@@ -242,16 +251,12 @@ public class UserController {
     }
 
     /**
-     * Searches the user repository for a user with a given name.
+     * Looks up the user repository for a user with a given name by key, without copying any users.
      *
      * @param username String representation of the username.
      * @return User if such exist with that username or null.
      */
     private User getUser(String username) {
-        return userRepository.getAllUsers()
-                .stream()
-                .filter(user -> user.getUsername().equals(username))
-                .findFirst()
-                .orElse(null);
+        return userRepository.getUser(username);
     }
 }
@@ -0,0 +1,98 @@
+package controller.cache;
+
+import model.book.Book;
+import model.common.CacheStatistics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of search results keyed by the normalized search, evicting the least recently used entry.
+ * <p>
+ * Every entry remembers the generation of the catalog it was computed for. The library increases
+ * the generation whenever a book is added, so an entry from an older generation is never served -
+ * it is computed again on the next search. Large results are not kept, so that the memory of the cache
+ * is bounded by the amount of entries times the largest kept result.
+ */
+public class SearchCache {
+
+    private final int capacity;
+    private final int maxResultSize;
+    private final Map<String, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacity      Maximal amount of searches kept in the cache.
+     * @param maxResultSize Maximal amount of books in a result that is kept in the cache.
+     */
+    public SearchCache(int capacity, int maxResultSize) {
+        this.capacity = capacity;
+        this.maxResultSize = maxResultSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > SearchCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached result of the search if it was computed for the current generation of the catalog,
+     * otherwise computes it and keeps it for the next searches.
+     *
+     * @param key        Normalized search - equal searches must have equal keys.
+     * @param generation Current generation of the catalog, read before the search is computed.
+     * @param search     Computes the result of the search.
+     * @return Unmodifiable list with the result of the search.
+     */
+    public List<Book> get(String key, long generation, Supplier<List<Book>> search) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+
+            if (entry != null && entry.generation == generation) {
+                hits++;
+                return entry.books;
+            }
+
+            misses++;
+        }
+
+        List<Book> books = Collections.unmodifiableList(search.get());
+
+        if (books.size() <= maxResultSize) {
+            synchronized (this) {
+                entries.put(key, new Entry(generation, books));
+            }
+        }
+
+        return books;
+    }
+
+    /**
+     * @return Snapshot of the hits, misses, evictions and size of the cache.
+     */
+    public synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(hits, misses, evictions, entries.size(), capacity);
+    }
+
+    private static final class Entry {
+
+        private final long generation;
+        private final List<Book> books;
+
+        private Entry(long generation, List<Book> books) {
+            this.generation = generation;
+            this.books = books;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package controller.importing;
+
+import exception.CustomException;
+
+import java.nio.file.Path;
+
+/**
+ * The formats of files that books can be imported from. Each line of the file holds one book.
+ * <p>
+ * CSV lines have the columns
+ * type,isbn,title,summary,authors,genre,tags,copies,readLink,downloadLink.
+ * Values containing commas or quotes are put in double quotes and quotes in them are doubled.
+ * A first line starting with "type," is taken as a header and skipped.
+ * <p>
+ * JSON lines hold one object per line with fields of the same names.
+ * Authors and tags can be given as arrays of strings.
+ * <p>
+ * In both formats several authors or tags in one string are separated with ';'
+ * and an author is written as first name, space, last name.
+ */
+public enum BookFileFormat {
+
+    CSV {
+        @Override
+        public boolean isHeader(String line) {
+            return line.regionMatches(true, 0, "type,", 0, 5);
+        }
+
+        @Override
+        public BookRecord parse(long lineNumber, String line) {
+            return BookRecord.fromCsv(lineNumber, line);
+        }
+    },
+    JSON_LINES {
+        @Override
+        public boolean isHeader(String line) {
+            return false;
+        }
+
+        @Override
+        public BookRecord parse(long lineNumber, String line) {
+            return BookRecord.fromJson(lineNumber, line);
+        }
+    };
+
+    /**
+     * Picks the format by the extension of the file - ".csv" or ".jsonl", ".ndjson", ".json".
+     *
+     * @param file Path to the file with books.
+     * @return The format of the file.
+     */
+    public static BookFileFormat of(Path file) {
+        String fileName = file.getFileName().toString().toLowerCase();
+
+        if (fileName.endsWith(".csv")) {
+            return CSV;
+        }
+
+        if (fileName.endsWith(".jsonl") || fileName.endsWith(".ndjson") || fileName.endsWith(".json")) {
+            return JSON_LINES;
+        }
+
+        throw new CustomException("Unsupported import file " + fileName + ". Use a .csv or a .jsonl file.");
+    }
+
+    /**
+     * @param line The first line of the file.
+     * @return true if the line names the columns instead of holding a book, otherwise - false.
+     */
+    public abstract boolean isHeader(String line);
+
+    /**
+     * @param lineNumber Number of the line in the file, starting from 1.
+     * @param line       Text of the line.
+     * @return The values read from the line or a record holding the reason the line could not be read.
+     */
+    public abstract BookRecord parse(long lineNumber, String line);
+}
@@ -0,0 +1,290 @@
+package controller.importing;
+
+import enums.BookGenre;
+import enums.BookTags;
+import exception.CustomException;
+import model.user.impl.Author;
+
+import java.util.*;
+
+/**
+ * Values of one book read from an import file, before they are validated.
+ * The typed getters return null or -1 for values that can't be converted, so that
+ * the validation can report what is wrong with the record instead of failing on it.
+ */
+public class BookRecord {
+
+    private static final String[] COLUMNS = {
+            "type", "isbn", "title", "summary", "authors", "genre", "tags", "copies", "readLink", "downloadLink"};
+    private static final Map<String, BookGenre> GENRES_BY_NAME = new HashMap<>();
+    private static final Map<String, BookTags> TAGS_BY_NAME = new HashMap<>();
+
+    static {
+        for (BookGenre genre : BookGenre.values()) {
+            GENRES_BY_NAME.put(genre.name(), genre);
+        }
+
+        for (BookTags tag : BookTags.values()) {
+            TAGS_BY_NAME.put(tag.name(), tag);
+        }
+    }
+
+    private final long lineNumber;
+    private final String parseError;
+    private final String type;
+    private final String ISBN;
+    private final String title;
+    private final String summary;
+    private final List<String> authors;
+    private final String genre;
+    private final List<String> tags;
+    private final String copies;
+    private final String readLink;
+    private final String downloadLink;
+
+    private BookRecord(long lineNumber, String parseError, Map<String, Object> values) {
+        this.lineNumber = lineNumber;
+        this.parseError = parseError;
+        type = stringValue(values.get("type"));
+        ISBN = stringValue(values.get("isbn"));
+        title = stringValue(values.get("title"));
+        summary = stringValue(values.get("summary"));
+        authors = listValue(values.get("authors"));
+        genre = stringValue(values.get("genre"));
+        tags = listValue(values.get("tags"));
+        copies = stringValue(values.get("copies"));
+        readLink = stringValue(values.get("readLink"));
+        downloadLink = stringValue(values.get("downloadLink"));
+    }
+
+    /**
+     * @param lineNumber Number of the line in the file.
+     * @param line       Line with comma separated values in the order of {@link BookFileFormat#CSV}.
+     * @return The values read from the line.
+     */
+    static BookRecord fromCsv(long lineNumber, String line) {
+        List<String> cells = splitCsv(line);
+
+        if (cells == null) {
+            return failed(lineNumber, "Unterminated quoted value.");
+        }
+
+        if (cells.size() != COLUMNS.length) {
+            return failed(lineNumber, "Expected " + COLUMNS.length + " values but found " + cells.size() + ".");
+        }
+
+        Map<String, Object> values = new HashMap<>();
+
+        for (int i = 0; i < COLUMNS.length; i++) {
+            values.put(COLUMNS[i], cells.get(i).isEmpty() ? null : cells.get(i));
+        }
+
+        return new BookRecord(lineNumber, null, values);
+    }
+
+    /**
+     * @param lineNumber Number of the line in the file.
+     * @param line       Line with a JSON object.
+     * @return The values read from the line.
+     */
+    static BookRecord fromJson(long lineNumber, String line) {
+        try {
+            return new BookRecord(lineNumber, null, JsonLineParser.parseObject(line));
+        } catch (CustomException exception) {
+            return failed(lineNumber, "Invalid JSON. " + exception.getMessage());
+        }
+    }
+
+    private static BookRecord failed(long lineNumber, String parseError) {
+        return new BookRecord(lineNumber, parseError, Collections.emptyMap());
+    }
+
+    /**
+     * Splits the line on commas outside of double quotes.
+     *
+     * @return The values in the line or null if a quoted value is not closed.
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> cells = new ArrayList<>(COLUMNS.length);
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char symbol = line.charAt(i);
+
+            if (quoted) {
+                if (symbol != '"') {
+                    cell.append(symbol);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (symbol == '"') {
+                quoted = true;
+            } else if (symbol == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(symbol);
+            }
+        }
+
+        if (quoted) {
+            return null;
+        }
+
+        cells.add(cell.toString());
+
+        return cells;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String stringValue(Object value) {
+        if (value instanceof List) {
+            return String.join(";", (List<String>) value);
+        }
+
+        return (String) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> listValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        if (value instanceof List) {
+            return (List<String>) value;
+        }
+
+        return Arrays.asList(((String) value).split(";", -1));
+    }
+
+    /**
+     * @return Get the number of the line of the record in the file.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return Get the reason the line could not be read or null if it was read.
+     */
+    public String getParseError() {
+        return parseError;
+    }
+
+    /**
+     * @return Get the type of the book - PAPER, EBOOK or DOWNLOADABLE_EBOOK.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return Get the ISBN of the book.
+     */
+    public String getISBN() {
+        return ISBN;
+    }
+
+    /**
+     * @return Get the title of the book.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * @return Get the summary of the book.
+     */
+    public String getSummary() {
+        return summary;
+    }
+
+    /**
+     * @return Get the link to read the book.
+     */
+    public String getReadLink() {
+        return readLink;
+    }
+
+    /**
+     * @return Get the link to download the book.
+     */
+    public String getDownloadLink() {
+        return downloadLink;
+    }
+
+    /**
+     * @return The authors of the book or null if any of them has no first and last name.
+     */
+    public List<Author> getAuthors() {
+        if (authors == null) {
+            return null;
+        }
+
+        List<Author> bookAuthors = new ArrayList<>(authors.size());
+
+        for (String fullName : authors) {
+            String trimmedName = fullName == null ? "" : fullName.trim();
+            int separator = trimmedName.indexOf(' ');
+
+            if (separator < 1) {
+                return null;
+            }
+
+            bookAuthors.add(new Author(trimmedName.substring(0, separator),
+                    trimmedName.substring(separator + 1).trim(), null, null));
+        }
+
+        return bookAuthors;
+    }
+
+    /**
+     * @return The genre of the book or null if there is no genre with that name.
+     */
+    public BookGenre getGenre() {
+        return genre == null ? null : GENRES_BY_NAME.get(genre.trim().toUpperCase());
+    }
+
+    /**
+     * @return The tags of the book or null if any of them is unknown.
+     */
+    public List<BookTags> getTags() {
+        if (tags == null) {
+            return null;
+        }
+
+        List<BookTags> bookTags = new ArrayList<>(tags.size());
+
+        for (String tagName : tags) {
+            BookTags tag = tagName == null ? null : TAGS_BY_NAME.get(tagName.trim().toUpperCase());
+
+            if (tag == null) {
+                return null;
+            }
+
+            bookTags.add(tag);
+        }
+
+        return bookTags;
+    }
+
+    /**
+     * @return The amount of copies of a paper book or -1 if it is not a number.
+     */
+    public int getTotalCopies() {
+        if (copies == null) {
+            return -1;
+        }
+
+        try {
+            return Integer.parseInt(copies.trim());
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+}
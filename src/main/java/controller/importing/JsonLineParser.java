@@ -0,0 +1,219 @@
+package controller.importing;
+
+import exception.CustomException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads one line of a JSON lines file holding a flat object.
+ * The values of the object can be strings, numbers, booleans, null or arrays of them.
+ * Numbers and booleans are returned as their text, arrays - as lists of strings.
+ */
+final class JsonLineParser {
+
+    private final String line;
+    private int position;
+
+    private JsonLineParser(String line) {
+        this.line = line;
+    }
+
+    /**
+     * @param line Text of the line.
+     * @return The fields of the object by name.
+     */
+    static Map<String, Object> parseObject(String line) {
+        JsonLineParser parser = new JsonLineParser(line);
+        Map<String, Object> fields = parser.readObject();
+
+        parser.skipWhitespace();
+
+        if (parser.position != line.length()) {
+            throw parser.error("Unexpected text after the end of the object");
+        }
+
+        return fields;
+    }
+
+    private Map<String, Object> readObject() {
+        expect('{');
+
+        Map<String, Object> fields = new HashMap<>();
+
+        skipWhitespace();
+
+        if (peek() == '}') {
+            position++;
+            return fields;
+        }
+
+        do {
+            skipWhitespace();
+            String name = readString();
+
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+
+            fields.put(name, peek() == '[' ? readArray() : readScalar());
+
+            skipWhitespace();
+        } while (tryConsume(','));
+
+        expect('}');
+
+        return fields;
+    }
+
+    private List<String> readArray() {
+        expect('[');
+
+        List<String> values = new ArrayList<>();
+
+        skipWhitespace();
+
+        if (peek() == ']') {
+            position++;
+            return values;
+        }
+
+        do {
+            skipWhitespace();
+            values.add(readScalar());
+            skipWhitespace();
+        } while (tryConsume(','));
+
+        expect(']');
+
+        return values;
+    }
+
+    private String readScalar() {
+        char symbol = peek();
+
+        if (symbol == '"') {
+            return readString();
+        }
+
+        if (symbol == '{' || symbol == '[') {
+            throw error("Nested objects and arrays are not supported");
+        }
+
+        int start = position;
+
+        while (position < line.length() && ",}] \t".indexOf(line.charAt(position)) < 0) {
+            position++;
+        }
+
+        String literal = line.substring(start, position);
+
+        if (literal.isEmpty()) {
+            throw error("Missing value");
+        }
+
+        return literal.equals("null") ? null : literal;
+    }
+
+    private String readString() {
+        expect('"');
+
+        StringBuilder value = new StringBuilder();
+
+        while (true) {
+            if (position >= line.length()) {
+                throw error("Unterminated string");
+            }
+
+            char symbol = line.charAt(position++);
+
+            if (symbol == '"') {
+                return value.toString();
+            }
+
+            if (symbol != '\\') {
+                value.append(symbol);
+                continue;
+            }
+
+            if (position >= line.length()) {
+                throw error("Unterminated string");
+            }
+
+            char escaped = line.charAt(position++);
+
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    value.append(escaped);
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > line.length()) {
+                        throw error("Incomplete unicode escape");
+                    }
+
+                    try {
+                        value.append((char) Integer.parseInt(line.substring(position, position + 4), 16));
+                    } catch (NumberFormatException exception) {
+                        throw error("Invalid unicode escape");
+                    }
+
+                    position += 4;
+                    break;
+                default:
+                    throw error("Invalid escape \\" + escaped);
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+    }
+
+    private char peek() {
+        if (position >= line.length()) {
+            throw error("Unexpected end of line");
+        }
+
+        return line.charAt(position);
+    }
+
+    private boolean tryConsume(char symbol) {
+        if (position < line.length() && line.charAt(position) == symbol) {
+            position++;
+            return true;
+        }
+
+        return false;
+    }
+
+    private void expect(char symbol) {
+        if (!tryConsume(symbol)) {
+            throw error("Expected '" + symbol + "'");
+        }
+    }
+
+    private CustomException error(String message) {
+        return new CustomException(message + " at position " + position + ".");
+    }
+}
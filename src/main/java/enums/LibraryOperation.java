@@ -0,0 +1,29 @@
+package enums;
+
+/**
+ * Enumeration of the operations of the library that are timed and counted by the metrics.
+ */
+public enum LibraryOperation {
+
+    REQUEST_BOOK,
+    BORROW_BOOK,
+    POSTPONE_DUE_DATE,
+    RETURN_BOOK,
+    CHANGE_DAY,
+    ADD_BOOKS,
+    FIND_BOOKS_BY_TITLE,
+    FIND_BOOKS_BY_AUTHOR,
+    FIND_BOOKS_BY_GENRE,
+    FIND_BOOKS_BY_TAGS,
+    FIND_BOOKS_WITH_FREE_COPIES,
+    FIND_BOOKS_BY_QUERY,
+    BROWSE_BOOKS_BY_TITLE,
+    SEARCH_BY_TITLE,
+    SEARCH_BY_AUTHOR,
+    SEARCH_BY_GENRE,
+    SEARCH_BY_TAGS,
+    SEARCH_BY_QUERY,
+    IMPORT_BOOKS,
+    VALIDATE_CREDENTIALS,
+    REGISTER_USER
+}
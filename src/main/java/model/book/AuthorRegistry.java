@@ -0,0 +1,119 @@
+package model.book;
+
+import model.user.impl.Author;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one shared instance of every author of the library.
+ * <p>
+ * The controllers, the importers and the storage create a new author with its own names and dates for each book,
+ * so a prolific author would otherwise be kept once per book. Authors are the same person when their first name,
+ * last name and date of birth are equal. The shared instance is a copy owned by the registry, made from the first
+ * author seen, so the authors given by the callers are never changed. The date of death is not part of the identity,
+ * as it is set once the author dies - a later author with a date of death sets it on the shared copy
+ * if it is still missing.
+ * <p>
+ * The author lists of the books are shared as well, so all books of the same authors in the same order
+ * point to one unmodifiable list. A null author stays null in the list.
+ */
+public class AuthorRegistry {
+
+    private final Map<AuthorKey, Author> authors = new ConcurrentHashMap<>();
+    private final Map<List<Author>, List<Author>> authorLists = new ConcurrentHashMap<>();
+
+    /**
+     * @param author Author of a book.
+     * @return The shared copy of the same person, made from the given author if it is the first one.
+     */
+    public Author canonical(Author author) {
+        Author shared = authors.computeIfAbsent(new AuthorKey(author), key -> new Author(author.getFirstName(),
+                author.getLastName(), author.getDateOfBirth(), author.getDateOfDeath()));
+
+        if (shared.getDateOfDeath() == null && author.getDateOfDeath() != null) {
+            shared.setDateOfDeath(author.getDateOfDeath());
+        }
+
+        return shared;
+    }
+
+    /**
+     * @param bookAuthors Authors of a book, can be null or hold null authors.
+     * @return The shared unmodifiable list of the shared copies of the authors in the same order or null.
+     */
+    public List<Author> canonical(List<Author> bookAuthors) {
+        if (bookAuthors == null) {
+            return null;
+        }
+
+        List<Author> sharedAuthors = new ArrayList<>(bookAuthors.size());
+
+        for (Author author : bookAuthors) {
+            sharedAuthors.add(author == null ? null : canonical(author));
+        }
+
+        // The shared authors have no equals of their own, so equal lists hold the very same instances.
+        return authorLists.computeIfAbsent(Collections.unmodifiableList(sharedAuthors), list -> list);
+    }
+
+    /**
+     * Replaces the authors of the book with the shared list of the shared copies of the same authors.
+     * Used by the library when the book is added, before other threads can see it there.
+     *
+     * @param book Object of type book.
+     */
+    public void share(Book book) {
+        book.setAuthors(canonical(book.getAuthors()));
+    }
+
+    /**
+     * @return The amount of distinct authors.
+     */
+    public int size() {
+        return authors.size();
+    }
+
+    /**
+     * The fields that tell whether two authors are the same person.
+     */
+    private static final class AuthorKey {
+
+        private final String firstName;
+        private final String lastName;
+        private final LocalDate dateOfBirth;
+
+        private AuthorKey(Author author) {
+            this.firstName = author.getFirstName();
+            this.lastName = author.getLastName();
+            this.dateOfBirth = author.getDateOfBirth();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+
+            if (!(other instanceof AuthorKey)) {
+                return false;
+            }
+
+            AuthorKey key = (AuthorKey) other;
+
+            return Objects.equals(firstName, key.firstName)
+                    && Objects.equals(lastName, key.lastName)
+                    && Objects.equals(dateOfBirth, key.dateOfBirth);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(firstName, lastName, dateOfBirth);
+        }
+    }
+}
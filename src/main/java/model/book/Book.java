@@ -4,21 +4,29 @@ import enums.BookTags;
 import enums.BookGenre;
 import model.user.impl.Author;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Abstract class to provide partial implementation for PaperBook, EBook, DownloadableEBook.
  * Contains common methods for all three classes.
+ * <p>
+ * The tags of a book are kept as an unmodifiable copy together with their names and bit mask.
+ * Libraries have only a few distinct combinations of tags, so once a book is added to a library
+ * it shares them with the other books of the library with equal tags through a {@link TagRegistry},
+ * and shares its authors through an {@link AuthorRegistry}.
  */
 public abstract class Book {
 
+    private static final TagSet NO_TAGS = new TagSet(null);
+
     private String ISBN;
     private String title;
     private String summary;
     private BookGenre genre;
     private List<Author> authors;
-    private List<BookTags> tags;
+    private TagSet tagSet;
 
     public Book(String ISBN, String title, String summary,
                 List<Author> authors,
@@ -29,7 +37,25 @@ public abstract class Book {
         this.summary = summary;
         this.authors = authors;
         this.genre = genre;
-        this.tags = tags;
+        this.tagSet = tags == null ? NO_TAGS : new TagSet(Collections.unmodifiableList(new ArrayList<>(tags)));
+    }
+
+    /**
+     * @param tags List of book tags, can be null.
+     * @return Bit mask of the tags - bit n is set for the tag with ordinal n.
+     */
+    public static long tagMaskOf(List<BookTags> tags) {
+        long mask = 0;
+
+        if (tags != null) {
+            for (BookTags tag : tags) {
+                if (tag != null) {
+                    mask |= 1L << tag.ordinal();
+                }
+            }
+        }
+
+        return mask;
     }
 
     /**
@@ -47,12 +73,32 @@ public abstract class Book {
     }
 
     /**
-     * @return A list of the book's category names.
+     * @return Short info about what the book is about.
+     */
+    public String getSummary() {
+        return summary;
+    }
+
+    /**
+     * @return An unmodifiable list of the book's tags, possibly shared with other books.
+     */
+    public List<BookTags> getTags() {
+        return tagSet.tags;
+    }
+
+    /**
+     * @return An unmodifiable list of the book's category names, created once with the book
+     * and possibly shared with other books.
      */
     public List<String> getBookTags() {
-        return tags.stream()
-                .map(BookTags::name)
-                .collect(Collectors.toList());
+        return tagSet.names;
+    }
+
+    /**
+     * @return Bit mask of the book's tags - bit n is set for the tag with ordinal n.
+     */
+    public long getTagMask() {
+        return tagSet.mask;
     }
 
     /**
@@ -63,9 +109,66 @@ public abstract class Book {
     }
 
     /**
-     * @return A list of the book's authors.
+     * @return A list of the book's authors - the list given on creation until the book is added to a library,
+     * then an unmodifiable list shared with the other books of the library with the same authors.
      */
     public List<Author> getAuthors() {
         return authors;
     }
+
+    /**
+     * Replaces the authors with equal ones, used by the {@link AuthorRegistry} of a library.
+     *
+     * @param authors A list of the same authors in the same order.
+     */
+    void setAuthors(List<Author> authors) {
+        this.authors = authors;
+    }
+
+    /**
+     * @return The tags of the book together with their names and bit mask.
+     */
+    TagSet getTagSet() {
+        return tagSet;
+    }
+
+    /**
+     * Replaces the tags with equal ones, used by the {@link TagRegistry} of a library.
+     *
+     * @param tagSet Tag set with the same tags in the same order.
+     */
+    void setTagSet(TagSet tagSet) {
+        this.tagSet = tagSet;
+    }
+
+    /**
+     * Unmodifiable tags of a book together with their names and bit mask.
+     */
+    static final class TagSet {
+
+        private final List<BookTags> tags;
+        private final List<String> names;
+        private final long mask;
+
+        private TagSet(List<BookTags> tags) {
+            List<String> tagNames = new ArrayList<>();
+
+            if (tags != null) {
+                for (BookTags tag : tags) {
+                    tagNames.add(tag == null ? null : tag.name());
+                }
+            }
+
+            this.tags = tags;
+            this.names = Collections.unmodifiableList(tagNames);
+            this.mask = tagMaskOf(tags);
+        }
+
+        /**
+         * @return The tags of the set or null for a book created without tags.
+         */
+        List<BookTags> getTags() {
+            return tags;
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package model.book;
+
+/**
+ * Keeps the copy counts of the paper books of a library by the dense id the library gave each book.
+ * A paper book added to a library reads and changes its counts through the inventory instead of its own fields.
+ */
+public interface Inventory {
+
+    /**
+     * @param bookId Dense id of a paper book.
+     * @return The amount of free copies of the book.
+     */
+    int getAvailable(int bookId);
+
+    /**
+     * @param bookId Dense id of a paper book.
+     * @param copies The new amount of free copies of the book.
+     */
+    void setAvailable(int bookId, int copies);
+
+    /**
+     * Takes one free copy of the book if there is any left.
+     *
+     * @param bookId Dense id of a paper book.
+     * @return true if a copy was taken, otherwise - false.
+     */
+    boolean takeCopy(int bookId);
+
+    /**
+     * Puts one copy of the book back to the free copies.
+     *
+     * @param bookId Dense id of a paper book.
+     */
+    void returnCopy(int bookId);
+
+    /**
+     * @param bookId Dense id of a paper book.
+     * @return The amount of copies the library owns.
+     */
+    int getTotal(int bookId);
+}
@@ -0,0 +1,40 @@
+package model.book;
+
+import enums.BookTags;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one shared tag set for every combination of tags of the books of a library.
+ * <p>
+ * Libraries have only a few distinct combinations of tags, so books with equal tags in the same order
+ * point to one unmodifiable tag list together with its names and bit mask instead of each keeping its own.
+ * The registry belongs to one library, so its tag sets are released together with the library.
+ */
+public class TagRegistry {
+
+    private final Map<List<BookTags>, Book.TagSet> tagSets = new ConcurrentHashMap<>();
+
+    /**
+     * Replaces the tags of the book with the shared tag set of the same tags in the same order.
+     * Used by the library when the book is added, before other threads can see it there.
+     *
+     * @param book Object of type book.
+     */
+    public void share(Book book) {
+        Book.TagSet tagSet = book.getTagSet();
+
+        if (tagSet.getTags() != null) {
+            book.setTagSet(tagSets.computeIfAbsent(tagSet.getTags(), tags -> tagSet));
+        }
+    }
+
+    /**
+     * @return The amount of distinct combinations of tags.
+     */
+    public int size() {
+        return tagSets.size();
+    }
+}
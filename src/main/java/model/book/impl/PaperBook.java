@@ -2,19 +2,41 @@ package model.book.impl;
 
 import enums.BookTags;
 import enums.BookGenre;
+import exception.CustomException;
 import model.book.Book;
+import model.book.Inventory;
 import model.user.impl.Author;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.List;
 
 /**
  * An Object that emulates a paper book, containing number of copies in stock.
  * And other attributes characteristic for a real book like - isbn, author/s, title, summary etc.
+ * The amount of free copies is changed atomically, so copies are never lost or handed out twice
+ * when several users borrow and return the book at the same time.
+ * <p>
+ * Once the book is added to a library its copy counts move to the inventory of the library,
+ * which keeps the counts of all books next to each other, and the book becomes a view of its entry there.
  */
 public class PaperBook extends Book {
 
-    private int currentlyAvailable;
+    private static final VarHandle CURRENTLY_AVAILABLE;
+
+    static {
+        try {
+            CURRENTLY_AVAILABLE = MethodHandles.lookup()
+                    .findVarHandle(PaperBook.class, "currentlyAvailable", int.class);
+        } catch (ReflectiveOperationException exception) {
+            throw new ExceptionInInitializerError(exception);
+        }
+    }
+
+    private volatile int currentlyAvailable;
     private int totalCopies;
+    private volatile Inventory inventory;
+    private int inventoryId;
 
     public PaperBook(String ISBN, String title, String summary,
                      List<Author> authors,
@@ -26,11 +48,38 @@ public class PaperBook extends Book {
         this.totalCopies = totalCopies;
     }
 
+    /**
+     * Moves the copy counts of the book to the inventory of a library.
+     * Called once when the book is added to the library, before other threads can see it there.
+     * A book belongs to one library only, so a book that is already attached is rejected.
+     *
+     * @param inventory   The inventory that already holds the current counts of the book.
+     * @param inventoryId The dense id of the book in the inventory.
+     */
+    public synchronized void attachTo(Inventory inventory, int inventoryId) {
+        if (this.inventory != null) {
+            throw new CustomException("Paper book with ISBN " + getISBN() + " is already in a library.");
+        }
+
+        this.inventoryId = inventoryId;
+        this.inventory = inventory;
+    }
+
+    /**
+     * @return true if the book is in a library and its copy counts are kept in the inventory of the library,
+     * otherwise - false.
+     */
+    public boolean isAttached() {
+        return inventory != null;
+    }
+
     /**
      * @return Get the value of the books free at the moment.
      */
     public int getCurrentlyAvailable() {
-        return currentlyAvailable;
+        Inventory attached = inventory;
+
+        return attached == null ? currentlyAvailable : attached.getAvailable(inventoryId);
     }
 
     /**
@@ -39,6 +88,59 @@ public class PaperBook extends Book {
      * @param currentlyAvailable New amount of free copies after borrow or return operations.
      */
     public void setCurrentlyAvailable(int currentlyAvailable) {
-        this.currentlyAvailable = currentlyAvailable;
+        Inventory attached = inventory;
+
+        if (attached == null) {
+            this.currentlyAvailable = currentlyAvailable;
+        } else {
+            attached.setAvailable(inventoryId, currentlyAvailable);
+        }
+    }
+
+    /**
+     * Takes one free copy of the book if there is any left.
+     *
+     * @return true if a copy was taken, otherwise - false.
+     */
+    public boolean takeCopy() {
+        Inventory attached = inventory;
+
+        if (attached != null) {
+            return attached.takeCopy(inventoryId);
+        }
+
+        int available;
+
+        do {
+            available = currentlyAvailable;
+
+            if (available <= 0) {
+                return false;
+            }
+        } while (!CURRENTLY_AVAILABLE.compareAndSet(this, available, available - 1));
+
+        return true;
+    }
+
+    /**
+     * Puts one copy of the book back to the free copies.
+     */
+    public void returnCopy() {
+        Inventory attached = inventory;
+
+        if (attached == null) {
+            CURRENTLY_AVAILABLE.getAndAdd(this, 1);
+        } else {
+            attached.returnCopy(inventoryId);
+        }
+    }
+
+    /**
+     * @return Get the amount of copies the library owns.
+     */
+    public int getTotalCopies() {
+        Inventory attached = inventory;
+
+        return attached == null ? totalCopies : attached.getTotal(inventoryId);
     }
 }
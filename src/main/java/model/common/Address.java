@@ -15,6 +15,27 @@ public class Address {
         this.street = street;
     }
 
+    /**
+     * @return Get the country of the address.
+     */
+    public String getCountry() {
+        return country;
+    }
+
+    /**
+     * @return Get the city of the address.
+     */
+    public String getCity() {
+        return city;
+    }
+
+    /**
+     * @return Get the street of the address.
+     */
+    public String getStreet() {
+        return street;
+    }
+
     /**
      * @return true if all of the address fields are valid otherwise - false.
      */
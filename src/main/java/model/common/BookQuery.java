@@ -0,0 +1,173 @@
+package model.common;
+
+import enums.BookGenre;
+import enums.BookTags;
+import exception.CustomException;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * This is an object describing a search of books by several criteria at once.
+ * A book matches the query if it matches every criterion that is set:
+ * - title containing a string;
+ * - an author which full name contains a string;
+ * - genre;
+ * - all of the tags;
+ * - available to read now - an electronic book or a paper book with a free copy.
+ */
+public class BookQuery {
+
+    private final String titleContaining;
+    private final String authorNameContaining;
+    private final BookGenre genre;
+    private final EnumSet<BookTags> tags;
+    private final boolean onlyAvailable;
+
+    private BookQuery(Builder builder) {
+        titleContaining = builder.titleContaining;
+        authorNameContaining = builder.authorNameContaining;
+        genre = builder.genre;
+        tags = EnumSet.copyOf(builder.tags);
+        onlyAvailable = builder.onlyAvailable;
+    }
+
+    /**
+     * @return New builder for a query without criteria.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return Get the string the title must contain or null if the title is not searched.
+     */
+    public String getTitleContaining() {
+        return titleContaining;
+    }
+
+    /**
+     * @return Get the string the full name of an author must contain or null if authors are not searched.
+     */
+    public String getAuthorNameContaining() {
+        return authorNameContaining;
+    }
+
+    /**
+     * @return Get the genre of the books or null if any genre matches.
+     */
+    public BookGenre getGenre() {
+        return genre;
+    }
+
+    /**
+     * @return Get the tags a book must have - empty if tags are not searched.
+     */
+    public Set<BookTags> getTags() {
+        return Collections.unmodifiableSet(tags);
+    }
+
+    /**
+     * @return Bit mask of the tags a book must have - bit n is set for the tag with ordinal n.
+     */
+    public long getTagMask() {
+        long mask = 0;
+
+        for (BookTags tag : tags) {
+            mask |= 1L << tag.ordinal();
+        }
+
+        return mask;
+    }
+
+    /**
+     * @return true if only books that can be read now match the query, otherwise - false.
+     */
+    public boolean isOnlyAvailable() {
+        return onlyAvailable;
+    }
+
+    /**
+     * Collects the criteria of a query. Criteria that are not set match every book.
+     */
+    public static class Builder {
+
+        private String titleContaining;
+        private String authorNameContaining;
+        private BookGenre genre;
+        private final EnumSet<BookTags> tags = EnumSet.noneOf(BookTags.class);
+        private boolean onlyAvailable;
+
+        private Builder() {
+        }
+
+        /**
+         * @param titleFragment A string that the title of the book must contain.
+         * @return This builder.
+         */
+        public Builder titleContaining(String titleFragment) {
+            titleContaining = validateFragment(titleFragment, "title");
+            return this;
+        }
+
+        /**
+         * @param nameFragment A string that the full name of one of the authors must contain.
+         * @return This builder.
+         */
+        public Builder authorNameContaining(String nameFragment) {
+            authorNameContaining = validateFragment(nameFragment, "author name");
+            return this;
+        }
+
+        /**
+         * @param bookGenre The genre of the book.
+         * @return This builder.
+         */
+        public Builder genre(BookGenre bookGenre) {
+            genre = bookGenre;
+            return this;
+        }
+
+        /**
+         * @param bookTags Tags that the book must have, added to the tags given before.
+         * @return This builder.
+         */
+        public Builder withTags(BookTags... bookTags) {
+            for (BookTags tag : bookTags) {
+                if (tag == null) {
+                    throw new CustomException("Book tag in a query can't be null.");
+                }
+
+                tags.add(tag);
+            }
+
+            return this;
+        }
+
+        /**
+         * Makes the query match only electronic books and paper books with a free copy.
+         *
+         * @return This builder.
+         */
+        public Builder onlyAvailable() {
+            onlyAvailable = true;
+            return this;
+        }
+
+        /**
+         * @return The query with the collected criteria.
+         */
+        public BookQuery build() {
+            return new BookQuery(this);
+        }
+
+        private static String validateFragment(String fragment, String criterion) {
+            if (fragment == null || fragment.isEmpty()) {
+                throw new CustomException("The searched " + criterion + " can't be null or empty.");
+            }
+
+            return fragment;
+        }
+    }
+}
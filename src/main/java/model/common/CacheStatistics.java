@@ -0,0 +1,65 @@
+package model.common;
+
+/**
+ * This is an object holding the counters of a cache at one moment.
+ */
+public class CacheStatistics {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+    private final int capacity;
+
+    public CacheStatistics(long hits, long misses, long evictions, int size, int capacity) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return Get the amount of requests served from the cache.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return Get the amount of requests that had to be computed.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return Get the amount of entries removed to make room for new ones.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return Get the amount of entries in the cache.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return Get the maximal amount of entries in the cache.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Share of the requests served from the cache - between 0 and 1, or 0 without requests.
+     */
+    public double getHitRate() {
+        long requests = hits + misses;
+
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -2,32 +2,272 @@ package model.common;
 
 import model.book.Book;
 
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.IntFunction;
 
 /**
  * Provides an object to store the users activity from creation of the account
  * to deletion of the account.
+ * <p>
+ * The used books are kept as the dense ids the library gave them, together with the borrow dates,
+ * in blocks of {@value #BLOCK_ENTRIES} entries. Each entry is the id and the difference in days to the
+ * previous entry of its block, both as variable length integers, so an entry usually takes three or four bytes
+ * instead of a reference to the book. Full blocks never change and are handed to a {@link HistoryBlockStore},
+ * which may keep them off the heap. Only the last block is still written to.
+ * <p>
+ * Reads skip whole blocks - by position for pages and by the first and last day of a block for date ranges.
+ * The ids are turned back into the books of the catalog they were added with, so the same book objects are returned.
  */
 public class History {
 
-    private List<Book> usedBooks = new ArrayList<>();
+    static final int BLOCK_ENTRIES = 64;
+
+    private static final int MAX_ENTRY_BYTES = 10;
+    private static final ByteBuffer[] NO_BLOCKS = new ByteBuffer[0];
+    private static final int[] NO_DAYS = new int[0];
+
+    private IntFunction<Book> catalog;
+    private HistoryBlockStore blockStore = HistoryBlockStore.ON_HEAP;
+    private ByteBuffer[] blocks = NO_BLOCKS;
+    private int[] blockFirstDays = NO_DAYS;
+    private int[] blockLastDays = NO_DAYS;
+    private int blockCount;
+    private byte[] tail;
+    private int tailLength;
+    private int tailEntries;
+    private int tailFirstDay;
+    private int tailLastDay;
+    private int previousDay;
 
     /**
      * Adds to history a book that the user has read, downloaded or borrowed.
      *
-     * @param book Object that is a Book (PaperBook, EBook, DownloadableEBook).
+     * @param bookId     The dense id the library gave the book.
+     * @param borrowDate The date the user got the book.
+     * @param catalog    Resolves the ids to the books of the library when the history is read.
      */
-    public void addUsedBook(Book book) {
-        usedBooks.add(book);
+    public synchronized void addUsedBook(int bookId, LocalDate borrowDate, IntFunction<Book> catalog) {
+        this.catalog = catalog;
+
+        int day = (int) borrowDate.toEpochDay();
+
+        if (tail == null) {
+            tail = new byte[4 * MAX_ENTRY_BYTES];
+        } else if (tailLength + MAX_ENTRY_BYTES > tail.length) {
+            tail = Arrays.copyOf(tail, tail.length * 2);
+        }
+
+        if (tailEntries == 0) {
+            tailFirstDay = day;
+            tailLastDay = day;
+        }
+
+        tailLength = writeVarInt(tail, tailLength, bookId);
+        tailLength = writeVarInt(tail, tailLength, zigZag(day - previousDay));
+        tailFirstDay = Math.min(tailFirstDay, day);
+        tailLastDay = Math.max(tailLastDay, day);
+        previousDay = day;
+        tailEntries++;
+
+        if (tailEntries == BLOCK_ENTRIES) {
+            sealTail();
+        }
     }
 
     /**
      * Retrieves the history of used books by the current user.
      *
-     * @return List of Book.
+     * @return List of Book, oldest first. The list is a copy and does not change with the history.
      */
-    public List<Book> getUsedBooks() {
+    public synchronized List<Book> getUsedBooks() {
+        List<Book> usedBooks = new ArrayList<>(size());
+
+        for (int block = 0; block <= blockCount; block++) {
+            decodeBlock(block, 0, Integer.MAX_VALUE, (bookId, day) -> usedBooks.add(catalog.apply(bookId)));
+        }
+
         return usedBooks;
     }
+
+    /**
+     * Retrieves one page of the history without decoding the blocks before it.
+     *
+     * @param offset The position of the first entry of the page, 0 is the oldest entry.
+     * @param limit  The largest amount of entries on the page.
+     * @return List of the entries on the page, oldest first - possibly empty.
+     */
+    public synchronized List<HistoryEntry> getEntries(int offset, int limit) {
+        if (offset < 0 || limit <= 0 || offset >= size()) {
+            return Collections.emptyList();
+        }
+
+        List<HistoryEntry> entries = new ArrayList<>(Math.min(limit, size() - offset));
+        int block = offset / BLOCK_ENTRIES;
+        int skip = offset % BLOCK_ENTRIES;
+
+        while (block <= blockCount && entries.size() < limit) {
+            decodeBlock(block, skip, limit - entries.size(), (bookId, day) -> entries.add(entryOf(bookId, day)));
+
+            block++;
+            skip = 0;
+        }
+
+        return entries;
+    }
+
+    /**
+     * Retrieves the entries borrowed in a date range. Only the blocks with entries in the range are decoded.
+     *
+     * @param from The first date of the range.
+     * @param to   The last date of the range.
+     * @return List of the entries borrowed between the dates including both, oldest first - possibly empty.
+     */
+    public synchronized List<HistoryEntry> getEntriesBetween(LocalDate from, LocalDate to) {
+        List<HistoryEntry> entries = new ArrayList<>();
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+
+        for (int block = 0; block <= blockCount; block++) {
+            boolean isTail = block == blockCount;
+            int firstDay = isTail ? tailFirstDay : blockFirstDays[block];
+            int lastDay = isTail ? tailLastDay : blockLastDays[block];
+
+            if ((isTail && tailEntries == 0) || lastDay < fromDay || firstDay > toDay) {
+                continue;
+            }
+
+            decodeBlock(block, 0, Integer.MAX_VALUE, (bookId, day) -> {
+                if (day >= fromDay && day <= toDay) {
+                    entries.add(entryOf(bookId, day));
+                }
+            });
+        }
+
+        return entries;
+    }
+
+    /**
+     * Moves the full blocks to another store. The blocks filled later are stored there as well.
+     *
+     * @param store The store to keep the full blocks in.
+     */
+    public synchronized void moveBlocksTo(HistoryBlockStore store) {
+        if (store == blockStore) {
+            return;
+        }
+
+        for (int block = 0; block < blockCount; block++) {
+            ByteBuffer oldBlock = blocks[block].duplicate();
+            byte[] bytes = new byte[oldBlock.remaining()];
+
+            oldBlock.get(bytes);
+            blocks[block] = store.store(bytes);
+        }
+
+        blockStore = store;
+    }
+
+    /**
+     * @return The amount of used books in the history.
+     */
+    public synchronized int size() {
+        return blockCount * BLOCK_ENTRIES + tailEntries;
+    }
+
+    /**
+     * Hands the full last block to the block store and starts a new one.
+     */
+    private void sealTail() {
+        if (blockCount == blocks.length) {
+            int capacity = Math.max(4, blockCount * 2);
+
+            blocks = Arrays.copyOf(blocks, capacity);
+            blockFirstDays = Arrays.copyOf(blockFirstDays, capacity);
+            blockLastDays = Arrays.copyOf(blockLastDays, capacity);
+        }
+
+        blocks[blockCount] = blockStore.store(Arrays.copyOf(tail, tailLength));
+        blockFirstDays[blockCount] = tailFirstDay;
+        blockLastDays[blockCount] = tailLastDay;
+        blockCount++;
+
+        tailLength = 0;
+        tailEntries = 0;
+        previousDay = 0;
+    }
+
+    /**
+     * Passes the entries of a block to the consumer. The block after the full blocks is the last, open block.
+     *
+     * @param block The position of the block.
+     * @param skip  The amount of entries at the start of the block that are decoded but not passed.
+     * @param limit The largest amount of entries to pass.
+     */
+    private void decodeBlock(int block, int skip, int limit, EntryConsumer consumer) {
+        boolean isTail = block == blockCount;
+        ByteBuffer entries = isTail ? ByteBuffer.wrap(tail == null ? new byte[0] : tail, 0, tailLength)
+                : blocks[block].duplicate();
+        int entryCount = isTail ? tailEntries : BLOCK_ENTRIES;
+        int day = 0;
+
+        for (int entry = 0; entry < entryCount && entry - skip < limit; entry++) {
+            int bookId = readVarInt(entries);
+
+            day += unZigZag(readVarInt(entries));
+
+            if (entry >= skip) {
+                consumer.accept(bookId, day);
+            }
+        }
+    }
+
+    private HistoryEntry entryOf(int bookId, int day) {
+        return new HistoryEntry(catalog.apply(bookId), LocalDate.ofEpochDay(day));
+    }
+
+    private static int writeVarInt(byte[] bytes, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        bytes[position++] = (byte) value;
+
+        return position;
+    }
+
+    private static int readVarInt(ByteBuffer bytes) {
+        int value = 0;
+        int shift = 0;
+        byte current;
+
+        do {
+            current = bytes.get();
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+
+        return value;
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Receiver of the decoded entries of a block.
+     */
+    private interface EntryConsumer {
+
+        void accept(int bookId, int epochDay);
+    }
 }
@@ -0,0 +1,21 @@
+package model.common;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Keeps the full blocks of the users' histories. A block never changes once it is stored,
+ * so the store may place it anywhere a buffer can point to - on the heap, off the heap or in a mapped file.
+ */
+public interface HistoryBlockStore {
+
+    /**
+     * Store that keeps the blocks on the heap as they are.
+     */
+    HistoryBlockStore ON_HEAP = block -> ByteBuffer.wrap(block).asReadOnlyBuffer();
+
+    /**
+     * @param block Encoded entries of a full block. The array is not used after the call.
+     * @return Read-only buffer holding the block between position 0 and its limit.
+     */
+    ByteBuffer store(byte[] block);
+}
@@ -0,0 +1,33 @@
+package model.common;
+
+import model.book.Book;
+
+import java.time.LocalDate;
+
+/**
+ * This is an object holding one book from the history of a user and the date the user borrowed it.
+ */
+public class HistoryEntry {
+
+    private final Book book;
+    private final LocalDate borrowDate;
+
+    public HistoryEntry(Book book, LocalDate borrowDate) {
+        this.book = book;
+        this.borrowDate = borrowDate;
+    }
+
+    /**
+     * @return Get the used book.
+     */
+    public Book getBook() {
+        return book;
+    }
+
+    /**
+     * @return Get the date the book was borrowed on.
+     */
+    public LocalDate getBorrowDate() {
+        return borrowDate;
+    }
+}
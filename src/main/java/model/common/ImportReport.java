@@ -0,0 +1,51 @@
+package model.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This is an object describing the result of importing books from a file -
+ * how many books were added to the library and why the other records were rejected.
+ */
+public class ImportReport {
+
+    private long importedBooks;
+    private final List<String> errors = new ArrayList<>();
+
+    /**
+     * @param amount Amount of books added to the library with the last batch of records.
+     */
+    public void addImportedBooks(long amount) {
+        importedBooks += amount;
+    }
+
+    /**
+     * @param lineNumber Number of the line of the rejected record in the file, starting from 1.
+     * @param message    Message explaining why the record was rejected.
+     */
+    public void addError(long lineNumber, String message) {
+        errors.add("Line " + lineNumber + ": " + message);
+    }
+
+    /**
+     * @return Get the amount of books added to the library.
+     */
+    public long getImportedBooks() {
+        return importedBooks;
+    }
+
+    /**
+     * @return Get the amount of records that were rejected.
+     */
+    public int getRejectedRecords() {
+        return errors.size();
+    }
+
+    /**
+     * @return Get the messages for the rejected records in the order of the lines in the file.
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+}
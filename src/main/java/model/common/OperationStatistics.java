@@ -0,0 +1,76 @@
+package model.common;
+
+/**
+ * This is an object holding the counters and latencies of one operation of the library at one moment.
+ * Latencies are in microseconds.
+ */
+public class OperationStatistics {
+
+    private final String operation;
+    private final long calls;
+    private final long failures;
+    private final double meanMicros;
+    private final double medianMicros;
+    private final double p99Micros;
+    private final double maxMicros;
+
+    public OperationStatistics(String operation, long calls, long failures, double meanMicros,
+                               double medianMicros, double p99Micros, double maxMicros) {
+        this.operation = operation;
+        this.calls = calls;
+        this.failures = failures;
+        this.meanMicros = meanMicros;
+        this.medianMicros = medianMicros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    /**
+     * @return Get the name of the operation.
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return Get the amount of finished calls, failed ones included.
+     */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * @return Get the amount of calls that ended with an exception.
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return Get the average latency of the calls.
+     */
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    /**
+     * @return Get the latency below which are half of the calls - accurate within a factor of two.
+     */
+    public double getMedianMicros() {
+        return medianMicros;
+    }
+
+    /**
+     * @return Get the latency below which are 99% of the calls - accurate within a factor of two.
+     */
+    public double getP99Micros() {
+        return p99Micros;
+    }
+
+    /**
+     * @return Get the largest latency of a call.
+     */
+    public double getMaxMicros() {
+        return maxMicros;
+    }
+}
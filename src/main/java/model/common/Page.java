@@ -0,0 +1,42 @@
+package model.common;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This is an object holding one page of results and the cursor to ask for the next page with.
+ * The cursor is an opaque string that is only meant to be passed back to the method that returned it.
+ *
+ * @param <T> Type of the results.
+ */
+public class Page<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return Get the results on this page.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return Get the cursor of the next page or null if this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return true if there are more results after this page, otherwise - false.
+     */
+    public boolean hasNextPage() {
+        return nextCursor != null;
+    }
+}
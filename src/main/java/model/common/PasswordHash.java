@@ -0,0 +1,88 @@
+package model.common;
+
+import exception.CustomException;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+/**
+ * Salted PBKDF2 hash of a password. Kept instead of the password wherever it leaves the memory,
+ * so the stored credentials of the users can't be read back as passwords.
+ */
+public class PasswordHash {
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int ITERATIONS = 10_000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int iterations;
+    private final byte[] salt;
+    private final byte[] hash;
+
+    public PasswordHash(int iterations, byte[] salt, byte[] hash) {
+        this.iterations = iterations;
+        this.salt = salt.clone();
+        this.hash = hash.clone();
+    }
+
+    /**
+     * @param password The password to be hashed.
+     * @return Hash of the password with a new random salt.
+     */
+    public static PasswordHash of(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+
+        RANDOM.nextBytes(salt);
+
+        return new PasswordHash(ITERATIONS, salt, hash(password, salt, ITERATIONS));
+    }
+
+    /**
+     * @param password The password to be checked.
+     * @return true if the password has this hash, otherwise - false.
+     */
+    public boolean matches(String password) {
+        return password != null && MessageDigest.isEqual(hash, hash(password, salt, iterations));
+    }
+
+    /**
+     * @return Get the amount of iterations of the hash function.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return Get a copy of the salt.
+     */
+    public byte[] getSalt() {
+        return salt.clone();
+    }
+
+    /**
+     * @return Get a copy of the hash.
+     */
+    public byte[] getHash() {
+        return hash.clone();
+    }
+
+    /**
+     * @return The bytes of the password hashed with the salt.
+     */
+    private static byte[] hash(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException exception) {
+            throw new CustomException("Password could not be hashed: " + exception.getMessage());
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -23,6 +23,12 @@ public class UserRegistryForm {
         this.endDate = startDate.plusDays(endTime);
     }
 
+    public UserRegistryForm(String username, String ISBN, LocalDate startDate, LocalDate endDate) {
+        this(username, ISBN);
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
     /**
      * @return Gets the username of the user who is referenced in the form.
      */
@@ -8,17 +8,19 @@ public abstract class Person {
 
     private String firstName;
     private String lastName;
+    private final String fullName;
 
     public Person(String firstName, String lastName) {
         this.firstName = firstName;
         this.lastName = lastName;
+        this.fullName = firstName + " " + lastName;
     }
 
     /**
-     * @return String concatenation of the first and last name separated by single empty space.
+     * @return String concatenation of the first and last name separated by single empty space, created once.
      */
     public String getFullName() {
-        return firstName + " " + lastName;
+        return fullName;
     }
 
     /**
@@ -3,11 +3,14 @@ package model.user.impl;
 import enums.Gender;
 import model.common.Address;
 import model.common.History;
+import model.common.PasswordHash;
 import model.user.Person;
 
 /**
  * Contains information about a real person - Name, age, gender.
  * Also stores the users credentials for authentication and history.
+ * The password given on registration is hashed right away with a salt and never kept,
+ * so every login is checked the same way against the hash, whether the user was just registered or loaded.
  */
 public class User extends Person {
 
@@ -15,7 +18,7 @@ public class User extends Person {
     private Gender gender;
     private History history = new History();
     private String username;
-    private String password;
+    private PasswordHash passwordHash;
     private String email;
     private boolean GDPR;
     private int age;
@@ -27,11 +30,21 @@ public class User extends Person {
                 String email,
                 boolean gdpr,
                 int age) {
+        this(firstName, lastName, location, gender, username,
+                password == null ? null : PasswordHash.of(password), email, gdpr, age);
+    }
+
+    public User(String firstName, String lastName,
+                Address location, Gender gender,
+                String username, PasswordHash passwordHash,
+                String email,
+                boolean gdpr,
+                int age) {
         super(firstName, lastName);
         this.location = location;
         this.gender = gender;
         this.username = username;
-        this.password = password;
+        this.passwordHash = passwordHash;
         this.email = email;
         this.GDPR = gdpr;
         this.age = age;
@@ -45,10 +58,18 @@ public class User extends Person {
     }
 
     /**
-     * @return Get the password of the user.
+     * @param password Password provided by the user.
+     * @return true if it is the password of the user, otherwise - false.
+     */
+    public boolean hasPassword(String password) {
+        return passwordHash != null && passwordHash.matches(password);
+    }
+
+    /**
+     * @return Get the salted hash of the password of the user or null if the user has no password.
      */
-    public String getPassword() {
-        return password;
+    public PasswordHash getPasswordHash() {
+        return passwordHash;
     }
 
     /**
@@ -57,4 +78,39 @@ public class User extends Person {
     public History getHistory() {
         return history;
     }
+
+    /**
+     * @return Get the address of the user.
+     */
+    public Address getLocation() {
+        return location;
+    }
+
+    /**
+     * @return Get the gender of the user.
+     */
+    public Gender getGender() {
+        return gender;
+    }
+
+    /**
+     * @return Get the email of the user.
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * @return true if the user agrees with the GDPR rules, otherwise - false.
+     */
+    public boolean isGDPR() {
+        return GDPR;
+    }
+
+    /**
+     * @return Get the age of the user.
+     */
+    public int getAge() {
+        return age;
+    }
 }
@@ -1,37 +1,195 @@
 package repository;
 
+import enums.BookGenre;
+import enums.LibraryOperation;
 import exception.CustomException;
+import model.book.AuthorRegistry;
 import model.book.Book;
+import model.book.TagRegistry;
 import model.book.impl.PaperBook;
+import model.common.BookQuery;
+import model.common.History;
+import model.common.HistoryBlockStore;
+import model.common.Page;
 import model.common.UserRegistryForm;
+import model.user.impl.Author;
+import model.user.impl.User;
+import repository.concurrent.LockStripes;
+import repository.index.BookCatalog;
+import repository.index.BookInventory;
+import repository.index.CandidateSet;
+import repository.index.NGramIndex;
+import repository.index.PostingList;
+import repository.index.TagIndex;
+import repository.index.TitleOrderIndex;
+import repository.loan.BanRegistry;
+import repository.loan.BookWaitlist;
+import repository.loan.DueDateScheduler;
+import repository.loan.FormRegistry;
+import repository.metrics.LibraryMetrics;
+import repository.storage.FormType;
+import repository.storage.StorageEngine;
+import repository.wal.LoanJournal;
+import repository.wal.LoanRecordVisitor;
+import validation.ISBNValidator;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
 
 /**
  * Has the role of containing all the books in the library and execute simple operations like:
  * - adding book;
  * - getting all books
  * - etc.
+ * <p>
+ * The repository is safe for use by many threads. Everything related to one book - free copies,
+ * queue, due dates of its forms - is guarded by the lock stripe of its ISBN, and the forms of one user
+ * are guarded by the lock stripe of the username. Operations take the book lock first and the user lock second.
+ * Operations on books in different stripes run in parallel.
+ * <p>
+ * Every added book, change of free copies and change of a borrow or offer form is written through
+ * the storage engine, and a repository created over a storage engine starts with the state stored in it.
  */
 public class BookRepository {
 
     public static final int INITIAL_BORROW_TIME = 14;
     public static final int DAYS_TO_BORROW_BOOK = 3;
     public static final int AVERAGE_DAYS_BOOK_IS_RENTED_PER_USER = 21;
+    public static final int DEFAULT_LOCK_STRIPES = 64;
     private final UserRepository users;
-    private Map<String, Book> books = new LinkedHashMap<>();
-    private Map<String, List<UserRegistryForm>> borrowedBooks = new HashMap<>();
-    private Map<String, List<UserRegistryForm>> offeredBooks = new HashMap<>();
-    private Map<Integer, UserRegistryForm> requestedBooks = new LinkedHashMap<>();
-    private List<UserRegistryForm> bannedUsers = new ArrayList<>();
-    private LocalDate currentDate = LocalDate.now();
-    private int requestIndex = 0;
+    private final LockStripes bookLocks;
+    private final LockStripes userLocks;
+    private final ReadWriteLock catalogLock = new ReentrantReadWriteLock();
+    private final ReentrantLock dayLock = new ReentrantLock();
+    private final StorageEngine storage;
+    private final LoanJournal journal;
+    private final LibraryMetrics metrics;
+    private Map<String, Book> books = new ConcurrentHashMap<>();
+    private BookCatalog booksById = new BookCatalog();
+    private final AuthorRegistry authorRegistry = new AuthorRegistry();
+    private final TagRegistry tagRegistry = new TagRegistry();
+    private final BookInventory inventory = new BookInventory();
+    private NGramIndex titleIndex = new NGramIndex();
+    private TitleOrderIndex titleOrder = new TitleOrderIndex();
+    private NGramIndex authorFirstNameIndex = new NGramIndex();
+    private NGramIndex authorLastNameIndex = new NGramIndex();
+    private NGramIndex authorFullNameIndex = new NGramIndex();
+    private TagIndex tagIndex = new TagIndex();
+    private Map<BookGenre, PostingList> booksByGenre = new EnumMap<>(BookGenre.class);
+    private final FormRegistry borrowedBooks = new FormRegistry();
+    private final FormRegistry offeredBooks = new FormRegistry();
+    private Map<String, BookWaitlist> requestedBooks = new ConcurrentHashMap<>();
+    private Set<String> booksWithReturnedCopies = ConcurrentHashMap.newKeySet();
+    private BanRegistry bannedUsers = new BanRegistry();
+    private DueDateScheduler[] borrowDueDates;
+    private DueDateScheduler[] offerDueDates;
+    private volatile LocalDate currentDate = LocalDate.now();
+    private volatile HistoryBlockStore historyBlocks = HistoryBlockStore.ON_HEAP;
+    private AtomicInteger requestedBooksCount = new AtomicInteger();
+    private AtomicLong catalogGeneration = new AtomicLong();
 
     public BookRepository(UserRepository userRepository) {
+        this(userRepository, DEFAULT_LOCK_STRIPES);
+    }
+
+    /**
+     * @param userRepository Repository with the registered users.
+     * @param lockStripes    Amount of locks shared by the books and by the users.
+     *                       A single stripe makes all operations run one after another.
+     */
+    public BookRepository(UserRepository userRepository, int lockStripes) {
+        this(userRepository, lockStripes, StorageEngine.NONE);
+    }
+
+    /**
+     * @param userRepository Repository with the registered users.
+     * @param storage        Storage engine to load the library from and to write the changes to.
+     */
+    public BookRepository(UserRepository userRepository, StorageEngine storage) {
+        this(userRepository, DEFAULT_LOCK_STRIPES, storage);
+    }
+
+    /**
+     * @param userRepository Repository with the registered users.
+     * @param lockStripes    Amount of locks shared by the books and by the users.
+     *                       A single stripe makes all operations run one after another.
+     * @param storage        Storage engine to load the library from and to write the changes to.
+     */
+    public BookRepository(UserRepository userRepository, int lockStripes, StorageEngine storage) {
+        this(userRepository, lockStripes, storage, LoanJournal.NONE);
+    }
+
+    /**
+     * @param userRepository Repository with the registered users.
+     * @param storage        Storage engine to load the library from and to write the changes to.
+     * @param journal        Journal to recover the loans from and to write every change of the loans to.
+     */
+    public BookRepository(UserRepository userRepository, StorageEngine storage, LoanJournal journal) {
+        this(userRepository, DEFAULT_LOCK_STRIPES, storage, journal);
+    }
+
+    /**
+     * Loads the books and the forms from the storage and then replays the journal over them.
+     * The records of the journal hold the state after each change, so they win over the storage.
+     * The journal keeps only the loans, so it needs a storage that keeps the books they are for.
+     *
+     * @param userRepository Repository with the registered users.
+     * @param lockStripes    Amount of locks shared by the books and by the users.
+     *                       A single stripe makes all operations run one after another.
+     * @param storage        Storage engine to load the library from and to write the changes to.
+     * @param journal        Journal to recover the loans from and to write every change of the loans to.
+     */
+    public BookRepository(UserRepository userRepository, int lockStripes, StorageEngine storage, LoanJournal journal) {
+        if (journal != LoanJournal.NONE && storage == StorageEngine.NONE) {
+            throw new CustomException("A loan journal needs a storage engine that keeps the books of the library.");
+        }
+
         users = userRepository;
+        this.storage = storage;
+        this.journal = journal;
+        metrics = userRepository.getMetrics();
+        bookLocks = new LockStripes(lockStripes);
+        userLocks = new LockStripes(lockStripes);
+        borrowDueDates = new DueDateScheduler[bookLocks.size()];
+        offerDueDates = new DueDateScheduler[bookLocks.size()];
+
+        for (int stripe = 0; stripe < bookLocks.size(); stripe++) {
+            borrowDueDates[stripe] = new DueDateScheduler();
+            offerDueDates[stripe] = new DueDateScheduler();
+        }
+
+        storage.loadBooks(this::registerBook);
+        storage.loadForms(this::restoreForm);
+        journal.replay(new JournalRecovery());
+    }
+
+    /**
+     * Puts back a borrow or offer form loaded from the storage together with its due date.
+     *
+     * @param type Whether the form is for a borrowed or for an offered book.
+     * @param form The loaded form.
+     */
+    private void restoreForm(FormType type, UserRegistryForm form) {
+        if (type == FormType.BORROW) {
+            borrowedBooks.add(form);
+            borrowDueDatesOf(form.getISBN()).schedule(form);
+        } else {
+            offeredBooks.add(form);
+            offerDueDatesOf(form.getISBN()).schedule(form);
+        }
     }
 
     /**
@@ -44,27 +202,43 @@ public class BookRepository {
      * @return Message to indicate what was the executed action.
      */
     public String borrowBook(String username, String ISBN) {
-        validateUsernameAndISBN(username, ISBN);
+        return metrics.timed(LibraryOperation.BORROW_BOOK, () -> committed(() -> {
+            ValidatedRequest request = validateUsernameAndISBN(username, ISBN);
+
+            return withBookAndUserLocked(request, () -> borrowOfferedBook(request));
+        }));
+    }
+
+    /**
+     * Turns the offer for the book into a borrow form. Called with the book and user locks held.
+     *
+     * @param request The validated user and book.
+     * @return Message to indicate what was the executed action.
+     */
+    private String borrowOfferedBook(ValidatedRequest request) {
+        String username = request.getUsername();
+        String ISBN = request.getISBN();
 
-        if (!offeredBooks.containsKey(username)) {
+        if (!offeredBooks.hasForms(username)) {
             return "User " + username + " has no offered books yet.";
         }
 
-        UserRegistryForm offerForm = offeredBooks.get(username).stream()
-                .filter(form -> form.getISBN().equals(ISBN))
-                .findFirst()
-                .orElse(null);
+        UserRegistryForm offerForm = offeredBooks.remove(username, ISBN);
 
         if (offerForm == null) {
             return "There is no book with ISBN " + ISBN + " offered to user " + username + ".";
         }
 
+        offerDueDatesOf(ISBN).cancel(offerForm);
+        persistForms(FormType.OFFER, username, ISBN);
+
         UserRegistryForm borrowForm = new UserRegistryForm(username, ISBN, currentDate, INITIAL_BORROW_TIME);
 
-        borrowedBooks.putIfAbsent(username, new ArrayList<>());
-        borrowedBooks.get(username).add(borrowForm);
+        borrowedBooks.add(borrowForm);
+        borrowDueDatesOf(ISBN).schedule(borrowForm);
+        persistForms(FormType.BORROW, username, ISBN);
 
-        addBookToUserHistory(username, ISBN);
+        addBookToUserHistory(request);
 
         return "User " + username + " have successfully borrowed book with ISBN number: " + ISBN;
 
@@ -80,39 +254,45 @@ public class BookRepository {
      * @return Message corresponding to the applied action.
      */
     public String requestBook(String username, String ISBN) {
-        validateUsernameAndISBN(username, ISBN);
+        return metrics.timed(LibraryOperation.REQUEST_BOOK, () -> committed(() -> {
+            ValidatedRequest request = validateUsernameAndISBN(username, ISBN);
 
-        if (bannedUsers.stream()
-                .map(UserRegistryForm::getUsername)
-                .collect(Collectors.toList())
-                .contains(username)) {
-            return "User " + username + " is banned form the library for delayed books!";
-        }
-
-        PaperBook currentBook = ((PaperBook) books.get(ISBN));
+            if (bannedUsers.isBanned(username)) {
+                return "User " + username + " is banned form the library for delayed books!";
+            }
 
-        int availableCopies = freeCopies(currentBook);
+            PaperBook currentBook = ((PaperBook) request.getBook());
 
-        if (availableCopies > 0) {
-            removeOneCopyFromLibrary(currentBook);
+            int placeInQueue = withBookAndUserLocked(request, () -> {
+                if (removeOneCopyFromLibrary(currentBook)) {
+                    offerBook(username, request.getISBN());
 
-            offeredBooks.putIfAbsent(username, new ArrayList<>());
-            offeredBooks.get(username).add(new UserRegistryForm(username, ISBN, currentDate, DAYS_TO_BORROW_BOOK));
+                    return 0;
+                }
 
-            return "You are first in line and there is available book in stock. " +
-                    "You have 3 days to borrow the book.";
+                BookWaitlist waitlist = requestedBooks.computeIfAbsent(request.getISBN(), isbn -> new BookWaitlist());
 
-        }
+                int waitingBefore = waitlist.size();
+                int place = waitlist.enqueue(username) + 1;
 
-        requestedBooks.put(++requestIndex, new UserRegistryForm(username, ISBN));
+                if (waitlist.size() > waitingBefore) {
+                    requestedBooksCount.incrementAndGet();
+                    journal.logWaiting(request.getISBN(), username);
+                }
 
-        int placeInQueue = getPlaceInQueue(username, ISBN) + 1;
+                return place;
+            });
 
-        LocalDate estimatedDateAvailable = LocalDate.now().plusDays(placeInQueue * AVERAGE_DAYS_BOOK_IS_RENTED_PER_USER);
+            if (placeInQueue == 0) {
+                return "You are first in line and there is available book in stock. " +
+                        "You have 3 days to borrow the book.";
+            }
 
-        return "You are " + placeInQueue + " in line for that book.\n" +
-                "Estimated date the book will become available: " + estimatedDateAvailable.toString();
+            LocalDate estimatedDateAvailable = LocalDate.now().plusDays(placeInQueue * AVERAGE_DAYS_BOOK_IS_RENTED_PER_USER);
 
+            return "You are " + placeInQueue + " in line for that book.\n" +
+                    "Estimated date the book will become available: " + estimatedDateAvailable.toString();
+        }));
     }
 
     /**
@@ -124,16 +304,28 @@ public class BookRepository {
      * @return Message corresponding to the action taken or the result of the checks.
      */
     public String postponeDueDateWithSevenDays(String username, String ISBN) {
-        validateUsernameAndISBN(username, ISBN);
+        return metrics.timed(LibraryOperation.POSTPONE_DUE_DATE, () -> committed(() -> {
+            ValidatedRequest request = validateUsernameAndISBN(username, ISBN);
+
+            return withBookAndUserLocked(request, () -> postponeBorrowedBook(request));
+        }));
+    }
+
+    /**
+     * Extends the due date of the borrowed book if allowed. Called with the book and user locks held.
+     *
+     * @param request The validated user and book.
+     * @return Message corresponding to the action taken or the result of the checks.
+     */
+    private String postponeBorrowedBook(ValidatedRequest request) {
+        String username = request.getUsername();
+        String ISBN = request.getISBN();
 
-        if (!borrowedBooks.containsKey(username)) {
+        if (!borrowedBooks.hasForms(username)) {
             return "User " + username + " has no borrowed books.";
         }
 
-        UserRegistryForm userRegistryForm = borrowedBooks.get(username).stream()
-                .filter(borrowForm -> borrowForm.getISBN().equals(ISBN))
-                .findFirst()
-                .orElse(null);
+        UserRegistryForm userRegistryForm = borrowedBooks.get(username, ISBN);
 
         if (userRegistryForm == null) {
             return "You have no book to return with ISBN " + ISBN;
@@ -147,7 +339,8 @@ public class BookRepository {
                     "The date will not be postponed.";
         }
 
-        userRegistryForm.extendDueDate();
+        borrowDueDatesOf(ISBN).extendDueDate(userRegistryForm);
+        persistForms(FormType.BORROW, username, ISBN);
 
         return "Due date postponed to: " + userRegistryForm.getEndDate().toString();
 
@@ -164,33 +357,35 @@ public class BookRepository {
      * @return Message for the action taken. Book has been removed or not.
      */
     public String returnBookToLibrary(String username, String ISBN) {
-        validateUsernameAndISBN(username, ISBN);
+        return metrics.timed(LibraryOperation.RETURN_BOOK, () -> committed(() -> {
+            ValidatedRequest request = validateUsernameAndISBN(username, ISBN);
 
+            String result = withBookAndUserLocked(request, () -> {
+                UserRegistryForm userBorrowForm = borrowedBooks.remove(username, request.getISBN());
 
-        UserRegistryForm userBorrowForm = borrowedBooks.containsKey(username) ?
-                borrowedBooks.get(username).stream()
-                        .filter(borrowForm -> borrowForm.getISBN().equals(ISBN))
-                        .findFirst().orElse(null) : null;
-
-        if (userBorrowForm == null) {
-            return "The provided user doesn't exist or has not borrowed any book with that ISBN.";
-        }
+                if (userBorrowForm == null) {
+                    return null;
+                }
 
-        addOneCopyToLibrary(((PaperBook) books.get(userBorrowForm.getISBN())));
+                borrowDueDatesOf(request.getISBN()).cancel(userBorrowForm);
+                persistForms(FormType.BORROW, username, request.getISBN());
 
-        borrowedBooks.get(username).remove(userBorrowForm);
+                addOneCopyToLibrary(((PaperBook) request.getBook()));
 
-        if (borrowedBooks.get(username).size() == 0) {
-            borrowedBooks.remove(username);
-        }
+                if (removeBanForThisPenalty(request)) {
+                    return "Book successfully returned to the library." +
+                            "\nYou had penalty for this book. Penalty removed.";
+                }
 
-        String result = "Book successfully returned to the library.";
+                return "Book successfully returned to the library.";
+            });
 
-        if (removeBanForThisPenalty(username, ISBN)) {
-            result += "\nYou had penalty for this book. Penalty removed.";
-        }
+            if (result == null) {
+                return "The provided user doesn't exist or has not borrowed any book with that ISBN.";
+            }
 
-        return result;
+            return result;
+        }));
     }
 
     /**
@@ -202,7 +397,7 @@ public class BookRepository {
      * @return The due date of the form or null if not found.
      */
     public LocalDate getDueDate(String username, String ISBN, Map<String, List<UserRegistryForm>> formCollection) {
-        validateUsernameAndISBN(username, ISBN);
+        ValidatedRequest request = validateUsernameAndISBN(username, ISBN);
 
         validateFormCollection(formCollection, "Provided form collection is missing or empty.");
 
@@ -212,7 +407,7 @@ public class BookRepository {
 
         UserRegistryForm userBorrowForm =
                 formCollection.get(username).stream()
-                        .filter(borrowForm -> borrowForm.getISBN().equals(ISBN))
+                        .filter(borrowForm -> borrowForm.getISBN().equals(request.getISBN()))
                         .findFirst()
                         .orElse(null);
 
@@ -223,6 +418,45 @@ public class BookRepository {
         return userBorrowForm.getEndDate();
     }
 
+    /**
+     * Finds the borrow form of the user for the book by username and ISBN in constant time.
+     *
+     * @param username Unique user identifier.
+     * @param ISBN     Unique book identifier.
+     * @return The due date of the borrowed book.
+     */
+    public LocalDate getBorrowDueDate(String username, String ISBN) {
+        ValidatedRequest request = validateUsernameAndISBN(username, ISBN);
+
+        LocalDate dueDate = withUserLocked(username, () -> {
+            UserRegistryForm borrowForm = borrowedBooks.get(username, request.getISBN());
+
+            return borrowForm == null ? null : borrowForm.getEndDate();
+        });
+
+        if (dueDate == null) {
+            throw new CustomException("No such book for this user.");
+        }
+
+        return dueDate;
+    }
+
+    /**
+     * @param username Unique user identifier.
+     * @return The borrow forms of the user in the order the books were borrowed.
+     */
+    public List<UserRegistryForm> getBorrowFormsOf(String username) {
+        return withUserLocked(username, () -> borrowedBooks.formsOf(username));
+    }
+
+    /**
+     * @param username Unique user identifier.
+     * @return The offer forms of the user in the order the books were offered.
+     */
+    public List<UserRegistryForm> getOfferFormsOf(String username) {
+        return withUserLocked(username, () -> offeredBooks.formsOf(username));
+    }
+
     /**
      * Checks the form collection if null or empty and if any are true throws exception
      * with the provided message.
@@ -238,20 +472,27 @@ public class BookRepository {
     }
 
     /**
-     * Validates the provided ISBN for the new book.
+     * Validates the provided ISBN and looks up the book with a single hash lookup.
      *
      * @param bookISBN String representation of the ISBN - should be in format "####-#".
+     * @return The book with that ISBN.
      */
-    private void validateISBN(String bookISBN) {
+    private Book validateISBN(String bookISBN) {
         validateString(bookISBN, "ISBN is missing or not valid.");
 
-        if (!Pattern.matches("^([0-9]){4}-[0-9]", bookISBN.trim())) {
+        String trimmedISBN = bookISBN.trim();
+
+        if (!ISBNValidator.isValid(trimmedISBN)) {
             throw new CustomException("Provided ISBN does not match pattern ####-# (digits only)");
         }
 
-        if (books.values().stream().noneMatch(book -> book.getISBN().equals(bookISBN.trim()))) {
+        Book book = books.get(trimmedISBN);
+
+        if (book == null) {
             throw new CustomException("No paper book with this ISBN exist in the library.");
         }
+
+        return book;
     }
 
     /**
@@ -259,13 +500,18 @@ public class BookRepository {
      * and if any are true throws exception, otherwise continues.
      *
      * @param username Unique user identifier.
+     * @return The user with that username.
      */
-    private void validateUsername(String username) {
+    private User validateUsername(String username) {
         validateString(username, "Provided string for username is not valid.");
 
-        if (username.length() < 2 || users.getUser(username) == null) {
+        User user = username.length() < 2 ? null : users.getUser(username);
+
+        if (user == null) {
             throw new CustomException("Provided username is less than 3 symbols or user don't exists.");
         }
+
+        return user;
     }
 
     /**
@@ -284,22 +530,581 @@ public class BookRepository {
     /**
      * Receive an object of type Book and add it to the library
      * if the object is not null.
+     * The book is stored before it is put in the catalog, so a book the storage rejects is not added.
      *
      * @param book Object of type book.
      */
     public void addBookToLibrary(Book book) {
-        if (book == null) {
-            throw new CustomException("Book can not be null. Library takes only books.");
+        metrics.timedRun(LibraryOperation.ADD_BOOKS, () -> {
+            if (book == null) {
+                throw new CustomException("Book can not be null. Library takes only books.");
+            }
+
+            catalogLock.writeLock().lock();
+
+            try {
+                if (!books.containsKey(book.getISBN())) {
+                    validateNotInOtherLibrary(book);
+                    storage.saveBook(book);
+                    registerBook(book);
+                }
+            } finally {
+                catalogLock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Adds a batch of books to the library while taking the lock of the catalog once.
+     * Books with an ISBN that is already in the library are not added and are returned to the caller.
+     * Each book is stored before it is put in the catalog, so a book the storage rejects stops the batch
+     * with the books before it added and none of the books after it.
+     *
+     * @param newBooks Books to be added, none of them null.
+     * @return The books that were not added because their ISBN is already in the library, in the order given.
+     */
+    public List<Book> addBooksToLibrary(Collection<? extends Book> newBooks) {
+        return metrics.timed(LibraryOperation.ADD_BOOKS, () -> {
+            List<Book> duplicateBooks = new ArrayList<>();
+
+            catalogLock.writeLock().lock();
+
+            try {
+                for (Book book : newBooks) {
+                    if (books.containsKey(book.getISBN())) {
+                        duplicateBooks.add(book);
+                    } else {
+                        validateNotInOtherLibrary(book);
+                        storage.saveBook(book);
+                        registerBook(book);
+                    }
+                }
+            } finally {
+                catalogLock.writeLock().unlock();
+            }
+
+            return duplicateBooks;
+        });
+    }
+
+    /**
+     * A paper book becomes a view of the inventory of the library it is added to,
+     * so it can't be added to a second library.
+     *
+     * @param book Object of type book.
+     */
+    private void validateNotInOtherLibrary(Book book) {
+        if (book instanceof PaperBook && ((PaperBook) book).isAttached()) {
+            throw new CustomException("Paper book with ISBN " + book.getISBN() + " is already in a library.");
+        }
+    }
+
+    /**
+     * Puts the book in the catalog and in the title index if its ISBN is not taken.
+     * The authors and the tags of the book are replaced with the instances shared by all books of the library
+     * and a paper book becomes a view of its copy counts in the inventory.
+     * The book is found by ISBN only once its counts are in the inventory, so no copy is taken in between.
+     * Called with the write lock of the catalog held or while the repository is created.
+     *
+     * @param book Object of type book.
+     * @return true if the book was added, otherwise - false.
+     */
+    private boolean registerBook(Book book) {
+        if (books.containsKey(book.getISBN())) {
+            return false;
+        }
+
+        authorRegistry.share(book);
+        tagRegistry.share(book);
+        inventory.add(booksById.size(), book);
+
+        int bookId = booksById.add(book);
+        books.put(book.getISBN(), book);
+        titleIndex.add(bookId, book.getTitle());
+        titleOrder.add(bookId, book.getTitle(), book.getISBN());
+        catalogGeneration.incrementAndGet();
+        tagIndex.add(bookId, book.getTagMask());
+
+        if (book.getAuthors() != null) {
+            for (Author author : book.getAuthors()) {
+                if (author != null) {
+                    authorFirstNameIndex.add(bookId, author.getFirstName());
+                    authorLastNameIndex.add(bookId, author.getLastName());
+                    authorFullNameIndex.add(bookId, author.getFullName());
+                }
+            }
+        }
+
+        if (book.getGenre() != null) {
+            booksByGenre.computeIfAbsent(book.getGenre(), genre -> new PostingList()).add(bookId);
+        }
+
+        return true;
+    }
+
+    /**
+     * Uses the title index to find the books which titles contain the given string.
+     *
+     * @param titleFragment A string that is expected to be contained in the title of some books.
+     * @return List of the matching books in the order they were added to the library.
+     */
+    public List<Book> findBooksByTitleContaining(String titleFragment) {
+        return metrics.timed(LibraryOperation.FIND_BOOKS_BY_TITLE, () -> {
+            List<Book> foundBooks = new ArrayList<>();
+
+            catalogLock.readLock().lock();
+
+            try {
+                titleIndex.forEachCandidate(titleFragment, bookId -> {
+                    Book book = booksById.get(bookId);
+
+                    if (book.getTitle().contains(titleFragment)) {
+                        foundBooks.add(book);
+                    }
+                });
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+
+            return foundBooks;
+        });
+    }
+
+    /**
+     * Uses the title index to find the books which titles start with the given string.
+     *
+     * @param titlePrefix A string that is expected to be the beginning of the title of some books.
+     * @return List of the matching books in the order they were added to the library.
+     */
+    public List<Book> findBooksByTitleStartingWith(String titlePrefix) {
+        return metrics.timed(LibraryOperation.FIND_BOOKS_BY_TITLE, () -> {
+            List<Book> foundBooks = new ArrayList<>();
+
+            catalogLock.readLock().lock();
+
+            try {
+                titleIndex.forEachCandidate(titlePrefix, bookId -> {
+                    Book book = booksById.get(bookId);
+
+                    if (book.getTitle().startsWith(titlePrefix)) {
+                        foundBooks.add(book);
+                    }
+                });
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+
+            return foundBooks;
+        });
+    }
+
+    /**
+     * Finds the books matching all criteria of the query.
+     * <p>
+     * Each criterion with an index gives a set of candidate ids together with its size.
+     * The smallest set is walked and each of its ids is checked against the other sets,
+     * so the books themselves are only read for ids that passed every index.
+     * Those books are then verified for the exact title and author matches and for availability.
+     * Without indexed criteria the whole catalog is walked.
+     *
+     * @param query Criteria of the search.
+     * @return List of the matching books in the order they were added to the library.
+     */
+    public List<Book> findBooks(BookQuery query) {
+        return metrics.timed(LibraryOperation.FIND_BOOKS_BY_QUERY, () -> {
+            List<Book> foundBooks = new ArrayList<>();
+
+            catalogLock.readLock().lock();
+
+            try {
+                forEachMatchingBook(query, 0, foundBooks::add);
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+
+            return foundBooks;
+        });
+    }
+
+    /**
+     * Finds one page of the books matching all criteria of the query, planned as {@link #findBooks(BookQuery)}.
+     * The walk over the candidates starts right after the last book of the previous page
+     * and stops once the page is full. A page costs O(candidates scanned) rather than O(log n + page size):
+     * every candidate id between the two pages is checked, and a title or author candidate is also verified
+     * against the book, so a rare match may scan most of the catalog for a single page.
+     *
+     * @param query    Criteria of the search.
+     * @param cursor   Cursor from the previous page of the same query or null for the first page.
+     * @param pageSize Maximal amount of books on the page.
+     * @return Page of the matching books in the order they were added to the library.
+     */
+    public Page<Book> findBooks(BookQuery query, String cursor, int pageSize) {
+        return metrics.timed(LibraryOperation.FIND_BOOKS_BY_QUERY, () -> {
+            validatePageSize(pageSize);
+
+            int firstId = cursor == null ? 0 : PageCursor.bookIdOf(query, cursor) + 1;
+            List<Book> foundBooks = new ArrayList<>(pageSize);
+            int[] lastBookId = {-1};
+            boolean[] hasNextPage = {false};
+
+            catalogLock.readLock().lock();
+
+            try {
+                forEachMatchingBookId(query, firstId, bookId -> {
+                    if (foundBooks.size() == pageSize) {
+                        hasNextPage[0] = true;
+                        return false;
+                    }
+
+                    foundBooks.add(booksById.get(bookId));
+                    lastBookId[0] = bookId;
+
+                    return true;
+                });
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+
+            return new Page<>(foundBooks, hasNextPage[0] ? PageCursor.ofBookId(query, lastBookId[0]) : null);
+        });
+    }
+
+    /**
+     * Reads one page of the catalog ordered by title and then by ISBN from the ordered title index.
+     * A page costs O(log n + page size), as it starts from a seek in the index.
+     *
+     * @param cursor   Cursor of the page from the previous page or null for the first page.
+     * @param pageSize Maximal amount of books on the page.
+     * @return Page of the books in order of title.
+     */
+    public Page<Book> getBooksOrderedByTitle(String cursor, int pageSize) {
+        return metrics.timed(LibraryOperation.BROWSE_BOOKS_BY_TITLE, () -> {
+            validatePageSize(pageSize);
+
+            String[] position = cursor == null ? new String[]{null, null} : PageCursor.titleOf(cursor);
+            List<Book> pageBooks = new ArrayList<>(pageSize);
+            boolean[] hasNextPage = {false};
+
+            catalogLock.readLock().lock();
+
+            try {
+                titleOrder.forEachAfter(position[1], position[0], bookId -> {
+                    if (pageBooks.size() == pageSize) {
+                        hasNextPage[0] = true;
+                        return false;
+                    }
+
+                    pageBooks.add(booksById.get(bookId));
+
+                    return true;
+                });
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+
+            Book lastBook = pageBooks.isEmpty() ? null : pageBooks.get(pageBooks.size() - 1);
+
+            return new Page<>(pageBooks, hasNextPage[0] ? PageCursor.ofTitle(lastBook.getTitle(), lastBook.getISBN()) : null);
+        });
+    }
+
+    /**
+     * @param pageSize Maximal amount of results on a page - must be positive.
+     */
+    private void validatePageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new CustomException("Page size must be at least 1.");
+        }
+    }
+
+    /**
+     * Passes the books matching the query to the consumer in the order they were added to the library.
+     * Called with the read lock of the catalog held.
+     *
+     * @param query    Criteria of the search.
+     * @param firstId  The smallest book id to start from.
+     * @param consumer Action executed for each matching book.
+     */
+    private void forEachMatchingBook(BookQuery query, int firstId, Consumer<Book> consumer) {
+        forEachMatchingBookId(query, firstId, bookId -> {
+            consumer.accept(booksById.get(bookId));
+            return true;
+        });
+    }
+
+    /**
+     * Walks the smallest candidate set of the query from the first id and passes to the consumer
+     * the ids of the books that are in all other candidate sets and match the query,
+     * until the consumer returns false. Called with the read lock of the catalog held.
+     *
+     * @param query    Criteria of the search.
+     * @param firstId  The smallest book id to start from.
+     * @param consumer Action executed for each matching id - returns false to stop.
+     */
+    private void forEachMatchingBookId(BookQuery query, int firstId, IntPredicate consumer) {
+        List<CandidateSet> candidateSets = candidateSetsOf(query);
+
+        candidateSets.sort(Comparator.comparingInt(CandidateSet::size));
+
+        IntPredicate verifyCandidate = bookId -> {
+            for (int i = 1; i < candidateSets.size(); i++) {
+                if (!candidateSets.get(i).contains(bookId)) {
+                    return true;
+                }
+            }
+
+            return !isMatching(bookId, query) || consumer.test(bookId);
+        };
+
+        if (!candidateSets.isEmpty()) {
+            candidateSets.get(0).forEachFrom(firstId, verifyCandidate);
+            return;
+        }
+
+        for (int bookId = firstId; bookId < booksById.size(); bookId++) {
+            if (!verifyCandidate.test(bookId)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads from the indexes the candidates for each criterion of the query that has an index.
+     * Called with the read lock of the catalog held.
+     *
+     * @param query Criteria of the search.
+     * @return One set of candidate ids per indexed criterion.
+     */
+    private List<CandidateSet> candidateSetsOf(BookQuery query) {
+        List<CandidateSet> candidateSets = new ArrayList<>(4);
+
+        if (query.getTitleContaining() != null) {
+            candidateSets.add(titleIndex.candidatesOf(query.getTitleContaining()));
+        }
+
+        if (query.getAuthorNameContaining() != null) {
+            candidateSets.add(authorFullNameIndex.candidatesOf(query.getAuthorNameContaining()));
+        }
+
+        if (query.getGenre() != null) {
+            PostingList genreBooks = booksByGenre.get(query.getGenre());
+
+            candidateSets.add(genreBooks == null ? CandidateSet.EMPTY : genreBooks);
+        }
+
+        if (query.getTagMask() != 0) {
+            candidateSets.add(tagIndex.withAllTags(query.getTagMask()));
+        }
+
+        return candidateSets;
+    }
+
+    /**
+     * Verifies the criteria which the indexes only narrow down - the exact title and author matches
+     * and the availability of the book.
+     *
+     * @param bookId Dense id of the book that passed the indexes.
+     * @param query  Criteria of the search.
+     * @return true if the book matches the query, otherwise - false.
+     */
+    private boolean isMatching(int bookId, BookQuery query) {
+        if (query.isOnlyAvailable() && inventory.isPaperBook(bookId) && !inventory.hasFreeCopy(bookId)) {
+            return false;
+        }
+
+        Book book = booksById.get(bookId);
+
+        if (query.getTitleContaining() != null && !book.getTitle().contains(query.getTitleContaining())) {
+            return false;
+        }
+
+        if (query.getAuthorNameContaining() != null && book.getAuthors().stream()
+                .noneMatch(author -> author != null
+                        && author.getFullName().contains(query.getAuthorNameContaining()))) {
+            return false;
         }
 
-        books.putIfAbsent(book.getISBN(), book);
+        return true;
+    }
+
+    /**
+     * Uses the author index to find the books with an author which first name contains the given string.
+     *
+     * @param fragment A string that is expected to be contained in the first name of some authors.
+     * @return List of the matching books in the order they were added to the library.
+     */
+    public List<Book> findBooksByAuthorsFirstName(String fragment) {
+        return findBooksByAuthor(authorFirstNameIndex, Author::getFirstName, fragment);
+    }
+
+    /**
+     * Uses the author index to find the books with an author which last name contains the given string.
+     *
+     * @param fragment A string that is expected to be contained in the last name of some authors.
+     * @return List of the matching books in the order they were added to the library.
+     */
+    public List<Book> findBooksByAuthorsLastName(String fragment) {
+        return findBooksByAuthor(authorLastNameIndex, Author::getLastName, fragment);
+    }
+
+    /**
+     * Uses the author index to find the books with an author which full name contains the given string.
+     *
+     * @param fragment A string that is expected to be contained in the full name (firstName + " " + lastName)
+     *                 of some authors.
+     * @return List of the matching books in the order they were added to the library.
+     */
+    public List<Book> findBooksByAuthorsFullName(String fragment) {
+        return findBooksByAuthor(authorFullNameIndex, Author::getFullName, fragment);
+    }
+
+    /**
+     * Takes the candidates from the index and keeps the books with an author which name contains the fragment.
+     *
+     * @param index    Index of the searched part of the author names.
+     * @param namePart The searched part of the name of an author.
+     * @param fragment The searched string.
+     * @return List of the matching books in the order they were added to the library.
+     */
+    private List<Book> findBooksByAuthor(NGramIndex index, Function<Author, String> namePart, String fragment) {
+        return metrics.timed(LibraryOperation.FIND_BOOKS_BY_AUTHOR, () -> {
+            List<Book> foundBooks = new ArrayList<>();
+
+            catalogLock.readLock().lock();
+
+            try {
+                index.forEachCandidate(fragment, bookId -> {
+                    Book book = booksById.get(bookId);
+
+                    for (Author author : book.getAuthors()) {
+                        String name = author == null ? null : namePart.apply(author);
+
+                        if (name != null && name.contains(fragment)) {
+                            foundBooks.add(book);
+                            return;
+                        }
+                    }
+                });
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+
+            return foundBooks;
+        });
     }
 
     /**
-     * @return Extracts all books form the library in a new ArrayList.
+     * Reads the books of the genre from the partition of the catalog by genre.
+     *
+     * @param genre Genre of the books.
+     * @return List of the books in the genre in the order they were added to the library.
+     */
+    public List<Book> findBooksByGenre(BookGenre genre) {
+        return metrics.timed(LibraryOperation.FIND_BOOKS_BY_GENRE, () -> {
+            catalogLock.readLock().lock();
+
+            try {
+                PostingList genreBooks = booksByGenre.get(genre);
+
+                if (genreBooks == null) {
+                    return new ArrayList<>();
+                }
+
+                List<Book> foundBooks = new ArrayList<>(genreBooks.size());
+
+                genreBooks.forEach(bookId -> foundBooks.add(booksById.get(bookId)));
+
+                return foundBooks;
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Scans the free copies column of the inventory instead of visiting the books one by one.
+     * The copies change without the catalog lock, so each count is read at some moment during the scan.
+     *
+     * @return List of the paper books with at least one free copy in the order they were added to the library.
+     */
+    public List<Book> findBooksWithFreeCopies() {
+        return metrics.timed(LibraryOperation.FIND_BOOKS_WITH_FREE_COPIES, () -> {
+            List<Book> foundBooks = new ArrayList<>();
+
+            inventory.forEachWithFreeCopies(bookId -> foundBooks.add(booksById.get(bookId)));
+
+            return foundBooks;
+        });
+    }
+
+    /**
+     * Uses the tag index to find the books that have at least one of the tags.
+     *
+     * @param tagMask Tags to search for - bit n is set for the tag with ordinal n.
+     * @return List of the matching books in the order they were added to the library.
+     */
+    public List<Book> findBooksWithAnyTag(long tagMask) {
+        return metrics.timed(LibraryOperation.FIND_BOOKS_BY_TAGS, () -> {
+            List<Book> foundBooks = new ArrayList<>();
+
+            catalogLock.readLock().lock();
+
+            try {
+                tagIndex.forEachWithAnyTag(tagMask, bookId -> foundBooks.add(booksById.get(bookId)));
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+
+            return foundBooks;
+        });
+    }
+
+    /**
+     * Uses the tag index to find the books that have all of the tags.
+     *
+     * @param tagMask Tags to search for - bit n is set for the tag with ordinal n.
+     * @return List of the matching books in the order they were added to the library.
+     */
+    public List<Book> findBooksWithAllTags(long tagMask) {
+        return metrics.timed(LibraryOperation.FIND_BOOKS_BY_TAGS, () -> {
+            List<Book> foundBooks = new ArrayList<>();
+
+            catalogLock.readLock().lock();
+
+            try {
+                tagIndex.forEachWithAllTags(tagMask, bookId -> foundBooks.add(booksById.get(bookId)));
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+
+            return foundBooks;
+        });
+    }
+
+    /**
+     * @return Number that grows every time a book is added, so results computed
+     * for an older number may be missing books.
+     */
+    public long getCatalogGeneration() {
+        return catalogGeneration.get();
+    }
+
+    /**
+     * @param ISBN Unique book identifier without surrounding white spaces.
+     * @return true if a book with that ISBN is already in the library, otherwise - false.
+     */
+    public boolean containsBook(String ISBN) {
+        return books.containsKey(ISBN);
+    }
+
+    /**
+     * Takes a snapshot of the catalog without copying it or taking the catalog lock.
+     * Books added later are not visible in the snapshot.
+     *
+     * @return Read-only list of all books in the library in the order they were added.
      */
     public List<Book> getAllBooksInLibrary() {
-        return new ArrayList<>(books.values());
+        return booksById.snapshot();
     }
 
     /**
@@ -317,62 +1122,99 @@ public class BookRepository {
      *
      * @param username Unique identifier of the user.
      * @param ISBN     Unique identifier of the book.
-     * @return Place in queue for the user - int.
+     * @return Zero based place in queue for the user or -1 if the user is not waiting for that book.
      */
-    private int getPlaceInQueue(String username, String ISBN) {
-        validateUsernameAndISBN(username, ISBN);
+    public int getPlaceInQueue(String username, String ISBN) {
+        ValidatedRequest request = validateUsernameAndISBN(username, ISBN);
+
+        ReentrantLock bookLock = bookLocks.lockFor(request.getISBN());
 
-        List<UserRegistryForm> list = requestedBooks.values().stream()
-                .filter(form -> form.getISBN().equals(ISBN))
-                .collect(Collectors.toList());
+        bookLock.lock();
 
-        UserRegistryForm userRegistryForm = list.stream()
-                .filter(f -> f.getUsername().equals(username))
-                .findFirst()
-                .orElse(null);
+        try {
+            BookWaitlist waitlist = requestedBooks.get(request.getISBN());
 
-        return list.indexOf(userRegistryForm);
+            return waitlist == null ? -1 : waitlist.positionOf(username);
+        } finally {
+            bookLock.unlock();
+        }
     }
 
     /**
      * Calls two methods each for validating the username and the isbn of the book.
+     * Public operations call it once and pass the result to their internal steps.
      *
      * @param username Unique identifier of the user.
      * @param ISBN     Unique identifier of the book
+     * @return The found user and book.
      */
-    private void validateUsernameAndISBN(String username, String ISBN) {
-        validateUsername(username);
+    private ValidatedRequest validateUsernameAndISBN(String username, String ISBN) {
+        User user = validateUsername(username);
+
+        Book book = validateISBN(ISBN);
 
-        validateISBN(ISBN);
+        return new ValidatedRequest(user, book);
     }
 
     /**
      * Checks if the book returned has been overdue and the user has a penalty for that.
      * If the book was overdue than remove the penalty for that book only.
+     * Called with the book and user locks held, so the journal gets the lifted ban in the order of the changes.
      *
-     * @param username Unique user identifier.
-     * @param ISBN     Unique book identifier.
+     * @param request The validated user and book.
+     * @return true if the user had a penalty for the book, otherwise - false.
      */
-    private boolean removeBanForThisPenalty(String username, String ISBN) {
-        validateUsernameAndISBN(username, ISBN);
+    private boolean removeBanForThisPenalty(ValidatedRequest request) {
+        if (!bannedUsers.lift(request.getUsername(), request.getISBN())) {
+            return false;
+        }
+
+        journal.logBanLifted(request.getUsername(), request.getISBN());
 
-        return bannedUsers.removeIf(userBanForm ->
-                (
-                        userBanForm.getUsername().equalsIgnoreCase(username)
-                                && userBanForm.getISBN().equals(ISBN)
-                ));
+        return true;
     }
 
     /**
      * Adds reference to the borrowed book to the users history.
+     * Called with the lock of the user held.
      *
-     * @param username Unique user identifier.
-     * @param ISBN     Unique book identifier.
+     * @param request The validated user and book.
+     */
+    private void addBookToUserHistory(ValidatedRequest request) {
+        History history = request.getUser().getHistory();
+
+        history.moveBlocksTo(historyBlocks);
+        history.addUsedBook(booksById.idOf(request.getISBN()), currentDate, booksById);
+    }
+
+    /**
+     * Moves the full history blocks of every user to the store, for example off the heap or to a spill file.
+     * The blocks filled later are stored there as well.
+     *
+     * @param store The store to keep the full history blocks in.
      */
-    private void addBookToUserHistory(String username, String ISBN) {
-        validateUsernameAndISBN(username, ISBN);
+    public void moveHistoriesTo(HistoryBlockStore store) {
+        historyBlocks = store;
+
+        for (User user : users.getAllUsers()) {
+            withUserLocked(user.getUsername(), () -> {
+                user.getHistory().moveBlocksTo(store);
+
+                return null;
+            });
+        }
+    }
+
+    /**
+     * @param bookId The dense id the library gave the book, as kept in the histories of the users.
+     * @return The book with that id.
+     */
+    public Book getBookById(int bookId) {
+        if (bookId < 0 || bookId >= booksById.size()) {
+            throw new CustomException("No book with id " + bookId + " in the library.");
+        }
 
-        users.getUser(username).getHistory().addUsedBook(books.get(ISBN));
+        return booksById.get(bookId);
     }
 
     /**
@@ -384,87 +1226,328 @@ public class BookRepository {
      * - Offering books to users who are in line if a book is made available and if they are not in the banned list.
      */
     public void changeDay(int days) {
-        currentDate = LocalDate.now().plusDays(days);
+        metrics.timedRun(LibraryOperation.CHANGE_DAY, () -> {
+            dayLock.lock();
 
-        syncBorrowedBooks();
-        syncOfferedBooks();
-        syncRequestedBooks();
+            try {
+                currentDate = LocalDate.now().plusDays(days);
+
+                journal.logDay(currentDate);
+
+                syncBorrowedBooks();
+                syncOfferedBooks();
+                syncRequestedBooks();
+            } finally {
+                dayLock.unlock();
+            }
+
+            journal.commit();
+        });
     }
 
     /**
-     * Iterates through all borrowed books and if any is found with due date
-     * before the current date the user that has borrowed it goes in the libraries banned list
-     * and will be prevented from borrowing a book until he/she returns it.
+     * Stores a snapshot of the loans, offers, waiting queues, bans and free copies in the journal
+     * and lets it drop the records the snapshot covers, so a restart replays only the snapshot and the records after it.
+     * <p>
+     * Only one book or one user is locked at a time, so the operations of the library continue while the snapshot is taken.
      */
-    private void syncBorrowedBooks() {
+    public void snapshotLoans() {
+        journal.snapshot(this::writeLoanState);
+    }
+
+    /**
+     * Takes a snapshot of the loans periodically until the returned future is cancelled.
+     *
+     * @param executor Executor the snapshots are taken on.
+     * @param period   Time between the end of one snapshot and the start of the next one.
+     * @param unit     Unit of the period.
+     * @return The future of the periodic snapshots.
+     */
+    public ScheduledFuture<?> scheduleLoanSnapshots(ScheduledExecutorService executor, long period, TimeUnit unit) {
+        return executor.scheduleWithFixedDelay(this::snapshotLoans, period, period, unit);
+    }
+
+    /**
+     * Passes the current loan state to the snapshot. Each book is read under its lock and each user under his lock,
+     * so every record is consistent on its own and at least as new as the start of the snapshot.
+     *
+     * @param snapshot Receiver of the state.
+     */
+    private void writeLoanState(LoanRecordVisitor snapshot) {
+        snapshot.onDay(currentDate);
+
+        for (Book book : booksById.snapshot()) {
+            if (!(book instanceof PaperBook)) {
+                continue;
+            }
+
+            ReentrantLock bookLock = bookLocks.lockFor(book.getISBN());
 
-        borrowedBooks.forEach((username, borrowedForms) -> borrowedForms.forEach(form -> {
+            bookLock.lock();
 
-            if (form.getEndDate().isBefore(currentDate)) {
+            try {
+                snapshot.onCopies(book.getISBN(), ((PaperBook) book).getCurrentlyAvailable());
 
-                bannedUsers.add(new UserRegistryForm(username, form.getISBN()));
+                BookWaitlist waitlist = requestedBooks.get(book.getISBN());
+
+                if (waitlist != null) {
+                    waitlist.forEach(username -> snapshot.onWaiting(book.getISBN(), username));
+                }
+            } finally {
+                bookLock.unlock();
             }
+        }
+
+        writeForms(FormType.BORROW, borrowedBooks, snapshot);
+        writeForms(FormType.OFFER, offeredBooks, snapshot);
+
+        bannedUsers.forEach(snapshot::onBan);
+    }
+
+    /**
+     * Passes the forms of every user of the registry to the snapshot, one user at a time.
+     */
+    private void writeForms(FormType type, FormRegistry registry, LoanRecordVisitor snapshot) {
+        registry.forEachUser(username -> withUserLocked(username, () -> {
+            registry.forEachBookOf(username, (ISBN, forms) -> snapshot.onForms(type, username, ISBN, forms));
+
+            return null;
         }));
     }
 
     /**
-     * This method iterates over the offers and if the date for borrowing the book is passed
-     * and the book is still not borrowed, deletes the offer
-     * and makes the copy of the book available in the library again.
+     * Takes the borrowed books which due date has passed since the last sync
+     * and puts the users that have borrowed them in the libraries banned list.
+     * They will be prevented from borrowing a book until they return it.
+     */
+    private void syncBorrowedBooks() {
+
+        for (int stripe = 0; stripe < bookLocks.size(); stripe++) {
+            ReentrantLock bookLock = bookLocks.lockAt(stripe);
+
+            bookLock.lock();
+
+            try {
+                borrowDueDates[stripe].pollExpired(currentDate, form -> withUserLocked(form.getUsername(), () -> {
+                    if (bannedUsers.ban(form.getUsername(), form.getISBN())) {
+                        journal.logBan(form.getUsername(), form.getISBN());
+                    }
+
+                    return null;
+                }));
+            } finally {
+                bookLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Takes the offers which date for borrowing the book has passed since the last sync,
+     * deletes them and makes the copies of the books available in the library again.
      */
     private void syncOfferedBooks() {
 
-        offeredBooks.forEach((username, userOffers) -> userOffers.forEach(offeredBook -> {
+        for (int stripe = 0; stripe < bookLocks.size(); stripe++) {
+            ReentrantLock bookLock = bookLocks.lockAt(stripe);
 
-            if (offeredBook.getEndDate().isAfter(currentDate)) {
+            bookLock.lock();
 
-                addOneCopyToLibrary(((PaperBook) books.get(offeredBook.getISBN())));
+            try {
+                offerDueDates[stripe].pollExpired(currentDate, offeredBook -> withUserLocked(offeredBook.getUsername(), () -> {
 
-                offeredBooks.get(username).remove(offeredBook);
+                    offeredBooks.remove(offeredBook);
+                    persistForms(FormType.OFFER, offeredBook.getUsername(), offeredBook.getISBN());
+
+                    addOneCopyToLibrary(((PaperBook) books.get(offeredBook.getISBN())));
+
+                    return null;
+                }));
+            } finally {
+                bookLock.unlock();
             }
-        }));
+        }
     }
 
     /**
-     * Iterates through the requested books and if a copy of a requested book is
-     * present offer it to the next user in queue.
+     * Visits only the books that got copies back since the last sync and
+     * offers each free copy to the next user in the queue for that book.
      */
     private void syncRequestedBooks() {
 
-        requestedBooks.forEach((index, requestForm) -> {
+        for (String bookISBN : booksWithReturnedCopies) {
+            booksWithReturnedCopies.remove(bookISBN);
+
+            ReentrantLock bookLock = bookLocks.lockFor(bookISBN);
+
+            bookLock.lock();
+
+            try {
+                offerReturnedCopies(bookISBN);
+            } finally {
+                bookLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Offers the free copies of the book to the users waiting for it in the order they came.
+     * Called with the lock of the book held.
+     *
+     * @param bookISBN Unique book identifier.
+     */
+    private void offerReturnedCopies(String bookISBN) {
+        BookWaitlist waitlist = requestedBooks.get(bookISBN);
 
-            PaperBook requestedBook = ((PaperBook) books.get(requestForm.getISBN()));
+        if (waitlist == null) {
+            return;
+        }
 
-            String username = requestForm.getUsername();
-            String bookISBN = requestForm.getISBN();
+        PaperBook requestedBook = ((PaperBook) books.get(bookISBN));
 
-            if (freeCopies(requestedBook) > 0) {
-                UserRegistryForm offerForm = new UserRegistryForm(username, bookISBN, currentDate, DAYS_TO_BORROW_BOOK);
+        while (!waitlist.isEmpty() && removeOneCopyFromLibrary(requestedBook)) {
+            String username = waitlist.poll();
 
-                offeredBooks.putIfAbsent(username, new ArrayList<>());
-                offeredBooks.get(username).add(offerForm);
+            requestedBooksCount.decrementAndGet();
+            journal.logNotWaiting(bookISBN, username);
 
-                requestedBooks.remove(index);
-            }
-        });
+            withUserLocked(username, () -> {
+                offerBook(username, bookISBN);
+
+                return null;
+            });
+        }
+
+        if (waitlist.isEmpty()) {
+            requestedBooks.remove(bookISBN);
+        }
     }
 
     /**
-     * Makes one more copy available when a copy is returned by the user.
+     * Runs the operation and then waits until the journal records it wrote are durable,
+     * so a change is never reported before it would survive a crash.
+     * Called without locks held, so threads waiting for the disk do not block other books and users.
+     *
+     * @param operation The body of a public operation that changes the loans.
+     * @return The result of the operation.
+     */
+    private <T> T committed(Supplier<T> operation) {
+        T result = operation.get();
+
+        journal.commit();
+
+        return result;
+    }
+
+    /**
+     * Writes to the storage and to the journal all forms of the type the user has for the book after a change.
+     * Called with the book and user locks held.
+     *
+     * @param type     Whether the forms are for borrowed or for offered books.
+     * @param username Unique user identifier.
+     * @param ISBN     Unique book identifier.
+     */
+    private void persistForms(FormType type, String username, String ISBN) {
+        FormRegistry forms = type == FormType.BORROW ? borrowedBooks : offeredBooks;
+        List<UserRegistryForm> formsOfBook = forms.formsOf(username, ISBN);
+
+        storage.saveForms(type, username, ISBN, formsOfBook);
+        journal.logForms(type, username, ISBN, formsOfBook);
+    }
+
+    /**
+     * Runs the action while holding the lock of the book and then the lock of the user.
+     *
+     * @param request The validated user and book.
+     * @param action  Operation on the records of the book and the user.
+     * @return The result of the action.
+     */
+    private <T> T withBookAndUserLocked(ValidatedRequest request, Supplier<T> action) {
+        ReentrantLock bookLock = bookLocks.lockFor(request.getISBN());
+
+        bookLock.lock();
+
+        try {
+            return withUserLocked(request.getUsername(), action);
+        } finally {
+            bookLock.unlock();
+        }
+    }
+
+    /**
+     * Runs the action while holding the lock of the user.
+     *
+     * @param username Unique user identifier.
+     * @param action   Operation on the records of the user.
+     * @return The result of the action.
+     */
+    private <T> T withUserLocked(String username, Supplier<T> action) {
+        ReentrantLock userLock = userLocks.lockFor(username);
+
+        userLock.lock();
+
+        try {
+            return action.get();
+        } finally {
+            userLock.unlock();
+        }
+    }
+
+    /**
+     * @return The borrow due dates of the lock stripe of the book.
+     */
+    private DueDateScheduler borrowDueDatesOf(String ISBN) {
+        return borrowDueDates[bookLocks.stripeOf(ISBN)];
+    }
+
+    /**
+     * @return The offer due dates of the lock stripe of the book.
+     */
+    private DueDateScheduler offerDueDatesOf(String ISBN) {
+        return offerDueDates[bookLocks.stripeOf(ISBN)];
+    }
+
+    /**
+     * Creates an offer for the user to borrow the book and schedules its expiry.
+     * The copy of the book must already be taken from the library.
+     * Called with the book and user locks held.
+     *
+     * @param username Unique user identifier.
+     * @param ISBN     Unique book identifier.
+     */
+    private void offerBook(String username, String ISBN) {
+        UserRegistryForm offerForm = new UserRegistryForm(username, ISBN, currentDate, DAYS_TO_BORROW_BOOK);
+
+        offeredBooks.add(offerForm);
+        offerDueDatesOf(ISBN).schedule(offerForm);
+        persistForms(FormType.OFFER, username, ISBN);
+    }
+
+    /**
+     * Makes one more copy available when a copy is returned by the user
+     * and marks the book for the next sync of the requested books.
      */
     private void addOneCopyToLibrary(PaperBook paperBook) {
-        paperBook.setCurrentlyAvailable(
-                paperBook.getCurrentlyAvailable() + 1
-        );
+        paperBook.returnCopy();
+        storage.saveCopies(paperBook);
+        journal.logCopies(paperBook.getISBN(), paperBook.getCurrentlyAvailable());
+
+        booksWithReturnedCopies.add(paperBook.getISBN());
     }
 
     /**
      * Removes one copy from the available copies whe book is offered or rented.
+     *
+     * @return true if there was a free copy to remove, otherwise - false.
      */
-    private void removeOneCopyFromLibrary(PaperBook paperBook) {
-        paperBook.setCurrentlyAvailable(
-                paperBook.getCurrentlyAvailable() - 1
-        );
+    private boolean removeOneCopyFromLibrary(PaperBook paperBook) {
+        if (!paperBook.takeCopy()) {
+            return false;
+        }
+
+        storage.saveCopies(paperBook);
+        journal.logCopies(paperBook.getISBN(), paperBook.getCurrentlyAvailable());
+
+        return true;
     }
 
     /**
@@ -481,10 +1564,166 @@ public class BookRepository {
         return offeredBooks.size();
     }
 
+    /**
+     * @return Gets the sum of the free copies of all paper books.
+     */
+    public long getFreeCopiesSize() {
+        return inventory.sumAvailable();
+    }
+
+    /**
+     * @return Gets the sum of the copies the library owns of all paper books.
+     */
+    public long getTotalCopiesSize() {
+        return inventory.sumTotal();
+    }
+
+    /**
+     * @return Map of each genre with books to the amount of its books.
+     */
+    public Map<BookGenre, Integer> getBooksPerGenre() {
+        int[] counts = inventory.countByGenre();
+        Map<BookGenre, Integer> booksPerGenre = new EnumMap<>(BookGenre.class);
+
+        for (BookGenre genre : BookGenre.values()) {
+            if (counts[genre.ordinal()] > 0) {
+                booksPerGenre.put(genre, counts[genre.ordinal()]);
+            }
+        }
+
+        return booksPerGenre;
+    }
+
+    /**
+     * @return Gets the amount of distinct authors of the books in the library.
+     */
+    public int getAuthorsSize() {
+        return authorRegistry.size();
+    }
+
+    /**
+     * @return Gets the amount of users that have at least one borrowed book.
+     */
+    public int getBorrowingUsersSize() {
+        return borrowedBooks.userCount();
+    }
+
+    /**
+     * @return Gets the amount of users banned for books they did not return on time.
+     */
+    public int getBannedUsersSize() {
+        return bannedUsers.userCount();
+    }
+
+    /**
+     * @return Gets the amount of penalties for books not returned on time.
+     */
+    public int getPenaltiesSize() {
+        return bannedUsers.size();
+    }
+
+    /**
+     * Reads the length of every non-empty waiting queue. Only books with waiting users are listed.
+     * The lengths are read without the book locks, so each of them may be one request behind.
+     *
+     * @return Map of ISBN to the amount of users waiting for a copy of the book.
+     */
+    public Map<String, Integer> getWaitlistSizes() {
+        Map<String, Integer> waitlistSizes = new HashMap<>();
+
+        requestedBooks.forEach((ISBN, waitlist) -> {
+            int waiting = waitlist.size();
+
+            if (waiting > 0) {
+                waitlistSizes.put(ISBN, waiting);
+            }
+        });
+
+        return waitlistSizes;
+    }
+
+    /**
+     * @return The metrics of the operations of the library.
+     */
+    public LibraryMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * @return Gets the amount of currently requested books.
      */
     public int getRequestedBooksSize() {
-        return requestedBooks.size();
+        return requestedBooksCount.get();
+    }
+
+    /**
+     * Puts the records of the journal back into the repository while it is created.
+     * Each record replaces the state it describes, so a record applied twice changes nothing.
+     */
+    private class JournalRecovery implements LoanRecordVisitor {
+
+        @Override
+        public void onForms(FormType type, String username, String ISBN, List<UserRegistryForm> forms) {
+            FormRegistry registry = type == FormType.BORROW ? borrowedBooks : offeredBooks;
+            DueDateScheduler dueDates = type == FormType.BORROW ? borrowDueDatesOf(ISBN) : offerDueDatesOf(ISBN);
+
+            for (UserRegistryForm replacedForm : registry.removeAll(username, ISBN)) {
+                dueDates.cancel(replacedForm);
+            }
+
+            for (UserRegistryForm form : forms) {
+                registry.add(form);
+                dueDates.schedule(form);
+            }
+        }
+
+        @Override
+        public void onCopies(String ISBN, int freeCopies) {
+            Book book = books.get(ISBN);
+
+            if (book instanceof PaperBook) {
+                ((PaperBook) book).setCurrentlyAvailable(freeCopies);
+                booksWithReturnedCopies.add(ISBN);
+            }
+        }
+
+        @Override
+        public void onWaiting(String ISBN, String username) {
+            BookWaitlist waitlist = requestedBooks.computeIfAbsent(ISBN, isbn -> new BookWaitlist());
+            int waitingBefore = waitlist.size();
+
+            waitlist.enqueue(username);
+            requestedBooksCount.addAndGet(waitlist.size() - waitingBefore);
+        }
+
+        @Override
+        public void onNotWaiting(String ISBN, String username) {
+            BookWaitlist waitlist = requestedBooks.get(ISBN);
+
+            if (waitlist == null || !waitlist.remove(username)) {
+                return;
+            }
+
+            requestedBooksCount.decrementAndGet();
+
+            if (waitlist.isEmpty()) {
+                requestedBooks.remove(ISBN);
+            }
+        }
+
+        @Override
+        public void onBan(String username, String ISBN) {
+            bannedUsers.ban(username, ISBN);
+        }
+
+        @Override
+        public void onBanLifted(String username, String ISBN) {
+            bannedUsers.lift(username, ISBN);
+        }
+
+        @Override
+        public void onDay(LocalDate date) {
+            currentDate = date;
+        }
     }
 }
@@ -0,0 +1,124 @@
+package repository;
+
+import exception.CustomException;
+import model.common.BookQuery;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Turns the position of the last result of a page into an opaque cursor and back.
+ * Search results are positioned by the id of the book, the catalog ordered by title -
+ * by the title and the ISBN of the book. The two kinds of cursors can't be mixed.
+ * <p>
+ * A search cursor also carries a hash of the query it was returned for, so a cursor passed back
+ * with a different query is rejected instead of resuming that query at a position that means nothing to it.
+ */
+final class PageCursor {
+
+    private static final char BOOK_ID_CURSOR = 'i';
+    private static final char TITLE_CURSOR = 't';
+    private static final char SEPARATOR = '\u0000';
+
+    private PageCursor() {
+    }
+
+    /**
+     * @param query  Query of the search.
+     * @param bookId Id of the last book on the page.
+     * @return Cursor of the next page of search results.
+     */
+    static String ofBookId(BookQuery query, int bookId) {
+        return encode(BOOK_ID_CURSOR + Integer.toHexString(hashOf(query)) + SEPARATOR + bookId);
+    }
+
+    /**
+     * @param query  Query of the search - must be the query the cursor was returned for.
+     * @param cursor Cursor returned with a page of search results.
+     * @return Id of the last book on that page.
+     */
+    static int bookIdOf(BookQuery query, String cursor) {
+        String position = decode(cursor, BOOK_ID_CURSOR);
+        int separator = position.indexOf(SEPARATOR);
+
+        if (separator < 0) {
+            throw invalidCursor();
+        }
+
+        if (!position.substring(0, separator).equals(Integer.toHexString(hashOf(query)))) {
+            throw new CustomException("The provided page cursor belongs to a different search.");
+        }
+
+        try {
+            return Integer.parseInt(position.substring(separator + 1));
+        } catch (NumberFormatException exception) {
+            throw invalidCursor();
+        }
+    }
+
+    /**
+     * @param title Title of the last book on the page.
+     * @param ISBN  ISBN of the last book on the page.
+     * @return Cursor of the next page of the catalog ordered by title.
+     */
+    static String ofTitle(String title, String ISBN) {
+        return encode(TITLE_CURSOR + ISBN + SEPARATOR + title);
+    }
+
+    /**
+     * @param cursor Cursor returned with a page of the catalog ordered by title.
+     * @return The ISBN and the title of the last book on that page.
+     */
+    static String[] titleOf(String cursor) {
+        String position = decode(cursor, TITLE_CURSOR);
+        int separator = position.indexOf(SEPARATOR);
+
+        if (separator < 0) {
+            throw invalidCursor();
+        }
+
+        return new String[]{position.substring(0, separator), position.substring(separator + 1)};
+    }
+
+    /**
+     * Hashes the criteria of the query by their values only - the ordinals of the genre and the tags
+     * instead of the enum constants - so the hash is the same in every run of the library.
+     *
+     * @return Hash of the criteria of the query.
+     */
+    private static int hashOf(BookQuery query) {
+        int hash = Objects.hashCode(query.getTitleContaining());
+
+        hash = 31 * hash + Objects.hashCode(query.getAuthorNameContaining());
+        hash = 31 * hash + (query.getGenre() == null ? -1 : query.getGenre().ordinal());
+        hash = 31 * hash + Long.hashCode(query.getTagMask());
+        hash = 31 * hash + (query.isOnlyAvailable() ? 1 : 0);
+
+        return hash;
+    }
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor, char kind) {
+        String position;
+
+        try {
+            position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException exception) {
+            throw invalidCursor();
+        }
+
+        if (position.isEmpty() || position.charAt(0) != kind) {
+            throw invalidCursor();
+        }
+
+        return position.substring(1);
+    }
+
+    private static CustomException invalidCursor() {
+        return new CustomException("The provided page cursor is not valid.");
+    }
+}
@@ -1,8 +1,11 @@
 package repository;
 
 import model.user.impl.User;
+import repository.metrics.LibraryMetrics;
+import repository.storage.StorageEngine;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Has the role of containing all the registered users and execute simple operations like:
@@ -10,10 +13,42 @@ import java.util.*;
  * - searching for user
  * - getting all users
  * - etc.
+ * <p>
+ * Users are kept in a concurrent hash map keyed by username, so lookups and
+ * authentication take constant time and can run from many threads at once.
  */
 public class UserRepository {
 
-    private final Map<String, User> users = new HashMap<>();
+    private final Map<String, User> users;
+    private final StorageEngine storage;
+    private final LibraryMetrics metrics = new LibraryMetrics();
+
+    public UserRepository() {
+        this(StorageEngine.NONE);
+    }
+
+    /**
+     * Creates a repository sized in advance, so loading many accounts does not resize the map.
+     *
+     * @param expectedUsers The amount of users the repository is expected to hold.
+     */
+    public UserRepository(int expectedUsers) {
+        users = new ConcurrentHashMap<>(expectedUsers);
+        storage = StorageEngine.NONE;
+    }
+
+    /**
+     * Creates a repository that keeps its users in the given storage
+     * and loads the users stored there before.
+     *
+     * @param storage Storage engine holding the registered users.
+     */
+    public UserRepository(StorageEngine storage) {
+        users = new ConcurrentHashMap<>();
+        this.storage = storage;
+
+        storage.loadUsers(user -> users.put(user.getUsername(), user));
+    }
 
     /**
      * Adds a user to the user repository if username is not taken.
@@ -24,11 +59,11 @@ public class UserRepository {
     public String addUser(User user) {
         String currentUsername = user.getUsername();
 
-        if (users.containsKey(currentUsername)) {
+        if (users.putIfAbsent(currentUsername, user) != null) {
             return "User with username " + currentUsername + " already exists";
         }
 
-        users.putIfAbsent(currentUsername, user);
+        storage.saveUser(user);
 
         return "User with username " + currentUsername + " was created.";
     }
@@ -40,7 +75,14 @@ public class UserRepository {
      * @return if found returns the found User otherwise - null.
      */
     public User getUser(String username) {
-        return users.get(username);
+        return username == null ? null : users.get(username);
+    }
+
+    /**
+     * @return The metrics shared by the repositories and the controllers built on this repository.
+     */
+    public LibraryMetrics getMetrics() {
+        return metrics;
     }
 
     /**
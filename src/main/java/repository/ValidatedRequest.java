@@ -0,0 +1,48 @@
+package repository;
+
+import model.book.Book;
+import model.user.impl.User;
+
+/**
+ * Result of validating the username and the ISBN of a public repository operation.
+ * Holds the found user and book, so the internal steps of the operation
+ * can use them without looking them up and validating them again.
+ */
+final class ValidatedRequest {
+
+    private final User user;
+    private final Book book;
+
+    ValidatedRequest(User user, Book book) {
+        this.user = user;
+        this.book = book;
+    }
+
+    /**
+     * @return The username of the validated user.
+     */
+    String getUsername() {
+        return user.getUsername();
+    }
+
+    /**
+     * @return The ISBN of the validated book without surrounding white spaces.
+     */
+    String getISBN() {
+        return book.getISBN();
+    }
+
+    /**
+     * @return The user that exists in the user repository.
+     */
+    User getUser() {
+        return user;
+    }
+
+    /**
+     * @return The book that exists in the library.
+     */
+    Book getBook() {
+        return book;
+    }
+}
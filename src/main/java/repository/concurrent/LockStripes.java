@@ -0,0 +1,59 @@
+package repository.concurrent;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by many keys. Each key is always guarded by the same lock,
+ * so operations on keys that fall in different stripes can run in parallel,
+ * while the memory used for locking stays constant no matter how many keys exist.
+ */
+public class LockStripes {
+
+    private final ReentrantLock[] locks;
+
+    /**
+     * @param stripes Requested amount of locks - rounded up to a power of two.
+     */
+    public LockStripes(int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+
+        locks = new ReentrantLock[size];
+
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * @param key Object that is guarded by the stripes - username, ISBN etc.
+     * @return The index of the stripe guarding the key.
+     */
+    public int stripeOf(Object key) {
+        int hash = key.hashCode();
+
+        return (hash ^ (hash >>> 16)) & (locks.length - 1);
+    }
+
+    /**
+     * @param key Object that is guarded by the stripes - username, ISBN etc.
+     * @return The lock guarding the key.
+     */
+    public ReentrantLock lockFor(Object key) {
+        return locks[stripeOf(key)];
+    }
+
+    /**
+     * @param stripe Index of the stripe.
+     * @return The lock of the stripe with the given index.
+     */
+    public ReentrantLock lockAt(int stripe) {
+        return locks[stripe];
+    }
+
+    /**
+     * @return The amount of stripes.
+     */
+    public int size() {
+        return locks.length;
+    }
+}
@@ -0,0 +1,116 @@
+package repository.history;
+
+import exception.CustomException;
+import model.common.HistoryBlockStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Keeps the full history blocks outside of the heap, packed one after another in large regions.
+ * The regions are either direct buffers or mapped regions of a spill file, so the operating system
+ * can page out the blocks of users that are not read. A region is never freed, as history blocks live
+ * as long as the accounts. The spill file only holds memory and is not read back after a restart.
+ */
+public class OffHeapHistoryBlockStore implements HistoryBlockStore, AutoCloseable {
+
+    public static final int DEFAULT_REGION_SIZE = 1024 * 1024;
+
+    private final FileChannel spillFile;
+    private final int regionSize;
+    private ByteBuffer region = ByteBuffer.allocate(0);
+    private long spilledBytes;
+
+    /**
+     * Creates a store that keeps the blocks in direct buffers.
+     */
+    public OffHeapHistoryBlockStore() {
+        this(null, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Creates a store that keeps the blocks in regions of a memory-mapped file.
+     *
+     * @param spillFile File to map the regions from. Its previous content is dropped.
+     */
+    public OffHeapHistoryBlockStore(Path spillFile) {
+        this(spillFile, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * @param spillFile  File to map the regions from or null to use direct buffers.
+     * @param regionSize Size in bytes of the regions the blocks are packed in.
+     */
+    public OffHeapHistoryBlockStore(Path spillFile, int regionSize) {
+        this.regionSize = regionSize;
+
+        try {
+            this.spillFile = spillFile == null ? null
+                    : FileChannel.open(spillFile, CREATE, READ, WRITE, TRUNCATE_EXISTING);
+        } catch (IOException exception) {
+            throw new CustomException("History spill file could not be opened: " + exception.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized ByteBuffer store(byte[] block) {
+        if (region.remaining() < block.length) {
+            region = newRegion(Math.max(regionSize, block.length));
+        }
+
+        ByteBuffer stored = region.slice();
+
+        stored.limit(block.length);
+        stored.put(block);
+        stored.flip();
+        region.position(region.position() + block.length);
+
+        return stored.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return The amount of bytes mapped from the spill file.
+     */
+    public synchronized long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * @return A new region of the given size in a direct buffer or at the end of the spill file.
+     */
+    private ByteBuffer newRegion(int size) {
+        if (spillFile == null) {
+            return ByteBuffer.allocateDirect(size);
+        }
+
+        try {
+            ByteBuffer mapped = spillFile.map(FileChannel.MapMode.READ_WRITE, spilledBytes, size);
+
+            spilledBytes += size;
+
+            return mapped;
+        } catch (IOException exception) {
+            throw new CustomException("History spill file could not be grown: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Closes the spill file. The mapped regions stay readable until the blocks are no longer referenced.
+     */
+    @Override
+    public void close() {
+        if (spillFile == null) {
+            return;
+        }
+
+        try {
+            spillFile.close();
+        } catch (IOException exception) {
+            throw new CustomException("History spill file could not be closed: " + exception.getMessage());
+        }
+    }
+}
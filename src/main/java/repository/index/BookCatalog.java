@@ -0,0 +1,124 @@
+package repository.index;
+
+import model.book.Book;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Append-only array of the books of the library where the position of a book is its dense id.
+ * <p>
+ * Books are only ever appended by one writer at a time, so a book is written to the array
+ * before the new size is published through a volatile field. A reader that has read the size
+ * sees every book below it without locking, and a grown array is published only after the
+ * old books are copied into it. This lets readers take an immutable snapshot of the catalog
+ * in constant time instead of copying it.
+ * The catalog also resolves ids for the records that keep ids instead of books, like the histories of the users.
+ */
+public class BookCatalog implements IntFunction<Book> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private volatile Book[] books = new Book[INITIAL_CAPACITY];
+    private volatile int size;
+    private final Map<String, Integer> idsByISBN = new ConcurrentHashMap<>();
+
+    /**
+     * Appends the book to the catalog. Must not be called by two threads at the same time.
+     *
+     * @param book Object of type book.
+     * @return The dense id of the book.
+     */
+    public int add(Book book) {
+        int bookId = size;
+        Book[] currentBooks = books;
+
+        if (bookId == currentBooks.length) {
+            currentBooks = Arrays.copyOf(currentBooks, bookId * 2);
+            books = currentBooks;
+        }
+
+        currentBooks[bookId] = book;
+        idsByISBN.put(book.getISBN(), bookId);
+        size = bookId + 1;
+
+        return bookId;
+    }
+
+    /**
+     * @param bookId Dense id of the book - must be smaller than the size seen by the caller.
+     * @return The book with that id.
+     */
+    public Book get(int bookId) {
+        return books[bookId];
+    }
+
+    /**
+     * @param bookId Dense id of the book - must be smaller than the size seen by the caller.
+     * @return The book with that id.
+     */
+    @Override
+    public Book apply(int bookId) {
+        return get(bookId);
+    }
+
+    /**
+     * @param ISBN Unique book identifier.
+     * @return The dense id of the book or -1 if it is not in the catalog.
+     */
+    public int idOf(String ISBN) {
+        Integer bookId = idsByISBN.get(ISBN);
+
+        return bookId == null ? -1 : bookId;
+    }
+
+    /**
+     * @return The amount of books in the catalog.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Read-only view of the books in the catalog at the moment of the call,
+     * which does not change when more books are added.
+     */
+    public List<Book> snapshot() {
+        int snapshotSize = size;
+
+        return new Snapshot(books, snapshotSize);
+    }
+
+    /**
+     * Fixed size view over the first books of an array of the catalog.
+     */
+    private static final class Snapshot extends AbstractList<Book> implements RandomAccess {
+
+        private final Book[] books;
+        private final int size;
+
+        private Snapshot(Book[] books, int size) {
+            this.books = books;
+            this.size = size;
+        }
+
+        @Override
+        public Book get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+
+            return books[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package repository.index;
+
+import enums.BookGenre;
+import model.book.Book;
+import model.book.Inventory;
+import model.book.impl.PaperBook;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Inventory of the library kept as parallel primitive columns indexed by the dense book id:
+ * free copies, total copies and genre ordinal.
+ * <p>
+ * The columns are split in chunks of {@value #CHUNK_SIZE} books, so growing the inventory only allocates new chunks
+ * and never copies or moves the counts that paper books already point to. Scans over all books walk the chunks
+ * one after another as plain array loops, without visiting a single book object.
+ * <p>
+ * Books are appended by one writer at a time, which fills the columns of a book before publishing the new size
+ * through a volatile field, like {@link BookCatalog}. Free copies change concurrently through atomic array accesses.
+ * Scans read the columns with plain reads, so a count changed during the scan may be seen before or after the change.
+ * Books that are not paper books have a total of {@value #NOT_A_PAPER_BOOK} and never have free copies.
+ */
+public class BookInventory implements Inventory {
+
+    static final int CHUNK_SIZE = 4096;
+    static final int NOT_A_PAPER_BOOK = -1;
+
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_SIZE);
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final byte NO_GENRE = -1;
+    private static final VarHandle INT_ELEMENT = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private volatile Columns columns = new Columns(0);
+    private volatile int size;
+
+    /**
+     * Appends the columns of the book and attaches a paper book to its counts.
+     * The size grows only once the book is attached, so a book rejected by {@link PaperBook#attachTo}
+     * leaves the inventory as it was.
+     * Must not be called by two threads at the same time.
+     *
+     * @param bookId Dense id of the book in the catalog - the next id of the inventory.
+     * @param book   Object of type book.
+     */
+    public void add(int bookId, Book book) {
+        int chunk = bookId >>> CHUNK_SHIFT;
+        int index = bookId & CHUNK_MASK;
+        Columns current = columns;
+
+        if (chunk == current.available.length) {
+            current = current.withChunk();
+            columns = current;
+        }
+
+        if (book instanceof PaperBook) {
+            PaperBook paperBook = (PaperBook) book;
+
+            current.available[chunk][index] = paperBook.getCurrentlyAvailable();
+            current.total[chunk][index] = paperBook.getTotalCopies();
+        } else {
+            current.total[chunk][index] = NOT_A_PAPER_BOOK;
+        }
+
+        current.genres[chunk][index] = book.getGenre() == null ? NO_GENRE : (byte) book.getGenre().ordinal();
+
+        if (book instanceof PaperBook) {
+            ((PaperBook) book).attachTo(this, bookId);
+        }
+
+        size = bookId + 1;
+    }
+
+    @Override
+    public int getAvailable(int bookId) {
+        return (int) INT_ELEMENT.getVolatile(columns.available[bookId >>> CHUNK_SHIFT], bookId & CHUNK_MASK);
+    }
+
+    @Override
+    public void setAvailable(int bookId, int copies) {
+        INT_ELEMENT.setVolatile(columns.available[bookId >>> CHUNK_SHIFT], bookId & CHUNK_MASK, copies);
+    }
+
+    @Override
+    public boolean takeCopy(int bookId) {
+        int[] available = columns.available[bookId >>> CHUNK_SHIFT];
+        int index = bookId & CHUNK_MASK;
+        int copies;
+
+        do {
+            copies = (int) INT_ELEMENT.getVolatile(available, index);
+
+            if (copies <= 0) {
+                return false;
+            }
+        } while (!INT_ELEMENT.compareAndSet(available, index, copies, copies - 1));
+
+        return true;
+    }
+
+    @Override
+    public void returnCopy(int bookId) {
+        INT_ELEMENT.getAndAdd(columns.available[bookId >>> CHUNK_SHIFT], bookId & CHUNK_MASK, 1);
+    }
+
+    @Override
+    public int getTotal(int bookId) {
+        return columns.total[bookId >>> CHUNK_SHIFT][bookId & CHUNK_MASK];
+    }
+
+    /**
+     * @param bookId Dense id of the book - must be smaller than the size seen by the caller.
+     * @return true if the book is a paper book, otherwise - false.
+     */
+    public boolean isPaperBook(int bookId) {
+        return getTotal(bookId) != NOT_A_PAPER_BOOK;
+    }
+
+    /**
+     * @param bookId Dense id of the book - must be smaller than the size seen by the caller.
+     * @return true if the book is a paper book with at least one free copy, otherwise - false.
+     */
+    public boolean hasFreeCopy(int bookId) {
+        return getAvailable(bookId) > 0;
+    }
+
+    /**
+     * Passes the ids of the paper books with at least one free copy to the consumer in id order.
+     *
+     * @param consumer Action executed for each id.
+     */
+    public void forEachWithFreeCopies(IntConsumer consumer) {
+        int scanSize = size;
+        Columns scanned = columns;
+
+        for (int chunk = 0; chunk << CHUNK_SHIFT < scanSize; chunk++) {
+            int[] available = scanned.available[chunk];
+            int chunkStart = chunk << CHUNK_SHIFT;
+            int chunkEnd = Math.min(CHUNK_SIZE, scanSize - chunkStart);
+
+            for (int index = 0; index < chunkEnd; index++) {
+                if (available[index] > 0) {
+                    consumer.accept(chunkStart + index);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The sum of the free copies of all paper books.
+     */
+    public long sumAvailable() {
+        int scanSize = size;
+
+        return sum(columns.available, scanSize);
+    }
+
+    /**
+     * @return The sum of the copies the library owns of all paper books.
+     */
+    public long sumTotal() {
+        int scanSize = size;
+        int[][] total = columns.total;
+        long sum = 0;
+
+        for (int chunk = 0; chunk << CHUNK_SHIFT < scanSize; chunk++) {
+            int[] chunkTotal = total[chunk];
+            int chunkEnd = Math.min(CHUNK_SIZE, scanSize - (chunk << CHUNK_SHIFT));
+
+            for (int index = 0; index < chunkEnd; index++) {
+                sum += Math.max(chunkTotal[index], 0);
+            }
+        }
+
+        return sum;
+    }
+
+    /**
+     * @return The amount of books of each genre, indexed by the ordinal of the genre.
+     */
+    public int[] countByGenre() {
+        int scanSize = size;
+        byte[][] genres = columns.genres;
+        int[] counts = new int[BookGenre.values().length];
+
+        for (int chunk = 0; chunk << CHUNK_SHIFT < scanSize; chunk++) {
+            byte[] chunkGenres = genres[chunk];
+            int chunkEnd = Math.min(CHUNK_SIZE, scanSize - (chunk << CHUNK_SHIFT));
+
+            for (int index = 0; index < chunkEnd; index++) {
+                if (chunkGenres[index] != NO_GENRE) {
+                    counts[chunkGenres[index]]++;
+                }
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * @return The amount of books in the inventory.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds up the first books of the column chunk by chunk.
+     * The size is read before the columns, so the columns hold chunks for all of it.
+     */
+    private static long sum(int[][] column, int scanSize) {
+        long sum = 0;
+
+        for (int chunk = 0; chunk << CHUNK_SHIFT < scanSize; chunk++) {
+            int[] values = column[chunk];
+            int chunkEnd = Math.min(CHUNK_SIZE, scanSize - (chunk << CHUNK_SHIFT));
+
+            for (int index = 0; index < chunkEnd; index++) {
+                sum += values[index];
+            }
+        }
+
+        return sum;
+    }
+
+    /**
+     * The chunks of all columns. Replaced as a whole when a chunk is added, while the chunks themselves are shared.
+     */
+    private static final class Columns {
+
+        private final int[][] available;
+        private final int[][] total;
+        private final byte[][] genres;
+
+        private Columns(int chunks) {
+            this(new int[chunks][], new int[chunks][], new byte[chunks][]);
+        }
+
+        private Columns(int[][] available, int[][] total, byte[][] genres) {
+            this.available = available;
+            this.total = total;
+            this.genres = genres;
+        }
+
+        /**
+         * @return Columns with the same chunks and one more empty chunk.
+         */
+        private Columns withChunk() {
+            int chunks = available.length;
+            Columns grown = new Columns(Arrays.copyOf(available, chunks + 1), Arrays.copyOf(total, chunks + 1),
+                    Arrays.copyOf(genres, chunks + 1));
+
+            grown.available[chunks] = new int[CHUNK_SIZE];
+            grown.total[chunks] = new int[CHUNK_SIZE];
+            grown.genres[chunks] = new byte[CHUNK_SIZE];
+
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package repository.index;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Set of book ids that may match one predicate of a search, as read from an index.
+ * The size of the set is what a query uses to decide which predicate to start from:
+ * the smallest set is walked and the others are only asked if they contain each of its ids.
+ */
+public interface CandidateSet {
+
+    /**
+     * Set without ids, for predicates that no book can match.
+     */
+    CandidateSet EMPTY = new CandidateSet() {
+        @Override
+        public int size() {
+            return 0;
+        }
+
+        @Override
+        public boolean contains(int id) {
+            return false;
+        }
+
+        @Override
+        public void forEachFrom(int firstId, IntPredicate consumer) {
+        }
+    };
+
+    /**
+     * @return The amount of ids in the set or an upper bound of it.
+     */
+    int size();
+
+    /**
+     * @param id Dense id of the book.
+     * @return true if the id is in the set, otherwise - false.
+     */
+    boolean contains(int id);
+
+    /**
+     * Passes the ids in the set that are not smaller than the first id to the consumer
+     * in ascending order, until the consumer returns false.
+     *
+     * @param firstId  The smallest id to start from.
+     * @param consumer Action executed for each id - returns false to stop.
+     */
+    void forEachFrom(int firstId, IntPredicate consumer);
+
+    /**
+     * Passes every id in the set to the consumer in ascending order.
+     *
+     * @param consumer Action executed for each id.
+     */
+    default void forEach(IntConsumer consumer) {
+        forEachFrom(0, id -> {
+            consumer.accept(id);
+            return true;
+        });
+    }
+}
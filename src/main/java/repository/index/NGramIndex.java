@@ -0,0 +1,135 @@
+package repository.index;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Inverted index from every 1, 2 and 3 character long fragment (n-gram) of the indexed strings
+ * to the ids of the books they belong to.
+ * <p>
+ * A string containing the searched text contains every n-gram of that text, so the posting list
+ * of the rarest n-gram of the query holds all possible matches. Candidates are then checked
+ * against the posting lists of the remaining n-grams before being handed to the caller.
+ * The caller still has to verify each candidate, for example with String.contains.
+ */
+public class NGramIndex {
+
+    private static final int MAX_GRAM_LENGTH = 3;
+
+    private final Map<Long, PostingList> postings = new HashMap<>();
+
+    /**
+     * Indexes all n-grams of the text under the provided book id.
+     * Ids must be added in ascending order.
+     *
+     * @param id   Dense id of the book.
+     * @param text String to be indexed - title, author name etc.
+     */
+    public void add(int id, String text) {
+        if (text == null) {
+            return;
+        }
+
+        for (int start = 0; start < text.length(); start++) {
+            for (int length = 1; length <= MAX_GRAM_LENGTH && start + length <= text.length(); length++) {
+                postings.computeIfAbsent(gramKey(text, start, length), key -> new PostingList()).add(id);
+            }
+        }
+    }
+
+    /**
+     * Passes to the consumer, in ascending order, the ids of all books
+     * that contain every n-gram of the query.
+     *
+     * @param query    The searched text - must not be empty.
+     * @param consumer Action executed for every candidate id.
+     */
+    public void forEachCandidate(String query, IntConsumer consumer) {
+        candidatesOf(query).forEach(consumer);
+    }
+
+    /**
+     * @param query The searched text - must not be empty.
+     * @return The ids of all books that contain every n-gram of the query. The size of the set is
+     * the size of the posting list of the rarest n-gram, which is an upper bound of the ids in it.
+     */
+    public CandidateSet candidatesOf(String query) {
+        int gramLength = Math.min(query.length(), MAX_GRAM_LENGTH);
+        int gramCount = query.length() - gramLength + 1;
+
+        PostingList[] lists = new PostingList[gramCount];
+        int rarest = 0;
+
+        for (int i = 0; i < gramCount; i++) {
+            lists[i] = postings.get(gramKey(query, i, gramLength));
+
+            if (lists[i] == null) {
+                return CandidateSet.EMPTY;
+            }
+
+            if (lists[i].size() < lists[rarest].size()) {
+                rarest = i;
+            }
+        }
+
+        return new GramCandidates(lists, rarest);
+    }
+
+    /**
+     * Candidates of a query - the ids in the posting list of its rarest n-gram
+     * which are also in the posting lists of all its other n-grams.
+     */
+    private static final class GramCandidates implements CandidateSet {
+
+        private final PostingList[] lists;
+        private final int rarest;
+
+        private GramCandidates(PostingList[] lists, int rarest) {
+            this.lists = lists;
+            this.rarest = rarest;
+        }
+
+        @Override
+        public int size() {
+            return lists[rarest].size();
+        }
+
+        @Override
+        public boolean contains(int id) {
+            return lists[rarest].contains(id) && isInAll(id);
+        }
+
+        @Override
+        public void forEachFrom(int firstId, IntPredicate consumer) {
+            lists[rarest].forEachFrom(firstId, id -> !isInAll(id) || consumer.test(id));
+        }
+
+        /**
+         * @return true if the id is found in every posting list except the rarest one.
+         */
+        private boolean isInAll(int id) {
+            for (int i = 0; i < lists.length; i++) {
+                if (i != rarest && !lists[i].contains(id)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Packs up to three characters and the length of the n-gram into a single key.
+     */
+    private static long gramKey(String text, int start, int length) {
+        long key = length;
+
+        for (int i = 0; i < length; i++) {
+            key = (key << 16) | text.charAt(start + i);
+        }
+
+        return key;
+    }
+}
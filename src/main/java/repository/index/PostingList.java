@@ -0,0 +1,84 @@
+package repository.index;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Growable list of book ids kept in ascending order.
+ * Ids are appended in the order books are added to the library, so the list
+ * never has to be sorted and membership can be checked with binary search.
+ */
+public class PostingList implements CandidateSet {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Appends a book id to the end of the list. Ids equal to the last one are ignored,
+     * so a document indexed with several strings is only listed once.
+     *
+     * @param id Dense id of the book - must not be smaller than the last added id.
+     */
+    public void add(int id) {
+        if (size > 0 && ids[size - 1] == id) {
+            return;
+        }
+
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+
+        ids[size++] = id;
+    }
+
+    /**
+     * @param id Dense id of the book.
+     * @return true if the id is present in the list, otherwise - false.
+     */
+    @Override
+    public boolean contains(int id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    /**
+     * @param index Position in the list.
+     * @return The id stored on the given position.
+     */
+    public int get(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Passes every id in the list to the consumer in ascending order.
+     *
+     * @param consumer Action executed for each id.
+     */
+    @Override
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(ids[i]);
+        }
+    }
+
+    @Override
+    public void forEachFrom(int firstId, IntPredicate consumer) {
+        int start = Arrays.binarySearch(ids, 0, size, firstId);
+
+        for (int i = start < 0 ? -start - 1 : start; i < size; i++) {
+            if (!consumer.test(ids[i])) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The amount of ids in the list.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+}
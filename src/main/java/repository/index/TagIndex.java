@@ -0,0 +1,157 @@
+package repository.index;
+
+import enums.BookTags;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Keeps one bitmap of book ids per tag, where bit n of a bitmap is set if the book with id n has the tag.
+ * Searches with any or with all of several tags combine the bitmaps of the tags word by word,
+ * so 64 books are checked with a single operation and nothing is allocated.
+ */
+public class TagIndex {
+
+    private static final int INITIAL_WORDS = 16;
+
+    private final long[][] bitmaps = new long[BookTags.values().length][INITIAL_WORDS];
+    private final int[] counts = new int[BookTags.values().length];
+    private int words;
+
+    /**
+     * Sets the bits of the book in the bitmaps of its tags.
+     *
+     * @param id      Dense id of the book.
+     * @param tagMask Tags of the book - bit n is set for the tag with ordinal n.
+     */
+    public void add(int id, long tagMask) {
+        int word = id >>> 6;
+
+        if (word >= bitmaps[0].length) {
+            int capacity = Math.max(bitmaps[0].length * 2, word + 1);
+
+            for (int tag = 0; tag < bitmaps.length; tag++) {
+                bitmaps[tag] = Arrays.copyOf(bitmaps[tag], capacity);
+            }
+        }
+
+        for (long remaining = tagMask; remaining != 0; remaining &= remaining - 1) {
+            int tag = Long.numberOfTrailingZeros(remaining);
+
+            bitmaps[tag][word] |= 1L << id;
+            counts[tag]++;
+        }
+
+        words = Math.max(words, word + 1);
+    }
+
+    /**
+     * Passes to the consumer, in ascending order, the ids of the books with at least one of the tags.
+     *
+     * @param tagMask  Tags to search for - bit n is set for the tag with ordinal n.
+     * @param consumer Action executed for each matching id.
+     */
+    public void forEachWithAnyTag(long tagMask, IntConsumer consumer) {
+        if (tagMask == 0) {
+            return;
+        }
+
+        for (int word = 0; word < words; word++) {
+            long matches = 0;
+
+            for (long remaining = tagMask; remaining != 0; remaining &= remaining - 1) {
+                matches |= bitmaps[Long.numberOfTrailingZeros(remaining)][word];
+            }
+
+            forEachBit(word, matches, consumer);
+        }
+    }
+
+    /**
+     * Passes to the consumer, in ascending order, the ids of the books with all of the tags.
+     *
+     * @param tagMask  Tags to search for - bit n is set for the tag with ordinal n.
+     * @param consumer Action executed for each matching id.
+     */
+    public void forEachWithAllTags(long tagMask, IntConsumer consumer) {
+        forEachWithAllTagsFrom(tagMask, 0, id -> {
+            consumer.accept(id);
+            return true;
+        });
+    }
+
+    /**
+     * Passes to the consumer, in ascending order, the ids of the books with all of the tags
+     * that are not smaller than the first id, until the consumer returns false.
+     *
+     * @param tagMask  Tags to search for - bit n is set for the tag with ordinal n.
+     * @param firstId  The smallest id to start from.
+     * @param consumer Action executed for each matching id - returns false to stop.
+     */
+    public void forEachWithAllTagsFrom(long tagMask, int firstId, IntPredicate consumer) {
+        if (tagMask == 0) {
+            return;
+        }
+
+        for (int word = firstId >>> 6; word < words; word++) {
+            long matches = word == firstId >>> 6 ? -1L << firstId : -1L;
+
+            for (long remaining = tagMask; remaining != 0 && matches != 0; remaining &= remaining - 1) {
+                matches &= bitmaps[Long.numberOfTrailingZeros(remaining)][word];
+            }
+
+            for (long bits = matches; bits != 0; bits &= bits - 1) {
+                if (!consumer.test((word << 6) + Long.numberOfTrailingZeros(bits))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param tagMask Tags to search for - bit n is set for the tag with ordinal n. Must not be 0.
+     * @return The ids of the books with all of the tags. The size of the set is the amount of books
+     * with the rarest of the tags, which is an upper bound of the ids in it.
+     */
+    public CandidateSet withAllTags(long tagMask) {
+        int rarestCount = Integer.MAX_VALUE;
+
+        for (long remaining = tagMask; remaining != 0; remaining &= remaining - 1) {
+            rarestCount = Math.min(rarestCount, counts[Long.numberOfTrailingZeros(remaining)]);
+        }
+
+        int size = rarestCount;
+
+        return new CandidateSet() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(int id) {
+                int word = id >>> 6;
+
+                for (long remaining = tagMask; remaining != 0; remaining &= remaining - 1) {
+                    if (word >= words || (bitmaps[Long.numberOfTrailingZeros(remaining)][word] & (1L << id)) == 0) {
+                        return false;
+                    }
+                }
+
+                return true;
+            }
+
+            @Override
+            public void forEachFrom(int firstId, IntPredicate consumer) {
+                forEachWithAllTagsFrom(tagMask, firstId, consumer);
+            }
+        };
+    }
+
+    private static void forEachBit(int word, long bits, IntConsumer consumer) {
+        for (long remaining = bits; remaining != 0; remaining &= remaining - 1) {
+            consumer.accept((word << 6) + Long.numberOfTrailingZeros(remaining));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package repository.index;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Keeps the ids of the books ordered by title and then by ISBN in a skip list,
+ * so that the catalog can be read page by page from any position in O(log n + page size).
+ * Only browsing the whole catalog is served from here - searches by title fragment page over their candidates.
+ */
+public class TitleOrderIndex {
+
+    private static final Comparator<TitleKey> ORDER = Comparator
+            .comparing((TitleKey key) -> key.title)
+            .thenComparing(key -> key.ISBN);
+
+    private final NavigableMap<TitleKey, Integer> ids = new ConcurrentSkipListMap<>(ORDER);
+
+    /**
+     * @param id    Dense id of the book.
+     * @param title Title of the book.
+     * @param ISBN  Unique book identifier.
+     */
+    public void add(int id, String title, String ISBN) {
+        ids.put(new TitleKey(title, ISBN), id);
+    }
+
+    /**
+     * Passes to the consumer the ids of the books which come after the given position,
+     * in order of title and ISBN, until the consumer returns false.
+     *
+     * @param title    Title of the book to start after or null to start from the first book.
+     * @param ISBN     ISBN of the book to start after.
+     * @param consumer Action executed for each id - returns false to stop.
+     */
+    public void forEachAfter(String title, String ISBN, IntPredicate consumer) {
+        NavigableMap<TitleKey, Integer> tail = title == null ? ids : ids.tailMap(new TitleKey(title, ISBN), false);
+
+        for (Map.Entry<TitleKey, Integer> entry : tail.entrySet()) {
+            if (!consumer.test(entry.getValue())) {
+                return;
+            }
+        }
+    }
+
+    private static final class TitleKey {
+
+        private final String title;
+        private final String ISBN;
+
+        private TitleKey(String title, String ISBN) {
+            this.title = title == null ? "" : title;
+            this.ISBN = ISBN == null ? "" : ISBN;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package repository.loan;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Keeps the penalties of the users for books they did not return on time.
+ * A user is banned while he has at least one penalty. Penalties are kept per user as a set of ISBNs,
+ * so a book can give a user only one penalty and checking, adding and lifting a penalty take constant time.
+ * Users without penalties are removed, so the memory depends only on the amount of penalties.
+ */
+public class BanRegistry {
+
+    private final Map<String, Set<String>> penalties = new ConcurrentHashMap<>();
+    private final AtomicInteger penaltyCount = new AtomicInteger();
+
+    /**
+     * Adds a penalty for the book to the user, unless he already has one.
+     *
+     * @param username Unique user identifier.
+     * @param ISBN     Unique identifier of the overdue book.
+     * @return true if the penalty was added, otherwise - false.
+     */
+    public boolean ban(String username, String ISBN) {
+        boolean[] added = {false};
+
+        penalties.compute(username, (user, books) -> {
+            Set<String> userPenalties = books == null ? ConcurrentHashMap.newKeySet() : books;
+
+            added[0] = userPenalties.add(ISBN);
+
+            return userPenalties;
+        });
+
+        if (added[0]) {
+            penaltyCount.incrementAndGet();
+        }
+
+        return added[0];
+    }
+
+    /**
+     * @param username Unique user identifier.
+     * @return true if the user has at least one penalty, otherwise - false.
+     */
+    public boolean isBanned(String username) {
+        return penalties.containsKey(username);
+    }
+
+    /**
+     * Removes the penalty of the user for the book, if he has one.
+     *
+     * @param username Unique user identifier.
+     * @param ISBN     Unique identifier of the returned book.
+     * @return true if a penalty was removed, otherwise - false.
+     */
+    public boolean lift(String username, String ISBN) {
+        boolean[] removed = {false};
+
+        penalties.computeIfPresent(username, (user, books) -> {
+            removed[0] = books.remove(ISBN);
+
+            return books.isEmpty() ? null : books;
+        });
+
+        if (removed[0]) {
+            penaltyCount.decrementAndGet();
+        }
+
+        return removed[0];
+    }
+
+    /**
+     * Passes every penalty to the consumer. Penalties added or lifted meanwhile may or may not be passed.
+     *
+     * @param consumer Action executed with the username and the ISBN of each penalty.
+     */
+    public void forEach(BiConsumer<String, String> consumer) {
+        penalties.forEach((username, books) -> books.forEach(ISBN -> consumer.accept(username, ISBN)));
+    }
+
+    /**
+     * @return The amount of users with at least one penalty.
+     */
+    public int userCount() {
+        return penalties.size();
+    }
+
+    /**
+     * @return The amount of penalties of all users.
+     */
+    public int size() {
+        return penaltyCount.get();
+    }
+}
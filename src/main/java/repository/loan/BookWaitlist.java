@@ -0,0 +1,204 @@
+package repository.loan;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * First come, first served queue of the users waiting for a copy of one book.
+ * <p>
+ * Every user in the queue holds a ticket. A Fenwick tree over the tickets counts the users
+ * still waiting, so adding a user, taking the first user and finding the place of a user
+ * in the queue all run in O(log n). Tickets are renumbered once they run out,
+ * which keeps the arrays proportional to the amount of waiting users.
+ */
+public class BookWaitlist {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private final Map<String, Integer> tickets = new HashMap<>();
+    private String[] usernames = new String[MIN_CAPACITY + 1];
+    private int[] tree = new int[MIN_CAPACITY + 1];
+    private int nextTicket = 1;
+    private int size;
+
+    /**
+     * Adds the user at the end of the queue. A user already in the queue keeps his/her place.
+     *
+     * @param username Unique identifier of the user.
+     * @return Zero based place of the user in the queue.
+     */
+    public int enqueue(String username) {
+        Integer ticket = tickets.get(username);
+
+        if (ticket != null) {
+            return prefixCount(ticket) - 1;
+        }
+
+        if (nextTicket == tree.length) {
+            renumberTickets();
+        }
+
+        ticket = nextTicket++;
+
+        usernames[ticket] = username;
+        tickets.put(username, ticket);
+        update(ticket, 1);
+
+        return size++;
+    }
+
+    /**
+     * @param username Unique identifier of the user.
+     * @return Zero based place of the user in the queue or -1 if the user is not waiting.
+     */
+    public int positionOf(String username) {
+        Integer ticket = tickets.get(username);
+
+        return ticket == null ? -1 : prefixCount(ticket) - 1;
+    }
+
+    /**
+     * @return The username of the first user in the queue without removing it or null if the queue is empty.
+     */
+    public String peek() {
+        return size == 0 ? null : usernames[findTicketAt(1)];
+    }
+
+    /**
+     * Removes the first user from the queue.
+     *
+     * @return The username of the removed user or null if the queue is empty.
+     */
+    public String poll() {
+        if (size == 0) {
+            return null;
+        }
+
+        String username = usernames[findTicketAt(1)];
+
+        remove(username);
+
+        return username;
+    }
+
+    /**
+     * Removes the user from the queue no matter of his/her place.
+     *
+     * @param username Unique identifier of the user.
+     * @return true if the user was waiting, otherwise - false.
+     */
+    public boolean remove(String username) {
+        Integer ticket = tickets.remove(username);
+
+        if (ticket == null) {
+            return false;
+        }
+
+        usernames[ticket] = null;
+        update(ticket, -1);
+        size--;
+
+        return true;
+    }
+
+    /**
+     * @return The amount of users waiting in the queue.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Passes the waiting users to the consumer in the order of the queue.
+     *
+     * @param consumer Action executed for each waiting user.
+     */
+    public void forEach(Consumer<String> consumer) {
+        for (int ticket = 1; ticket < nextTicket; ticket++) {
+            if (usernames[ticket] != null) {
+                consumer.accept(usernames[ticket]);
+            }
+        }
+    }
+
+    /**
+     * @return true if nobody is waiting, otherwise - false.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gives the waiting users new consecutive tickets starting from one,
+     * keeping their order, and rebuilds the tree in linear time.
+     */
+    private void renumberTickets() {
+        int capacity = Math.max(MIN_CAPACITY, size * 2);
+
+        String[] renumbered = new String[capacity + 1];
+        int[] newTree = new int[capacity + 1];
+        int ticket = 0;
+
+        for (int oldTicket = 1; oldTicket < nextTicket; oldTicket++) {
+            if (usernames[oldTicket] != null) {
+                renumbered[++ticket] = usernames[oldTicket];
+                tickets.put(usernames[oldTicket], ticket);
+                newTree[ticket] = 1;
+            }
+        }
+
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+
+            if (parent <= capacity) {
+                newTree[parent] += newTree[i];
+            }
+        }
+
+        usernames = renumbered;
+        tree = newTree;
+        nextTicket = ticket + 1;
+    }
+
+    /**
+     * Adds the delta to the count of the ticket.
+     */
+    private void update(int ticket, int delta) {
+        for (int i = ticket; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @return The amount of waiting users with ticket smaller or equal to the given one.
+     */
+    private int prefixCount(int ticket) {
+        int count = 0;
+
+        for (int i = ticket; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+
+        return count;
+    }
+
+    /**
+     * @param place One based place in the queue.
+     * @return The ticket of the user on the given place.
+     */
+    private int findTicketAt(int place) {
+        int ticket = 0;
+
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = ticket + step;
+
+            if (next < tree.length && tree[next] < place) {
+                ticket = next;
+                place -= tree[next];
+            }
+        }
+
+        return ticket + 1;
+    }
+}
@@ -0,0 +1,92 @@
+package repository.loan;
+
+import model.common.UserRegistryForm;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Keeps forms grouped by their end date, so when the date of the library changes
+ * only the forms that expire are visited instead of all the forms in the library.
+ * <p>
+ * Forms are grouped in one bucket per day and the buckets are sorted by date.
+ * Scheduling and cancelling a form cost O(log d) where d is the amount of distinct end dates.
+ */
+public class DueDateScheduler {
+
+    private final NavigableMap<LocalDate, Set<UserRegistryForm>> formsByEndDate = new TreeMap<>();
+    private int size;
+
+    /**
+     * Adds the form to the bucket of its end date.
+     *
+     * @param form Form with start and end date.
+     */
+    public void schedule(UserRegistryForm form) {
+        if (formsByEndDate.computeIfAbsent(form.getEndDate(), date -> new LinkedHashSet<>()).add(form)) {
+            size++;
+        }
+    }
+
+    /**
+     * Removes the form from the bucket of its end date.
+     *
+     * @param form Form that was scheduled before.
+     * @return true if the form was scheduled, otherwise - false.
+     */
+    public boolean cancel(UserRegistryForm form) {
+        Set<UserRegistryForm> forms = formsByEndDate.get(form.getEndDate());
+
+        if (forms == null || !forms.remove(form)) {
+            return false;
+        }
+
+        if (forms.isEmpty()) {
+            formsByEndDate.remove(form.getEndDate());
+        }
+
+        size--;
+
+        return true;
+    }
+
+    /**
+     * Extends the due date of a scheduled form and moves it to the bucket of its new end date.
+     *
+     * @param form Form that was scheduled before.
+     */
+    public void extendDueDate(UserRegistryForm form) {
+        boolean wasScheduled = cancel(form);
+
+        form.extendDueDate();
+
+        if (wasScheduled) {
+            schedule(form);
+        }
+    }
+
+    /**
+     * Removes all forms with end date before the provided date and passes them to the consumer,
+     * starting from the earliest end date.
+     *
+     * @param currentDate The current date of the library.
+     * @param consumer    Action executed for every expired form.
+     */
+    public void pollExpired(LocalDate currentDate, Consumer<UserRegistryForm> consumer) {
+        while (!formsByEndDate.isEmpty() && formsByEndDate.firstKey().isBefore(currentDate)) {
+            Set<UserRegistryForm> expiredForms = formsByEndDate.pollFirstEntry().getValue();
+
+            size -= expiredForms.size();
+
+            expiredForms.forEach(consumer);
+        }
+    }
+
+    /**
+     * @return The amount of scheduled forms.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,228 @@
+package repository.loan;
+
+import model.common.UserRegistryForm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the borrow or offer forms of the users indexed by username and ISBN,
+ * so finding, adding and removing a form take constant time
+ * while the forms of one user can still be listed in the order the books were first added.
+ * A user may hold more than one copy of a book. Such forms are kept in the order they were added
+ * and lookups by username and ISBN return the oldest one.
+ * Users without forms are removed, so the memory depends only on the amount of forms.
+ * The forms of a user are changed only under the lock of the user, so a plain map per user is enough.
+ */
+public class FormRegistry {
+
+    private final Map<String, Map<String, List<UserRegistryForm>>> formsByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger formCount = new AtomicInteger();
+
+    /**
+     * @param username Unique user identifier.
+     * @param ISBN     Unique book identifier.
+     * @return The oldest form of the user for the book or null if there is none.
+     */
+    public UserRegistryForm get(String username, String ISBN) {
+        Map<String, List<UserRegistryForm>> userForms = formsByUser.get(username);
+
+        if (userForms == null) {
+            return null;
+        }
+
+        List<UserRegistryForm> bookForms = userForms.get(ISBN);
+
+        return bookForms == null ? null : bookForms.get(0);
+    }
+
+    /**
+     * @param username Unique user identifier.
+     * @param ISBN     Unique book identifier.
+     * @return Read-only view of the forms of the user for the book, oldest first.
+     */
+    public List<UserRegistryForm> formsOf(String username, String ISBN) {
+        Map<String, List<UserRegistryForm>> userForms = formsByUser.get(username);
+        List<UserRegistryForm> bookForms = userForms == null ? null : userForms.get(ISBN);
+
+        return bookForms == null ? Collections.emptyList() : Collections.unmodifiableList(bookForms);
+    }
+
+    /**
+     * Adds the form to the forms of its user.
+     *
+     * @param form The form to be added.
+     */
+    public void add(UserRegistryForm form) {
+        formsByUser.compute(form.getUsername(), (user, forms) -> {
+            Map<String, List<UserRegistryForm>> userForms = forms == null ? new LinkedHashMap<>() : forms;
+
+            userForms.computeIfAbsent(form.getISBN(), isbn -> new ArrayList<>(1)).add(form);
+
+            return userForms;
+        });
+
+        formCount.incrementAndGet();
+    }
+
+    /**
+     * Removes the oldest form of the user for the book, if he has one.
+     *
+     * @param username Unique user identifier.
+     * @param ISBN     Unique book identifier.
+     * @return The removed form or null if there was none.
+     */
+    public UserRegistryForm remove(String username, String ISBN) {
+        UserRegistryForm[] removed = {null};
+
+        formsByUser.computeIfPresent(username, (user, forms) -> {
+            List<UserRegistryForm> bookForms = forms.get(ISBN);
+
+            if (bookForms != null) {
+                removed[0] = bookForms.remove(0);
+                dropIfEmpty(forms, ISBN, bookForms);
+            }
+
+            return forms.isEmpty() ? null : forms;
+        });
+
+        if (removed[0] != null) {
+            formCount.decrementAndGet();
+        }
+
+        return removed[0];
+    }
+
+    /**
+     * Removes all forms of the user for the book.
+     *
+     * @param username Unique user identifier.
+     * @param ISBN     Unique book identifier.
+     * @return The removed forms, oldest first - possibly none.
+     */
+    public List<UserRegistryForm> removeAll(String username, String ISBN) {
+        List<UserRegistryForm> removed = new ArrayList<>();
+
+        formsByUser.computeIfPresent(username, (user, forms) -> {
+            List<UserRegistryForm> bookForms = forms.remove(ISBN);
+
+            if (bookForms != null) {
+                removed.addAll(bookForms);
+            }
+
+            return forms.isEmpty() ? null : forms;
+        });
+
+        formCount.addAndGet(-removed.size());
+
+        return removed;
+    }
+
+    /**
+     * Removes exactly the given form, if it is still kept.
+     *
+     * @param form The form to be removed.
+     * @return true if the form was removed, otherwise - false.
+     */
+    public boolean remove(UserRegistryForm form) {
+        boolean[] removed = {false};
+
+        formsByUser.computeIfPresent(form.getUsername(), (user, forms) -> {
+            List<UserRegistryForm> bookForms = forms.get(form.getISBN());
+
+            if (bookForms != null) {
+                removed[0] = bookForms.remove(form);
+                dropIfEmpty(forms, form.getISBN(), bookForms);
+            }
+
+            return forms.isEmpty() ? null : forms;
+        });
+
+        if (removed[0]) {
+            formCount.decrementAndGet();
+        }
+
+        return removed[0];
+    }
+
+    /**
+     * Removes the forms of the book from the forms of the user once there are none left.
+     */
+    private static void dropIfEmpty(Map<String, List<UserRegistryForm>> userForms, String ISBN,
+                                    List<UserRegistryForm> bookForms) {
+        if (bookForms.isEmpty()) {
+            userForms.remove(ISBN);
+        }
+    }
+
+    /**
+     * @param username Unique user identifier.
+     * @return The forms of the user grouped by book in the order the books were first added.
+     */
+    public List<UserRegistryForm> formsOf(String username) {
+        Map<String, List<UserRegistryForm>> userForms = formsByUser.get(username);
+
+        if (userForms == null) {
+            return Collections.emptyList();
+        }
+
+        List<UserRegistryForm> forms = new ArrayList<>(userForms.size());
+
+        userForms.values().forEach(forms::addAll);
+
+        return forms;
+    }
+
+    /**
+     * Passes the usernames of the users with forms to the consumer.
+     * Users that get their first form meanwhile may or may not be passed.
+     *
+     * @param consumer Action executed for each user.
+     */
+    public void forEachUser(Consumer<String> consumer) {
+        formsByUser.keySet().forEach(consumer);
+    }
+
+    /**
+     * Passes the forms of the user to the consumer grouped by book. Called with the lock of the user held.
+     *
+     * @param username Unique user identifier.
+     * @param consumer Action executed with the ISBN and the forms of each book, oldest first.
+     */
+    public void forEachBookOf(String username, BiConsumer<String, List<UserRegistryForm>> consumer) {
+        Map<String, List<UserRegistryForm>> userForms = formsByUser.get(username);
+
+        if (userForms != null) {
+            userForms.forEach((ISBN, forms) -> consumer.accept(ISBN, Collections.unmodifiableList(forms)));
+        }
+    }
+
+    /**
+     * @param username Unique user identifier.
+     * @return true if the user has at least one form, otherwise - false.
+     */
+    public boolean hasForms(String username) {
+        return formsByUser.containsKey(username);
+    }
+
+    /**
+     * @return The amount of users with at least one form.
+     */
+    public int userCount() {
+        return formsByUser.size();
+    }
+
+    /**
+     * @return The amount of forms of all users.
+     */
+    public int size() {
+        return formCount.get();
+    }
+}
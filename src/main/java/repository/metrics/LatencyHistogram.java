@@ -0,0 +1,112 @@
+package repository.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with one bucket per power of two.
+ * <p>
+ * Bucket {@code b} counts the latencies below 2^b nanoseconds that do not fit a smaller bucket,
+ * so 64 buckets cover every latency and a percentile is known within a factor of two.
+ * Every bucket is a {@link LongAdder}, so recording never takes a lock and threads
+ * recording at the same time do not contend on one counter.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = Long.SIZE;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            buckets[bucket] = new LongAdder();
+        }
+    }
+
+    /**
+     * Adds one latency to the histogram. Negative latencies are counted as zero.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        long latency = Math.max(0, nanos);
+
+        buckets[bucketOf(latency)].increment();
+        count.increment();
+        totalNanos.add(latency);
+        maxNanos.accumulate(latency);
+    }
+
+    /**
+     * @return The amount of recorded latencies.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return The average of the recorded latencies in nanoseconds, or 0 without latencies.
+     */
+    public double getMeanNanos() {
+        long recorded = count.sum();
+
+        return recorded == 0 ? 0 : (double) totalNanos.sum() / recorded;
+    }
+
+    /**
+     * @return The largest recorded latency in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Finds the bucket holding the latency below which the given share of the latencies are.
+     *
+     * @param quantile Share of the latencies - between 0 and 1.
+     * @return The upper bound of that bucket in nanoseconds, never above the largest latency, or 0 without latencies.
+     */
+    public long getPercentileNanos(double quantile) {
+        long[] counts = new long[BUCKETS];
+        long recorded = 0;
+
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] = buckets[bucket].sum();
+            recorded += counts[bucket];
+        }
+
+        if (recorded == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * recorded));
+        long seen = 0;
+
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(bucket), getMaxNanos());
+            }
+        }
+
+        return getMaxNanos();
+    }
+
+    /**
+     * @return The index of the bucket for the latency - the amount of bits needed to write it.
+     */
+    private static int bucketOf(long nanos) {
+        return Long.SIZE - Long.numberOfLeadingZeros(nanos);
+    }
+
+    /**
+     * @return The largest latency counted in the bucket.
+     */
+    private static long upperBoundOf(int bucket) {
+        return bucket >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
@@ -0,0 +1,112 @@
+package repository.metrics;
+
+import enums.LibraryOperation;
+import model.common.OperationStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Counts the calls and the failures of the operations of the library and keeps a latency histogram for each.
+ * <p>
+ * One instance is shared by the repositories and the controllers built on the same user repository.
+ * Recording only adds to {@link LongAdder} cells, so it never takes a lock and does not serialize
+ * the threads calling the operations.
+ */
+public class LibraryMetrics {
+
+    private static final LibraryOperation[] OPERATIONS = LibraryOperation.values();
+    private static final double NANOS_PER_MICRO = 1_000.0;
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final LongAdder[] failures = new LongAdder[OPERATIONS.length];
+
+    public LibraryMetrics() {
+        for (LibraryOperation operation : OPERATIONS) {
+            latencies[operation.ordinal()] = new LatencyHistogram();
+            failures[operation.ordinal()] = new LongAdder();
+        }
+    }
+
+    /**
+     * Runs the action and records its latency, counting it as failed if it throws.
+     *
+     * @param operation The operation the action belongs to.
+     * @param action    The body of the operation.
+     * @return The result of the action.
+     */
+    public <T> T timed(LibraryOperation operation, Supplier<T> action) {
+        long startTime = System.nanoTime();
+        boolean failed = true;
+
+        try {
+            T result = action.get();
+            failed = false;
+
+            return result;
+        } finally {
+            record(operation, System.nanoTime() - startTime, failed);
+        }
+    }
+
+    /**
+     * Runs the action without a result and records its latency, counting it as failed if it throws.
+     *
+     * @param operation The operation the action belongs to.
+     * @param action    The body of the operation.
+     */
+    public void timedRun(LibraryOperation operation, Runnable action) {
+        timed(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records one finished call of the operation.
+     *
+     * @param operation The finished operation.
+     * @param nanos     Latency of the call in nanoseconds.
+     * @param failed    Whether the call ended with an exception.
+     */
+    public void record(LibraryOperation operation, long nanos, boolean failed) {
+        latencies[operation.ordinal()].record(nanos);
+
+        if (failed) {
+            failures[operation.ordinal()].increment();
+        }
+    }
+
+    /**
+     * @param operation One operation of the library.
+     * @return The counters and latencies of the operation at this moment.
+     */
+    public OperationStatistics statisticsOf(LibraryOperation operation) {
+        LatencyHistogram histogram = latencies[operation.ordinal()];
+
+        return new OperationStatistics(operation.name(),
+                histogram.getCount(),
+                failures[operation.ordinal()].sum(),
+                histogram.getMeanNanos() / NANOS_PER_MICRO,
+                histogram.getPercentileNanos(0.5) / NANOS_PER_MICRO,
+                histogram.getPercentileNanos(0.99) / NANOS_PER_MICRO,
+                histogram.getMaxNanos() / NANOS_PER_MICRO);
+    }
+
+    /**
+     * @return The statistics of every operation that was called at least once.
+     */
+    public List<OperationStatistics> getOperationStatistics() {
+        List<OperationStatistics> statistics = new ArrayList<>();
+
+        for (LibraryOperation operation : OPERATIONS) {
+            if (latencies[operation.ordinal()].getCount() > 0) {
+                statistics.add(statisticsOf(operation));
+            }
+        }
+
+        return statistics;
+    }
+}
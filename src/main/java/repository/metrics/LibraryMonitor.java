@@ -0,0 +1,109 @@
+package repository.metrics;
+
+import exception.CustomException;
+import model.common.OperationStatistics;
+import repository.BookRepository;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exposes the gauges of the book repository and the metrics of its operations as an MXBean.
+ * Every attribute is read from counters the library keeps up to date, so reading it takes no lock.
+ */
+public class LibraryMonitor implements LibraryMonitorMXBean {
+
+    private static final String DOMAIN = "library";
+
+    private final BookRepository bookRepository;
+
+    public LibraryMonitor(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Registers a monitor of the repository in the platform MBean server.
+     *
+     * @param bookRepository The monitored repository.
+     * @param name           Name that tells apart the monitors of different libraries.
+     * @return The name the monitor was registered with.
+     */
+    public static ObjectName register(BookRepository bookRepository, String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            ObjectName objectName = objectNameOf(name);
+
+            server.registerMBean(new LibraryMonitor(bookRepository), objectName);
+
+            return objectName;
+        } catch (JMException exception) {
+            throw new CustomException("Library monitor could not be registered: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Removes the monitor with the given name from the platform MBean server, if it is registered.
+     *
+     * @param name Name the monitor was registered with.
+     */
+    public static void unregister(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            ObjectName objectName = objectNameOf(name);
+
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException exception) {
+            throw new CustomException("Library monitor could not be unregistered: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * @return The JMX name of the monitor with the given name.
+     */
+    private static ObjectName objectNameOf(String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=LibraryMonitor,name=" + ObjectName.quote(name));
+    }
+
+    @Override
+    public int getBorrowedBooks() {
+        return bookRepository.getBorrowedBooksSize();
+    }
+
+    @Override
+    public int getOfferedBooks() {
+        return bookRepository.getOfferedBooksSize();
+    }
+
+    @Override
+    public int getWaitingRequests() {
+        return bookRepository.getRequestedBooksSize();
+    }
+
+    @Override
+    public int getBannedUsers() {
+        return bookRepository.getBannedUsersSize();
+    }
+
+    @Override
+    public int getPenalties() {
+        return bookRepository.getPenaltiesSize();
+    }
+
+    @Override
+    public Map<String, Integer> getWaitlistSizes() {
+        return bookRepository.getWaitlistSizes();
+    }
+
+    @Override
+    public List<OperationStatistics> getOperations() {
+        return bookRepository.getMetrics().getOperationStatistics();
+    }
+}
@@ -0,0 +1,47 @@
+package repository.metrics;
+
+import model.common.OperationStatistics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Management interface of the library exposed over JMX.
+ */
+public interface LibraryMonitorMXBean {
+
+    /**
+     * @return The amount of currently borrowed books.
+     */
+    int getBorrowedBooks();
+
+    /**
+     * @return The amount of currently offered books.
+     */
+    int getOfferedBooks();
+
+    /**
+     * @return The amount of requests waiting for a copy of a book.
+     */
+    int getWaitingRequests();
+
+    /**
+     * @return The amount of users banned for books not returned on time.
+     */
+    int getBannedUsers();
+
+    /**
+     * @return The amount of penalties for books not returned on time.
+     */
+    int getPenalties();
+
+    /**
+     * @return Map of ISBN to the amount of users waiting for the book, for the books with waiting users.
+     */
+    Map<String, Integer> getWaitlistSizes();
+
+    /**
+     * @return Counters and latencies of every operation that was called at least once.
+     */
+    List<OperationStatistics> getOperations();
+}
@@ -0,0 +1,10 @@
+package repository.storage;
+
+/**
+ * The kinds of forms that are kept by the storage engine.
+ */
+public enum FormType {
+
+    BORROW,
+    OFFER
+}
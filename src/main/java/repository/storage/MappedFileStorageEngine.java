@@ -0,0 +1,353 @@
+package repository.storage;
+
+import exception.CustomException;
+import model.book.Book;
+import model.book.impl.PaperBook;
+import model.common.UserRegistryForm;
+import model.user.impl.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Storage engine made of three files in a directory:
+ * - an append-only log with a record for every added book and registered user;
+ * - an append-only form log with a record for every change of the forms a user has for a book,
+ * holding all of those forms after the change;
+ * - a memory-mapped index with one fixed size slot per possible ISBN ("####-#" gives 100 000 slots)
+ * holding the position of the book's record in the log and its copy counts.
+ * <p>
+ * Copy counts change in place in the mapped index, so borrowing and returning books does not grow the log.
+ * Only the last record of a user and book in the form log is live, so once the replaced records take more space
+ * than the live ones the form log is compacted - the live records are copied to a new file that replaces it.
+ * On start the logs are mapped read-only and decoded straight from the mapping,
+ * without the validation that adding the books one by one through the controllers requires.
+ * <p>
+ * By default a change is handed to the operating system when the call returns, so it survives a crash
+ * of the process but not a power loss or a crash of the operating system - the files are forced to the disk
+ * only on close. Engines that force writes force every record and copy count change to the disk before returning,
+ * which survives both at the cost of a disk flush per change.
+ */
+public class MappedFileStorageEngine implements StorageEngine {
+
+    static final String LOG_FILE = "library.log";
+    static final String FORM_LOG_FILE = "forms.log";
+    static final String INDEX_FILE = "books.idx";
+    static final long COMPACTION_THRESHOLD = 1 << 20;
+
+    private static final String COMPACTED_SUFFIX = ".compacted";
+
+    private static final byte BOOK_RECORD = 1;
+    private static final byte USER_RECORD = 2;
+    private static final byte FORMS_RECORD = 3;
+
+    private static final int ISBN_SLOTS = 100_000;
+    private static final int SLOT_SIZE = 16;
+    private static final int SLOT_OFFSET = 0;
+    private static final int SLOT_FREE_COPIES = 8;
+    private static final int SLOT_TOTAL_COPIES = 12;
+
+    private final Path directory;
+    private final boolean forceWrites;
+    private final RecordLog log;
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer index;
+    private final Map<String, LiveRecord> liveForms = new HashMap<>();
+    private RecordLog formLog;
+    private long liveFormBytes;
+
+    /**
+     * Opens the files in the directory or creates them if they don't exist, without forcing writes.
+     *
+     * @param directory Directory holding the files of the library.
+     */
+    public MappedFileStorageEngine(Path directory) {
+        this(directory, false);
+    }
+
+    /**
+     * Opens the files in the directory or creates them if they don't exist.
+     * The logs are cut off at the first incomplete or damaged record, as left by a crash during a write.
+     *
+     * @param directory   Directory holding the files of the library.
+     * @param forceWrites Whether every change is forced to the disk before returning.
+     */
+    public MappedFileStorageEngine(Path directory, boolean forceWrites) {
+        this.directory = directory;
+        this.forceWrites = forceWrites;
+
+        try {
+            Files.createDirectories(directory);
+            Files.deleteIfExists(directory.resolve(FORM_LOG_FILE + COMPACTED_SUFFIX));
+
+            log = new RecordLog(directory.resolve(LOG_FILE));
+            formLog = new RecordLog(directory.resolve(FORM_LOG_FILE));
+            indexChannel = FileChannel.open(directory.resolve(INDEX_FILE), CREATE, READ, WRITE);
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) ISBN_SLOTS * SLOT_SIZE);
+        } catch (IOException exception) {
+            throw new CustomException("Library storage could not be opened: " + exception.getMessage());
+        }
+
+        findLiveForms();
+    }
+
+    @Override
+    public void saveBook(Book book) {
+        long offset = log.append(BOOK_RECORD, RecordCodec.encodeBook(book));
+        int slot = slotOf(book.getISBN());
+
+        forceIfNeeded(log);
+        index.putLong(slot + SLOT_OFFSET, offset + 1);
+
+        if (book instanceof PaperBook) {
+            saveCopies((PaperBook) book);
+        } else if (forceWrites) {
+            index.force();
+        }
+    }
+
+    @Override
+    public void saveCopies(PaperBook paperBook) {
+        int slot = slotOf(paperBook.getISBN());
+
+        index.putInt(slot + SLOT_FREE_COPIES, paperBook.getCurrentlyAvailable());
+        index.putInt(slot + SLOT_TOTAL_COPIES, paperBook.getTotalCopies());
+
+        if (forceWrites) {
+            index.force();
+        }
+    }
+
+    @Override
+    public void saveUser(User user) {
+        log.append(USER_RECORD, RecordCodec.encodeUser(user));
+        forceIfNeeded(log);
+    }
+
+    @Override
+    public synchronized void saveForms(FormType type, String username, String ISBN, List<UserRegistryForm> forms) {
+        byte[] payload = RecordCodec.encodeForms(type, username, ISBN, forms);
+        long offset = formLog.append(FORMS_RECORD, payload);
+
+        forceIfNeeded(formLog);
+        setLiveForms(RecordCodec.formKey(type, username, ISBN), forms.isEmpty() ? null
+                : new LiveRecord(offset, RecordLog.RECORD_HEADER_SIZE + payload.length));
+
+        long formLogSize = formLog.size();
+
+        if (formLogSize >= COMPACTION_THRESHOLD && formLogSize - liveFormBytes > liveFormBytes) {
+            compactForms();
+        }
+    }
+
+    @Override
+    public void loadBooks(Consumer<Book> consumer) {
+        log.forEachRecord((type, offset, payload) -> {
+            if (type != BOOK_RECORD) {
+                return;
+            }
+
+            Book book = RecordCodec.decodeBook(payload);
+            int slot = slotOf(book.getISBN());
+
+            if (index.getLong(slot + SLOT_OFFSET) != offset + 1) {
+                return;
+            }
+
+            if (book instanceof PaperBook) {
+                ((PaperBook) book).setCurrentlyAvailable(index.getInt(slot + SLOT_FREE_COPIES));
+            }
+
+            consumer.accept(book);
+        });
+    }
+
+    @Override
+    public void loadUsers(Consumer<User> consumer) {
+        log.forEachRecord((type, offset, payload) -> {
+            if (type == USER_RECORD) {
+                consumer.accept(RecordCodec.decodeUser(payload));
+            }
+        });
+    }
+
+    @Override
+    public synchronized void loadForms(BiConsumer<FormType, UserRegistryForm> consumer) {
+        formLog.forEachRecord((type, offset, payload) -> {
+            if (!isLiveForms(type, offset, payload)) {
+                return;
+            }
+
+            FormType formType = RecordCodec.decodeFormType(payload);
+
+            RecordCodec.decodeForms(payload).forEach(form -> consumer.accept(formType, form));
+        });
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            index.force();
+            log.close();
+            formLog.close();
+            indexChannel.close();
+        } catch (IOException exception) {
+            throw new CustomException("Library storage could not be closed: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * @return The amount of bytes of all records in the form log, live or replaced.
+     */
+    synchronized long getFormLogSize() {
+        return formLog.size();
+    }
+
+    /**
+     * Forces the records of the log to the disk if the engine forces writes.
+     */
+    private void forceIfNeeded(RecordLog recordLog) {
+        if (forceWrites) {
+            recordLog.force();
+        }
+    }
+
+    /**
+     * Walks the form log and remembers the last record of every user and book that still has forms.
+     */
+    private void findLiveForms() {
+        formLog.forEachRecord((type, offset, payload) -> {
+            if (type != FORMS_RECORD) {
+                return;
+            }
+
+            ByteBuffer record = payload.duplicate();
+            String key = RecordCodec.decodeFormKey(RecordCodec.decodeFormType(record), record);
+            boolean hasForms = record.getInt() > 0;
+            int size = RecordLog.RECORD_HEADER_SIZE + payload.remaining();
+
+            setLiveForms(key, hasForms ? new LiveRecord(offset, size) : null);
+        });
+    }
+
+    /**
+     * @param key    The type, the user and the book of the forms.
+     * @param record The last record of the forms or null if there are no forms left.
+     */
+    private void setLiveForms(String key, LiveRecord record) {
+        LiveRecord replaced = record == null ? liveForms.remove(key) : liveForms.put(key, record);
+
+        liveFormBytes += (record == null ? 0 : record.size) - (replaced == null ? 0 : replaced.size);
+    }
+
+    /**
+     * @return true if the record is the last record of its user and book and holds forms, otherwise - false.
+     */
+    private boolean isLiveForms(byte type, long offset, ByteBuffer payload) {
+        if (type != FORMS_RECORD) {
+            return false;
+        }
+
+        ByteBuffer record = payload.duplicate();
+        LiveRecord live = liveForms.get(RecordCodec.decodeFormKey(RecordCodec.decodeFormType(record), record));
+
+        return live != null && live.offset == offset;
+    }
+
+    /**
+     * Copies the live records of the form log to a new file, forces it and moves it over the form log.
+     * A crash before the move leaves the old form log, which still holds the same live records.
+     */
+    private void compactForms() {
+        Path formLogFile = directory.resolve(FORM_LOG_FILE);
+        Path compactedFile = directory.resolve(FORM_LOG_FILE + COMPACTED_SUFFIX);
+        Map<String, LiveRecord> moved = new HashMap<>();
+
+        try {
+            Files.deleteIfExists(compactedFile);
+
+            RecordLog compacted = new RecordLog(compactedFile);
+
+            formLog.forEachRecord((type, offset, payload) -> {
+                if (!isLiveForms(type, offset, payload)) {
+                    return;
+                }
+
+                ByteBuffer record = payload.duplicate();
+                String key = RecordCodec.decodeFormKey(RecordCodec.decodeFormType(record), record);
+                byte[] bytes = new byte[payload.remaining()];
+
+                payload.get(bytes);
+
+                long movedOffset = compacted.append(type, bytes);
+
+                moved.put(key, new LiveRecord(movedOffset, RecordLog.RECORD_HEADER_SIZE + bytes.length));
+            });
+
+            compacted.close();
+            formLog.close();
+            Files.move(compactedFile, formLogFile, ATOMIC_MOVE, REPLACE_EXISTING);
+            formLog = new RecordLog(formLogFile);
+        } catch (IOException exception) {
+            throw new CustomException("Library form log could not be compacted: " + exception.getMessage());
+        }
+
+        liveForms.clear();
+        liveForms.putAll(moved);
+    }
+
+    /**
+     * @param ISBN ISBN in format "####-#".
+     * @return Position of the ISBN's slot in the index.
+     */
+    private static int slotOf(String ISBN) {
+        if (ISBN == null || ISBN.length() != 6 || ISBN.charAt(4) != '-') {
+            throw new CustomException("Provided ISBN does not match pattern ####-# (digits only)");
+        }
+
+        int number = 0;
+
+        for (int i = 0; i < ISBN.length(); i++) {
+            char symbol = ISBN.charAt(i);
+
+            if (i == 4) {
+                continue;
+            }
+
+            if (symbol < '0' || symbol > '9') {
+                throw new CustomException("Provided ISBN does not match pattern ####-# (digits only)");
+            }
+
+            number = number * 10 + (symbol - '0');
+        }
+
+        return number * SLOT_SIZE;
+    }
+
+    /**
+     * Position and size of the last record of a user and book in the form log.
+     */
+    private static final class LiveRecord {
+
+        private final long offset;
+        private final int size;
+
+        private LiveRecord(long offset, int size) {
+            this.offset = offset;
+            this.size = size;
+        }
+    }
+}
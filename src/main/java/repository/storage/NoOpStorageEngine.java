@@ -0,0 +1,48 @@
+package repository.storage;
+
+import model.book.Book;
+import model.book.impl.PaperBook;
+import model.common.UserRegistryForm;
+import model.user.impl.User;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Storage engine that keeps nothing - the library lives only in memory.
+ */
+class NoOpStorageEngine implements StorageEngine {
+
+    @Override
+    public void saveBook(Book book) {
+    }
+
+    @Override
+    public void saveCopies(PaperBook paperBook) {
+    }
+
+    @Override
+    public void saveUser(User user) {
+    }
+
+    @Override
+    public void saveForms(FormType type, String username, String ISBN, List<UserRegistryForm> forms) {
+    }
+
+    @Override
+    public void loadBooks(Consumer<Book> consumer) {
+    }
+
+    @Override
+    public void loadUsers(Consumer<User> consumer) {
+    }
+
+    @Override
+    public void loadForms(BiConsumer<FormType, UserRegistryForm> consumer) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,294 @@
+package repository.storage;
+
+import enums.BookGenre;
+import enums.BookTags;
+import enums.Gender;
+import exception.CustomException;
+import model.book.Book;
+import model.book.impl.DownloadableEBook;
+import model.book.impl.EBook;
+import model.book.impl.PaperBook;
+import model.common.Address;
+import model.common.PasswordHash;
+import model.common.UserRegistryForm;
+import model.user.impl.Author;
+import model.user.impl.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns books, users and forms into bytes and back.
+ * Strings are stored as length prefixed UTF-8, dates as epoch days and enums as ordinals.
+ * Passwords are never stored - users are stored with a salted hash of their password instead.
+ */
+final class RecordCodec {
+
+    private static final byte PAPER_BOOK = 0;
+    private static final byte E_BOOK = 1;
+    private static final byte DOWNLOADABLE_E_BOOK = 2;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private RecordCodec() {
+    }
+
+    /**
+     * @return The book turned into bytes.
+     */
+    static byte[] encodeBook(Book book) {
+        return encode(out -> {
+            if (book instanceof PaperBook) {
+                out.writeByte(PAPER_BOOK);
+            } else if (book instanceof DownloadableEBook) {
+                out.writeByte(DOWNLOADABLE_E_BOOK);
+            } else if (book instanceof EBook) {
+                out.writeByte(E_BOOK);
+            } else {
+                throw new CustomException("Unknown type of book " + book.getClass().getSimpleName());
+            }
+
+            writeString(out, book.getISBN());
+            writeString(out, book.getTitle());
+            writeString(out, book.getSummary());
+            out.writeByte(book.getGenre() == null ? -1 : book.getGenre().ordinal());
+
+            out.writeInt(book.getAuthors().size());
+            for (Author author : book.getAuthors()) {
+                writeString(out, author.getFirstName());
+                writeString(out, author.getLastName());
+                writeDate(out, author.getDateOfBirth());
+                writeDate(out, author.getDateOfDeath());
+            }
+
+            out.writeInt(book.getTags().size());
+            for (BookTags tag : book.getTags()) {
+                out.writeByte(tag.ordinal());
+            }
+
+            if (book instanceof PaperBook) {
+                out.writeInt(((PaperBook) book).getTotalCopies());
+            } else if (book instanceof DownloadableEBook) {
+                writeString(out, ((DownloadableEBook) book).getOnlineLink());
+                writeString(out, ((DownloadableEBook) book).getDownLoadLink());
+            } else {
+                writeString(out, ((EBook) book).getOnlineLink());
+            }
+        });
+    }
+
+    /**
+     * Reads a book from the current position of the buffer.
+     * Paper books are created with all their copies free.
+     */
+    static Book decodeBook(ByteBuffer in) {
+        byte kind = in.get();
+        String ISBN = readString(in);
+        String title = readString(in);
+        String summary = readString(in);
+        byte genreOrdinal = in.get();
+        BookGenre genre = genreOrdinal < 0 ? null : BookGenre.values()[genreOrdinal];
+
+        int authorsCount = in.getInt();
+        List<Author> authors = new ArrayList<>(authorsCount);
+        for (int i = 0; i < authorsCount; i++) {
+            authors.add(new Author(readString(in), readString(in), readDate(in), readDate(in)));
+        }
+
+        int tagsCount = in.getInt();
+        List<BookTags> tags = new ArrayList<>(tagsCount);
+        for (int i = 0; i < tagsCount; i++) {
+            tags.add(BookTags.values()[in.get()]);
+        }
+
+        switch (kind) {
+            case PAPER_BOOK:
+                int totalCopies = in.getInt();
+                return new PaperBook(ISBN, title, summary, authors, genre, tags, totalCopies, totalCopies);
+            case E_BOOK:
+                return new EBook(ISBN, title, summary, authors, genre, tags, readString(in));
+            case DOWNLOADABLE_E_BOOK:
+                return new DownloadableEBook(ISBN, title, summary, authors, genre, tags, readString(in), readString(in));
+            default:
+                throw new CustomException("Stored book has unknown type " + kind);
+        }
+    }
+
+    /**
+     * @return The user turned into bytes.
+     */
+    static byte[] encodeUser(User user) {
+        return encode(out -> {
+            writeString(out, user.getFirstName());
+            writeString(out, user.getLastName());
+            writeString(out, user.getLocation().getCountry());
+            writeString(out, user.getLocation().getCity());
+            writeString(out, user.getLocation().getStreet());
+            out.writeByte(user.getGender().ordinal());
+            writeString(out, user.getUsername());
+            writePasswordHash(out, user.getPasswordHash());
+            writeString(out, user.getEmail());
+            out.writeBoolean(user.isGDPR());
+            out.writeInt(user.getAge());
+        });
+    }
+
+    /**
+     * Reads a user from the current position of the buffer.
+     */
+    static User decodeUser(ByteBuffer in) {
+        String firstName = readString(in);
+        String lastName = readString(in);
+        Address address = new Address(readString(in), readString(in), readString(in));
+        Gender gender = Gender.values()[in.get()];
+        String username = readString(in);
+        PasswordHash passwordHash = readPasswordHash(in);
+        String email = readString(in);
+        boolean gdpr = in.get() != 0;
+        int age = in.getInt();
+
+        return new User(firstName, lastName, address, gender, username, passwordHash, email, gdpr, age);
+    }
+
+    /**
+     * @return The forms of the user for the book and their type turned into bytes.
+     */
+    static byte[] encodeForms(FormType type, String username, String ISBN, List<UserRegistryForm> forms) {
+        return encode(out -> {
+            out.writeByte(type.ordinal());
+            writeString(out, username);
+            writeString(out, ISBN);
+            out.writeInt(forms.size());
+
+            for (UserRegistryForm form : forms) {
+                writeDate(out, form.getStartDate());
+                writeDate(out, form.getEndDate());
+            }
+        });
+    }
+
+    /**
+     * Reads the type of the forms from the current position of the buffer.
+     */
+    static FormType decodeFormType(ByteBuffer in) {
+        return FormType.values()[in.get()];
+    }
+
+    /**
+     * Reads the username and the ISBN of the forms, after their type, and joins them in a single string.
+     */
+    static String decodeFormKey(FormType type, ByteBuffer in) {
+        return formKey(type, readString(in), readString(in));
+    }
+
+    /**
+     * Reads the forms of a user for a book from the current position of the buffer, after their type.
+     */
+    static List<UserRegistryForm> decodeForms(ByteBuffer in) {
+        String username = readString(in);
+        String ISBN = readString(in);
+        int formsCount = in.getInt();
+        List<UserRegistryForm> forms = new ArrayList<>(formsCount);
+
+        for (int i = 0; i < formsCount; i++) {
+            forms.add(new UserRegistryForm(username, ISBN, readDate(in), readDate(in)));
+        }
+
+        return forms;
+    }
+
+    /**
+     * @return String that identifies a form by its type, username and ISBN.
+     */
+    static String formKey(FormType type, String username, String ISBN) {
+        return type.name() + '\u0000' + username + '\u0000' + ISBN;
+    }
+
+    private static byte[] encode(Encoder encoder) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            encoder.write(out);
+        } catch (IOException exception) {
+            throw new CustomException(exception.getMessage());
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writePasswordHash(DataOutputStream out, PasswordHash passwordHash) throws IOException {
+        if (passwordHash == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] salt = passwordHash.getSalt();
+        byte[] hash = passwordHash.getHash();
+
+        out.writeInt(passwordHash.getIterations());
+        out.writeInt(salt.length);
+        out.write(salt);
+        out.writeInt(hash.length);
+        out.write(hash);
+    }
+
+    private static PasswordHash readPasswordHash(ByteBuffer in) {
+        int iterations = in.getInt();
+
+        if (iterations < 0) {
+            return null;
+        }
+
+        byte[] salt = new byte[in.getInt()];
+        in.get(salt);
+
+        byte[] hash = new byte[in.getInt()];
+        in.get(hash);
+
+        return new PasswordHash(iterations, salt, hash);
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+
+    private static LocalDate readDate(ByteBuffer in) {
+        long epochDay = in.getLong();
+
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private interface Encoder {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
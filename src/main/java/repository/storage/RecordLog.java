@@ -0,0 +1,160 @@
+package repository.storage;
+
+import exception.CustomException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Append-only file of records framed as [int length][int CRC32 of type and payload][byte type][payload],
+ * so a record that was only partly written or was damaged later is found by its checksum.
+ * The records are read back by mapping the file read-only and decoding them straight from the mapping.
+ */
+final class RecordLog {
+
+    static final int RECORD_HEADER_SIZE = Integer.BYTES + Integer.BYTES + Byte.BYTES;
+
+    private final FileChannel channel;
+    private long size;
+
+    /**
+     * Opens the file or creates it if it doesn't exist.
+     * The file is cut off at the first incomplete or damaged record, as left by a crash during a write.
+     *
+     * @param file Path of the file.
+     */
+    RecordLog(Path file) throws IOException {
+        channel = FileChannel.open(file, CREATE, READ, WRITE);
+        size = findEndOfLastRecord();
+        channel.truncate(size);
+    }
+
+    /**
+     * Writes a record at the end of the file.
+     *
+     * @return The position of the record in the file.
+     */
+    synchronized long append(byte type, byte[] payload) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        CRC32 checksum = new CRC32();
+
+        checksum.update(type);
+        checksum.update(payload);
+        record.putInt(payload.length).putInt((int) checksum.getValue()).put(type).put(payload).flip();
+
+        long offset = size;
+
+        try {
+            while (record.hasRemaining()) {
+                size += channel.write(record, size);
+            }
+        } catch (IOException exception) {
+            throw new CustomException("Library storage could not be written: " + exception.getMessage());
+        }
+
+        return offset;
+    }
+
+    /**
+     * Maps the file read-only and passes every record to the visitor.
+     * The records up to the size of the file were checked on open or written since.
+     */
+    void forEachRecord(RecordVisitor visitor) {
+        ByteBuffer mapped = map(size());
+
+        while (mapped.remaining() >= RECORD_HEADER_SIZE) {
+            int offset = mapped.position();
+            int length = mapped.getInt(offset);
+            byte type = mapped.get(offset + RECORD_HEADER_SIZE - Byte.BYTES);
+
+            mapped.position(offset + RECORD_HEADER_SIZE);
+
+            ByteBuffer payload = mapped.slice();
+            payload.limit(length);
+
+            visitor.visit(type, offset, payload);
+
+            mapped.position(offset + RECORD_HEADER_SIZE + length);
+        }
+    }
+
+    /**
+     * @return The amount of bytes of all records in the file.
+     */
+    synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Forces the written records to the disk.
+     */
+    void force() {
+        try {
+            channel.force(false);
+        } catch (IOException exception) {
+            throw new CustomException("Library storage could not be written: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Forces the written records to the disk and closes the file.
+     */
+    void close() throws IOException {
+        channel.force(true);
+        channel.close();
+    }
+
+    /**
+     * Walks the records of the file and checks the checksum of each one.
+     *
+     * @return The position right after the last complete record with a matching checksum.
+     */
+    private long findEndOfLastRecord() throws IOException {
+        ByteBuffer mapped = map(channel.size());
+        int end = 0;
+
+        while (mapped.limit() - end >= RECORD_HEADER_SIZE) {
+            int length = mapped.getInt(end);
+            int storedChecksum = mapped.getInt(end + Integer.BYTES);
+
+            if (length < 0 || (long) end + RECORD_HEADER_SIZE + length > mapped.limit()) {
+                break;
+            }
+
+            ByteBuffer typeAndPayload = mapped.duplicate();
+            CRC32 checksum = new CRC32();
+
+            typeAndPayload.limit(end + RECORD_HEADER_SIZE + length).position(end + RECORD_HEADER_SIZE - Byte.BYTES);
+            checksum.update(typeAndPayload);
+
+            if ((int) checksum.getValue() != storedChecksum) {
+                break;
+            }
+
+            end += RECORD_HEADER_SIZE + length;
+        }
+
+        return end;
+    }
+
+    private ByteBuffer map(long mappedSize) {
+        if (mappedSize > Integer.MAX_VALUE) {
+            throw new CustomException("Library log is larger than 2GB and can't be mapped.");
+        }
+
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, mappedSize);
+        } catch (IOException exception) {
+            throw new CustomException("Library log could not be mapped: " + exception.getMessage());
+        }
+    }
+
+    interface RecordVisitor {
+        void visit(byte type, int offset, ByteBuffer payload);
+    }
+}
@@ -0,0 +1,73 @@
+package repository.storage;
+
+import model.book.Book;
+import model.book.impl.PaperBook;
+import model.common.UserRegistryForm;
+import model.user.impl.User;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the state of the library outside of the heap, so it survives a restart.
+ * The repositories write every change through the engine and read everything back when created.
+ */
+public interface StorageEngine extends AutoCloseable {
+
+    /**
+     * Engine that keeps nothing. Used when the library lives only in memory.
+     */
+    StorageEngine NONE = new NoOpStorageEngine();
+
+    /**
+     * @param book Book added to the library.
+     */
+    void saveBook(Book book);
+
+    /**
+     * @param paperBook Paper book which amount of free copies has changed.
+     */
+    void saveCopies(PaperBook paperBook);
+
+    /**
+     * @param user User registered in the library.
+     */
+    void saveUser(User user);
+
+    /**
+     * Stores all forms of the type the user has for the book, replacing the forms stored for them before.
+     *
+     * @param type     Whether the forms are for borrowed or for offered books.
+     * @param username Unique user identifier.
+     * @param ISBN     Unique book identifier.
+     * @param forms    All forms of the type the user has for the book after the change - possibly none.
+     */
+    void saveForms(FormType type, String username, String ISBN, List<UserRegistryForm> forms);
+
+    /**
+     * Passes all stored books to the consumer in the order they were added.
+     * Paper books come with their last stored amount of free copies.
+     *
+     * @param consumer Action executed for each book.
+     */
+    void loadBooks(Consumer<Book> consumer);
+
+    /**
+     * @param consumer Action executed for each stored user.
+     */
+    void loadUsers(Consumer<User> consumer);
+
+    /**
+     * Passes the stored forms grouped by user and book, oldest first within a group.
+     *
+     * @param consumer Action executed for each stored form together with its type.
+     */
+    void loadForms(BiConsumer<FormType, UserRegistryForm> consumer);
+
+    /**
+     * Releases the files held by the engine.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,152 @@
+package repository.wal;
+
+import exception.CustomException;
+import model.common.UserRegistryForm;
+import repository.storage.FormType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns the records of the loan journal into bytes and back.
+ * Strings are stored as length prefixed UTF-8 and dates as epoch days.
+ */
+final class JournalCodec {
+
+    static final byte FORMS_RECORD = 1;
+    static final byte COPIES_RECORD = 2;
+    static final byte WAITING_RECORD = 3;
+    static final byte NOT_WAITING_RECORD = 4;
+    static final byte BAN_RECORD = 5;
+    static final byte BAN_LIFTED_RECORD = 6;
+    static final byte DAY_RECORD = 7;
+
+    private JournalCodec() {
+    }
+
+    /**
+     * @return The forms of the user for the book turned into bytes.
+     */
+    static byte[] encodeForms(FormType type, String username, String ISBN, List<UserRegistryForm> forms) {
+        return encode(out -> {
+            out.writeByte(type.ordinal());
+            writeString(out, username);
+            writeString(out, ISBN);
+            out.writeInt(forms.size());
+
+            for (UserRegistryForm form : forms) {
+                out.writeLong(form.getStartDate().toEpochDay());
+                out.writeLong(form.getEndDate().toEpochDay());
+            }
+        });
+    }
+
+    /**
+     * @return The free copies of the book turned into bytes.
+     */
+    static byte[] encodeCopies(String ISBN, int freeCopies) {
+        return encode(out -> {
+            writeString(out, ISBN);
+            out.writeInt(freeCopies);
+        });
+    }
+
+    /**
+     * @return The two strings turned into bytes - used for waiting and ban records.
+     */
+    static byte[] encodePair(String first, String second) {
+        return encode(out -> {
+            writeString(out, first);
+            writeString(out, second);
+        });
+    }
+
+    /**
+     * @return The date turned into bytes.
+     */
+    static byte[] encodeDay(LocalDate currentDate) {
+        return encode(out -> out.writeLong(currentDate.toEpochDay()));
+    }
+
+    /**
+     * Reads the payload of a record and passes it to the matching method of the visitor.
+     *
+     * @param type    Type of the record.
+     * @param payload The bytes of the record.
+     * @param visitor Receiver of the record.
+     */
+    static void decode(byte type, ByteBuffer payload, LoanRecordVisitor visitor) {
+        switch (type) {
+            case FORMS_RECORD:
+                FormType formType = FormType.values()[payload.get()];
+                String username = readString(payload);
+                String ISBN = readString(payload);
+                int formsCount = payload.getInt();
+                List<UserRegistryForm> forms = new ArrayList<>(formsCount);
+
+                for (int i = 0; i < formsCount; i++) {
+                    forms.add(new UserRegistryForm(username, ISBN,
+                            LocalDate.ofEpochDay(payload.getLong()), LocalDate.ofEpochDay(payload.getLong())));
+                }
+
+                visitor.onForms(formType, username, ISBN, forms);
+                break;
+            case COPIES_RECORD:
+                visitor.onCopies(readString(payload), payload.getInt());
+                break;
+            case WAITING_RECORD:
+                visitor.onWaiting(readString(payload), readString(payload));
+                break;
+            case NOT_WAITING_RECORD:
+                visitor.onNotWaiting(readString(payload), readString(payload));
+                break;
+            case BAN_RECORD:
+                visitor.onBan(readString(payload), readString(payload));
+                break;
+            case BAN_LIFTED_RECORD:
+                visitor.onBanLifted(readString(payload), readString(payload));
+                break;
+            case DAY_RECORD:
+                visitor.onDay(LocalDate.ofEpochDay(payload.getLong()));
+                break;
+            default:
+                throw new CustomException("Loan journal has a record of unknown type " + type);
+        }
+    }
+
+    private static byte[] encode(Encoder encoder) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            encoder.write(out);
+        } catch (IOException exception) {
+            throw new CustomException(exception.getMessage());
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private interface Encoder {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
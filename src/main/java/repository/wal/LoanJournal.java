@@ -0,0 +1,97 @@
+package repository.wal;
+
+import model.common.UserRegistryForm;
+import repository.storage.FormType;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Log of the changes to the loans, offers, waiting queues and bans of the library.
+ * <p>
+ * The repository writes a record for every change while it holds the locks of the change,
+ * so the records of one book or one user are in the order of the changes.
+ * Before a change is reported to the caller, the repository calls {@link #commit()}
+ * outside of its locks to wait until the records are durable.
+ */
+public interface LoanJournal extends AutoCloseable {
+
+    /**
+     * Journal that keeps nothing. Used when the loans live only in memory.
+     */
+    LoanJournal NONE = new NoOpLoanJournal();
+
+    /**
+     * @param type     Whether the forms are for borrowed or for offered books.
+     * @param username Unique user identifier.
+     * @param ISBN     Unique book identifier.
+     * @param forms    All forms of the type the user has for the book after the change - possibly none.
+     */
+    void logForms(FormType type, String username, String ISBN, List<UserRegistryForm> forms);
+
+    /**
+     * @param ISBN       Unique identifier of a paper book.
+     * @param freeCopies The amount of free copies of the book after the change.
+     */
+    void logCopies(String ISBN, int freeCopies);
+
+    /**
+     * @param ISBN     Unique book identifier.
+     * @param username The user that started waiting for a copy of the book.
+     */
+    void logWaiting(String ISBN, String username);
+
+    /**
+     * @param ISBN     Unique book identifier.
+     * @param username The user that stopped waiting for a copy of the book.
+     */
+    void logNotWaiting(String ISBN, String username);
+
+    /**
+     * @param username Unique user identifier.
+     * @param ISBN     The book the user got a penalty for.
+     */
+    void logBan(String username, String ISBN);
+
+    /**
+     * @param username Unique user identifier.
+     * @param ISBN     The book the penalty of the user was lifted for.
+     */
+    void logBanLifted(String username, String ISBN);
+
+    /**
+     * @param currentDate The new date of the library.
+     */
+    void logDay(LocalDate currentDate);
+
+    /**
+     * Waits until every record written by the calling thread is durable.
+     */
+    void commit();
+
+    /**
+     * Passes the latest snapshot and then every record written after it to the visitor in the order they were written.
+     *
+     * @param visitor Receiver of the records.
+     */
+    void replay(LoanRecordVisitor visitor);
+
+    /**
+     * Stores a snapshot of the loans and then drops the part of the journal that the snapshot makes unnecessary.
+     * <p>
+     * The snapshot starts at the current end of the journal. The state is passed to the visitor
+     * while changes continue, so every part of it is at least as new as the start of the snapshot.
+     * The records written after the start are kept and replayed over the snapshot, which brings
+     * the parts that were read before their last change up to date.
+     *
+     * @param state Writes the state of the loans to the given visitor, one record per form list, book, waiting user and ban.
+     */
+    void snapshot(Consumer<LoanRecordVisitor> state);
+
+    /**
+     * Makes the written records durable and releases the files held by the journal.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,58 @@
+package repository.wal;
+
+import model.common.UserRegistryForm;
+import repository.storage.FormType;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Receives the records of the loan journal while it is replayed, in the order they were written.
+ * Every record holds the state after the change rather than the change itself,
+ * so applying a record that is already reflected in the state leaves the state as it is.
+ */
+public interface LoanRecordVisitor {
+
+    /**
+     * @param type     Whether the forms are for borrowed or for offered books.
+     * @param username Unique user identifier.
+     * @param ISBN     Unique book identifier.
+     * @param forms    All forms of the type the user had for the book after the change - possibly none.
+     */
+    void onForms(FormType type, String username, String ISBN, List<UserRegistryForm> forms);
+
+    /**
+     * @param ISBN       Unique identifier of a paper book.
+     * @param freeCopies The amount of free copies of the book after the change.
+     */
+    void onCopies(String ISBN, int freeCopies);
+
+    /**
+     * @param ISBN     Unique book identifier.
+     * @param username The user waiting for a copy of the book from now on.
+     */
+    void onWaiting(String ISBN, String username);
+
+    /**
+     * @param ISBN     Unique book identifier.
+     * @param username The user that stopped waiting for a copy of the book.
+     */
+    void onNotWaiting(String ISBN, String username);
+
+    /**
+     * @param username Unique user identifier.
+     * @param ISBN     The book the user got a penalty for.
+     */
+    void onBan(String username, String ISBN);
+
+    /**
+     * @param username Unique user identifier.
+     * @param ISBN     The book the penalty of the user was lifted for.
+     */
+    void onBanLifted(String username, String ISBN);
+
+    /**
+     * @param currentDate The date of the library after the change of the day.
+     */
+    void onDay(LocalDate currentDate);
+}
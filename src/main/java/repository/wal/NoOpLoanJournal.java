@@ -0,0 +1,58 @@
+package repository.wal;
+
+import model.common.UserRegistryForm;
+import repository.storage.FormType;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Loan journal that keeps nothing - the loans live only in memory.
+ */
+class NoOpLoanJournal implements LoanJournal {
+
+    @Override
+    public void logForms(FormType type, String username, String ISBN, List<UserRegistryForm> forms) {
+    }
+
+    @Override
+    public void logCopies(String ISBN, int freeCopies) {
+    }
+
+    @Override
+    public void logWaiting(String ISBN, String username) {
+    }
+
+    @Override
+    public void logNotWaiting(String ISBN, String username) {
+    }
+
+    @Override
+    public void logBan(String username, String ISBN) {
+    }
+
+    @Override
+    public void logBanLifted(String username, String ISBN) {
+    }
+
+    @Override
+    public void logDay(LocalDate currentDate) {
+    }
+
+    @Override
+    public void commit() {
+    }
+
+    @Override
+    public void replay(LoanRecordVisitor visitor) {
+    }
+
+    @Override
+    public void snapshot(Consumer<LoanRecordVisitor> state) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,683 @@
+package repository.wal;
+
+import exception.CustomException;
+import model.common.UserRegistryForm;
+import repository.storage.FormType;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Loan journal kept as a write-ahead log in segment files of a directory.
+ * <p>
+ * Every record gets the next log sequence number (LSN) and is framed as
+ * [int length][int CRC32 of type and payload][long LSN][byte type][payload].
+ * Writers only copy their records into an in-memory batch. A single flusher thread writes the batch
+ * to the current segment and forces it to the disk, while the next writers fill the following batch.
+ * A commit waits until the last record of its thread is forced, so all threads that wrote
+ * during one force share the next one - the amount of forces depends on the disk, not on the amount of changes.
+ * <p>
+ * A segment is named after the LSN of its first record. A new segment is started once the current one
+ * grows over the segment size. On start the segments are checked and a torn record at the end
+ * of the last segment, left by a crash during a write, is cut off.
+ * <p>
+ * A snapshot is a file named after its start LSN with one record per part of the state, closed by a checksum.
+ * It is written to a temporary file that is renamed once forced, so a crash leaves either the old or the new snapshot.
+ * After that the older snapshots and every segment whose records all come before the start LSN are deleted,
+ * so replay reads the snapshot and only the records written since it started.
+ */
+public class WriteAheadLog implements LoanJournal {
+
+    static final String SEGMENT_PREFIX = "wal-";
+    static final String SEGMENT_SUFFIX = ".log";
+    static final String SNAPSHOT_PREFIX = "snapshot-";
+    static final String SNAPSHOT_SUFFIX = ".snap";
+    public static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES + Byte.BYTES;
+    private static final int INITIAL_BATCH_CAPACITY = 64 * 1024;
+    private static final int SNAPSHOT_END = -1;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final Condition recordsPending = lock.newCondition();
+    private final Condition recordsDurable = lock.newCondition();
+    private final ThreadLocal<long[]> lastLsnOfThread = ThreadLocal.withInitial(() -> new long[1]);
+    private final Thread flusher;
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BATCH_CAPACITY);
+    private ByteBuffer flushing = ByteBuffer.allocate(INITIAL_BATCH_CAPACITY);
+    private long pendingFirstLsn;
+    private long nextLsn;
+    private volatile long durableLsn;
+    private volatile long syncCount;
+    private volatile IOException failure;
+    private boolean closed;
+    private FileChannel segment;
+    private long segmentBytes;
+
+    /**
+     * Opens the log in the directory with the default segment size.
+     *
+     * @param directory Directory holding the segments of the log.
+     */
+    public WriteAheadLog(Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens the log in the directory or creates it if there are no segments.
+     *
+     * @param directory   Directory holding the segments of the log.
+     * @param segmentSize Size in bytes after which a new segment is started.
+     */
+    public WriteAheadLog(Path directory, long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        try {
+            Files.createDirectories(directory);
+
+            List<Path> segments = segments();
+            long lastLsn = 0;
+
+            for (int i = 0; i < segments.size(); i++) {
+                lastLsn = checkSegment(segments.get(i), lastLsn, i == segments.size() - 1);
+            }
+
+            nextLsn = Math.max(lastLsn + 1, latestSnapshotLsn());
+            durableLsn = nextLsn - 1;
+
+            Path current = segments.isEmpty() ? segmentPath(nextLsn) : segments.get(segments.size() - 1);
+
+            segment = FileChannel.open(current, CREATE, WRITE);
+            segmentBytes = segment.size();
+        } catch (IOException exception) {
+            throw new CustomException("Loan journal could not be opened: " + exception.getMessage());
+        }
+
+        flusher = new Thread(this::flushBatches, "loan-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public void logForms(FormType type, String username, String ISBN, List<UserRegistryForm> forms) {
+        append(JournalCodec.FORMS_RECORD, JournalCodec.encodeForms(type, username, ISBN, forms));
+    }
+
+    @Override
+    public void logCopies(String ISBN, int freeCopies) {
+        append(JournalCodec.COPIES_RECORD, JournalCodec.encodeCopies(ISBN, freeCopies));
+    }
+
+    @Override
+    public void logWaiting(String ISBN, String username) {
+        append(JournalCodec.WAITING_RECORD, JournalCodec.encodePair(ISBN, username));
+    }
+
+    @Override
+    public void logNotWaiting(String ISBN, String username) {
+        append(JournalCodec.NOT_WAITING_RECORD, JournalCodec.encodePair(ISBN, username));
+    }
+
+    @Override
+    public void logBan(String username, String ISBN) {
+        append(JournalCodec.BAN_RECORD, JournalCodec.encodePair(username, ISBN));
+    }
+
+    @Override
+    public void logBanLifted(String username, String ISBN) {
+        append(JournalCodec.BAN_LIFTED_RECORD, JournalCodec.encodePair(username, ISBN));
+    }
+
+    @Override
+    public void logDay(LocalDate currentDate) {
+        append(JournalCodec.DAY_RECORD, JournalCodec.encodeDay(currentDate));
+    }
+
+    @Override
+    public void commit() {
+        long lsn = lastLsnOfThread.get()[0];
+
+        if (lsn <= durableLsn) {
+            return;
+        }
+
+        lock.lock();
+
+        try {
+            while (durableLsn < lsn) {
+                throwIfFailed();
+                recordsDurable.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void replay(LoanRecordVisitor visitor) {
+        try {
+            long snapshotLsn = replaySnapshot(visitor);
+
+            for (Path segmentFile : segments()) {
+                ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(segmentFile));
+
+                while (records.remaining() >= RECORD_HEADER_SIZE) {
+                    int length = records.getInt();
+                    records.getInt();
+                    long lsn = records.getLong();
+                    byte type = records.get();
+
+                    if (lsn >= snapshotLsn) {
+                        ByteBuffer payload = records.slice();
+                        payload.limit(length);
+
+                        JournalCodec.decode(type, payload, visitor);
+                    }
+
+                    records.position(records.position() + length);
+                }
+            }
+        } catch (IOException exception) {
+            throw new CustomException("Loan journal could not be read: " + exception.getMessage());
+        }
+    }
+
+    @Override
+    public void snapshot(Consumer<LoanRecordVisitor> state) {
+        snapshotLock.lock();
+
+        try {
+            long startLsn;
+
+            lock.lock();
+
+            try {
+                startLsn = nextLsn;
+
+                // The records before the start must be on the disk, otherwise a crash would leave a gap before the new records.
+                while (durableLsn < startLsn - 1) {
+                    throwIfFailed();
+                    recordsDurable.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            Path snapshotFile = snapshotPath(startLsn);
+            Path temporaryFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+
+            try (SnapshotWriter writer = new SnapshotWriter(temporaryFile, startLsn)) {
+                state.accept(writer);
+                writer.finish();
+            }
+
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            forceDirectory();
+            deleteCoveredFiles(startLsn);
+        } catch (IOException exception) {
+            throw new CustomException("Loan snapshot could not be written: " + exception.getMessage());
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+
+        try {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            recordsPending.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            flusher.join();
+            segment.force(true);
+            segment.close();
+        } catch (IOException exception) {
+            throw new CustomException("Loan journal could not be closed: " + exception.getMessage());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("Interrupted while closing the loan journal.");
+        }
+    }
+
+    /**
+     * @return The LSN of the last record that is forced to the disk.
+     */
+    public long getDurableLsn() {
+        return durableLsn;
+    }
+
+    /**
+     * @return The amount of times a batch of records was forced to the disk.
+     */
+    public long getSyncCount() {
+        return syncCount;
+    }
+
+    /**
+     * Copies the record into the pending batch and wakes up the flusher.
+     */
+    private void append(byte type, byte[] payload) {
+        CRC32 checksum = new CRC32();
+
+        checksum.update(type);
+        checksum.update(payload);
+
+        long[] lastLsn = lastLsnOfThread.get();
+
+        lock.lock();
+
+        try {
+            if (closed) {
+                throw new CustomException("Loan journal is closed.");
+            }
+
+            throwIfFailed();
+
+            if (pending.position() == 0) {
+                pendingFirstLsn = nextLsn;
+            }
+
+            pending = ensureCapacity(pending, RECORD_HEADER_SIZE + payload.length);
+            pending.putInt(payload.length)
+                    .putInt((int) checksum.getValue())
+                    .putLong(nextLsn)
+                    .put(type)
+                    .put(payload);
+
+            lastLsn[0] = nextLsn++;
+            recordsPending.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Body of the flusher thread. Takes the pending batch, writes and forces it, then wakes up the waiting commits.
+     */
+    private void flushBatches() {
+        while (true) {
+            ByteBuffer batch;
+            long batchFirstLsn;
+            long batchLastLsn;
+
+            lock.lock();
+
+            try {
+                while (pending.position() == 0 && !closed) {
+                    recordsPending.awaitUninterruptibly();
+                }
+
+                if (pending.position() == 0) {
+                    return;
+                }
+
+                batch = pending;
+                pending = flushing;
+                flushing = batch;
+                batchFirstLsn = pendingFirstLsn;
+                batchLastLsn = nextLsn - 1;
+            } finally {
+                lock.unlock();
+            }
+
+            batch.flip();
+
+            try {
+                writeBatch(batch, batchFirstLsn);
+            } catch (IOException exception) {
+                failure = exception;
+            }
+
+            batch.clear();
+
+            lock.lock();
+
+            try {
+                if (failure == null) {
+                    durableLsn = batchLastLsn;
+                    syncCount++;
+                }
+
+                recordsDurable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            if (failure != null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes the batch at the end of the current segment, starting a new segment first if the current one is full.
+     */
+    private void writeBatch(ByteBuffer batch, long batchFirstLsn) throws IOException {
+        if (segmentBytes >= segmentSize) {
+            segment.force(true);
+            segment.close();
+            segment = FileChannel.open(segmentPath(batchFirstLsn), CREATE_NEW, WRITE);
+            segmentBytes = 0;
+        }
+
+        while (batch.hasRemaining()) {
+            segmentBytes += segment.write(batch, segmentBytes);
+        }
+
+        segment.force(false);
+    }
+
+    /**
+     * Checks the records of a segment one by one.
+     * A damaged record in the last segment is the end of the log and the rest of the segment is cut off.
+     *
+     * @param segmentFile The checked segment.
+     * @param lastLsn     The LSN of the last record before the segment.
+     * @param isLast      Whether this is the last segment of the log.
+     * @return The LSN of the last valid record.
+     */
+    private long checkSegment(Path segmentFile, long lastLsn, boolean isLast) throws IOException {
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(segmentFile));
+        int end = 0;
+
+        while (records.remaining() >= RECORD_HEADER_SIZE) {
+            int length = records.getInt(end);
+            int storedChecksum = records.getInt(end + Integer.BYTES);
+            long lsn = records.getLong(end + 2 * Integer.BYTES);
+
+            if (length < 0 || (long) end + RECORD_HEADER_SIZE + length > records.limit()
+                    || (lastLsn != 0 && lsn != lastLsn + 1)) {
+                break;
+            }
+
+            CRC32 checksum = new CRC32();
+
+            checksum.update(records.array(), end + RECORD_HEADER_SIZE - Byte.BYTES, length + Byte.BYTES);
+
+            if ((int) checksum.getValue() != storedChecksum) {
+                break;
+            }
+
+            lastLsn = lsn;
+            end += RECORD_HEADER_SIZE + length;
+            records.position(end);
+        }
+
+        if (end < records.limit()) {
+            if (!isLast) {
+                throw new CustomException("Loan journal segment " + segmentFile.getFileName() + " is damaged.");
+            }
+
+            try (FileChannel channel = FileChannel.open(segmentFile, WRITE)) {
+                channel.truncate(end);
+                channel.force(true);
+            }
+        }
+
+        return lastLsn;
+    }
+
+    /**
+     * Passes the records of the latest snapshot to the visitor.
+     *
+     * @return The start LSN of the snapshot or 0 if there is no snapshot.
+     */
+    private long replaySnapshot(LoanRecordVisitor visitor) throws IOException {
+        List<Path> snapshots = filesWith(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+
+        Path snapshotFile = snapshots.get(snapshots.size() - 1);
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        CRC32 checksum = new CRC32();
+
+        checksum.update(bytes, 0, bytes.length - Long.BYTES);
+
+        ByteBuffer records = ByteBuffer.wrap(bytes);
+
+        if (bytes.length < 2 * Long.BYTES || records.getLong(bytes.length - Long.BYTES) != checksum.getValue()) {
+            throw new CustomException("Loan snapshot " + snapshotFile.getFileName() + " is damaged.");
+        }
+
+        long startLsn = records.getLong();
+        int length;
+
+        while ((length = records.getInt()) != SNAPSHOT_END) {
+            byte type = records.get();
+
+            ByteBuffer payload = records.slice();
+            payload.limit(length);
+
+            JournalCodec.decode(type, payload, visitor);
+
+            records.position(records.position() + length);
+        }
+
+        return startLsn;
+    }
+
+    /**
+     * Deletes the snapshots older than the one starting at the LSN
+     * and the segments that only hold records from before the LSN. The current segment is always kept.
+     */
+    private void deleteCoveredFiles(long startLsn) throws IOException {
+        for (Path snapshotFile : filesWith(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (lsnOf(snapshotFile, SNAPSHOT_PREFIX) < startLsn) {
+                Files.delete(snapshotFile);
+            }
+        }
+
+        List<Path> segments = segments();
+
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (lsnOf(segments.get(i + 1), SEGMENT_PREFIX) > startLsn) {
+                break;
+            }
+
+            Files.delete(segments.get(i));
+        }
+    }
+
+    /**
+     * @return The LSN in the name of a segment or a snapshot.
+     */
+    private static long lsnOf(Path file, String prefix) {
+        String name = file.getFileName().toString();
+
+        return Long.parseLong(name.substring(prefix.length(), prefix.length() + 20));
+    }
+
+    /**
+     * @return The start LSN of the latest snapshot or 0 if there is no snapshot.
+     */
+    private long latestSnapshotLsn() throws IOException {
+        List<Path> snapshots = filesWith(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+
+        return snapshots.isEmpty() ? 0 : lsnOf(snapshots.get(snapshots.size() - 1), SNAPSHOT_PREFIX);
+    }
+
+    /**
+     * Forces the directory, so the renamed snapshot survives a crash. Not every file system allows it.
+     */
+    private void forceDirectory() {
+        try (FileChannel directoryChannel = FileChannel.open(directory, READ)) {
+            directoryChannel.force(true);
+        } catch (IOException exception) {
+            // The rename is still atomic, it may only be lost together with the records after it.
+        }
+    }
+
+    /**
+     * @return The segments of the log in the order of their first LSN.
+     */
+    private List<Path> segments() throws IOException {
+        return filesWith(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * @return The files of the directory with the prefix and the suffix, sorted by name.
+     */
+    private List<Path> filesWith(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(suffix);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @return The path of the segment starting with the LSN. The LSN is padded, so names sort in LSN order.
+     */
+    private Path segmentPath(long firstLsn) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * @return The path of the snapshot starting at the LSN.
+     */
+    private Path snapshotPath(long startLsn) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, startLsn, SNAPSHOT_SUFFIX));
+    }
+
+    /**
+     * @return The buffer or a copy of it with room for the given amount of bytes.
+     */
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+
+        buffer.flip();
+        larger.put(buffer);
+
+        return larger;
+    }
+
+    /**
+     * Rethrows a failure of the flusher to the writers. Called with the lock held.
+     */
+    private void throwIfFailed() {
+        if (failure != null) {
+            throw new CustomException("Loan journal could not be written: " + failure.getMessage());
+        }
+    }
+
+    /**
+     * Writes the records of a snapshot to a file as [int length][byte type][payload],
+     * closed by an end marker and the checksum of everything before it.
+     */
+    private static final class SnapshotWriter implements LoanRecordVisitor, AutoCloseable {
+
+        private final FileOutputStream file;
+        private final CheckedOutputStream checked;
+        private final DataOutputStream out;
+
+        private SnapshotWriter(Path path, long startLsn) throws IOException {
+            file = new FileOutputStream(path.toFile());
+            checked = new CheckedOutputStream(new BufferedOutputStream(file), new CRC32());
+            out = new DataOutputStream(checked);
+
+            out.writeLong(startLsn);
+        }
+
+        @Override
+        public void onForms(FormType type, String username, String ISBN, List<UserRegistryForm> forms) {
+            write(JournalCodec.FORMS_RECORD, JournalCodec.encodeForms(type, username, ISBN, forms));
+        }
+
+        @Override
+        public void onCopies(String ISBN, int freeCopies) {
+            write(JournalCodec.COPIES_RECORD, JournalCodec.encodeCopies(ISBN, freeCopies));
+        }
+
+        @Override
+        public void onWaiting(String ISBN, String username) {
+            write(JournalCodec.WAITING_RECORD, JournalCodec.encodePair(ISBN, username));
+        }
+
+        @Override
+        public void onNotWaiting(String ISBN, String username) {
+            write(JournalCodec.NOT_WAITING_RECORD, JournalCodec.encodePair(ISBN, username));
+        }
+
+        @Override
+        public void onBan(String username, String ISBN) {
+            write(JournalCodec.BAN_RECORD, JournalCodec.encodePair(username, ISBN));
+        }
+
+        @Override
+        public void onBanLifted(String username, String ISBN) {
+            write(JournalCodec.BAN_LIFTED_RECORD, JournalCodec.encodePair(username, ISBN));
+        }
+
+        @Override
+        public void onDay(LocalDate currentDate) {
+            write(JournalCodec.DAY_RECORD, JournalCodec.encodeDay(currentDate));
+        }
+
+        /**
+         * Writes the end marker and the checksum and forces the file to the disk.
+         */
+        private void finish() throws IOException {
+            out.writeInt(SNAPSHOT_END);
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            file.getChannel().force(true);
+        }
+
+        private void write(byte type, byte[] payload) {
+            try {
+                out.writeInt(payload.length);
+                out.writeByte(type);
+                out.write(payload);
+            } catch (IOException exception) {
+                throw new CustomException("Loan snapshot could not be written: " + exception.getMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package validation;
+
+/**
+ * Checks if a string is an ISBN in the format "####-#" used by the library.
+ * Gives the same result as matching the whole string against "^([0-9]){4}-[0-9]"
+ * without compiling a regular expression or creating objects.
+ */
+public final class ISBNValidator {
+
+    private static final int ISBN_LENGTH = 6;
+    private static final int SEPARATOR_POSITION = 4;
+
+    private ISBNValidator() {
+    }
+
+    /**
+     * @param ISBN String to be checked, without surrounding white spaces.
+     * @return true if the string consists of four digits, '-' and one digit, otherwise - false.
+     */
+    public static boolean isValid(CharSequence ISBN) {
+        if (ISBN == null || ISBN.length() != ISBN_LENGTH) {
+            return false;
+        }
+
+        for (int i = 0; i < ISBN_LENGTH; i++) {
+            char symbol = ISBN.charAt(i);
+
+            if (i == SEPARATOR_POSITION ? symbol != '-' : symbol < '0' || symbol > '9') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,113 @@
+package validation;
+
+/**
+ * Checks if a string is a link accepted by the library.
+ * Gives the same result as matching the whole string against
+ * "^(http)(s)*://(www.)*([a-z0-9]+.)+[a-z]+(:[0-9]{1,4})*"
+ * without compiling a regular expression or creating objects.
+ * <p>
+ * After "http", any amount of 's' and "://" the rest of the link is checked in one pass with a set of states
+ * kept in the bits of an int. The "(www.)*" part of the expression does not change which links match,
+ * because "www." is also matched by "[a-z0-9]+.", so it has no states of its own.
+ * As in the expression, "." matches any symbol except line terminators.
+ */
+public final class LinkValidator {
+
+    private static final String SCHEME = "http";
+    private static final String SCHEME_SEPARATOR = "://";
+
+    private static final int SEGMENT_START = 1;
+    private static final int SEGMENT_NAME = 1 << 1;
+    private static final int SEGMENT_END = 1 << 2;
+    private static final int TOP_LEVEL_NAME = 1 << 3;
+    private static final int PORT_START = 1 << 4;
+    private static final int PORT_ONE_DIGIT = 1 << 5;
+    private static final int PORT_TWO_DIGITS = 1 << 6;
+    private static final int PORT_THREE_DIGITS = 1 << 7;
+    private static final int PORT_FOUR_DIGITS = 1 << 8;
+    private static final int PORT_DIGITS = PORT_ONE_DIGIT | PORT_TWO_DIGITS | PORT_THREE_DIGITS;
+    private static final int ACCEPTING = TOP_LEVEL_NAME | PORT_DIGITS | PORT_FOUR_DIGITS;
+
+    private LinkValidator() {
+    }
+
+    /**
+     * @param link String representation of a link.
+     * @return true if the link has the format of the library's links, otherwise - false.
+     */
+    public static boolean isValid(String link) {
+        if (link == null || !link.startsWith(SCHEME)) {
+            return false;
+        }
+
+        int position = SCHEME.length();
+
+        while (position < link.length() && link.charAt(position) == 's') {
+            position++;
+        }
+
+        if (!link.startsWith(SCHEME_SEPARATOR, position)) {
+            return false;
+        }
+
+        position += SCHEME_SEPARATOR.length();
+
+        int states = SEGMENT_START;
+
+        while (position < link.length() && states != 0) {
+            int symbol = link.codePointAt(position);
+
+            states = nextStates(states, symbol);
+            position += Character.charCount(symbol);
+        }
+
+        return (states & ACCEPTING) != 0;
+    }
+
+    /**
+     * @param states Set of the current states.
+     * @param symbol The next symbol of the link.
+     * @return Set of the states after the symbol or 0 if the link can't match anymore.
+     */
+    private static int nextStates(int states, int symbol) {
+        boolean isLetter = symbol >= 'a' && symbol <= 'z';
+        boolean isDigit = symbol >= '0' && symbol <= '9';
+        boolean isLetterOrDigit = isLetter || isDigit;
+        int next = 0;
+
+        if ((states & (SEGMENT_START | SEGMENT_END)) != 0 && isLetterOrDigit) {
+            next |= SEGMENT_NAME;
+        }
+
+        if ((states & SEGMENT_NAME) != 0) {
+            if (isLetterOrDigit) {
+                next |= SEGMENT_NAME;
+            }
+
+            if (!isLineTerminator(symbol)) {
+                next |= SEGMENT_END;
+            }
+        }
+
+        if ((states & (SEGMENT_END | TOP_LEVEL_NAME)) != 0 && isLetter) {
+            next |= TOP_LEVEL_NAME;
+        }
+
+        if ((states & (TOP_LEVEL_NAME | PORT_DIGITS | PORT_FOUR_DIGITS)) != 0 && symbol == ':') {
+            next |= PORT_START;
+        }
+
+        if (isDigit) {
+            next |= (states & (PORT_START | PORT_DIGITS)) << 1;
+        }
+
+        return next;
+    }
+
+    /**
+     * @return true for the symbols that "." in a regular expression does not match.
+     */
+    private static boolean isLineTerminator(int symbol) {
+        return symbol == '\n' || symbol == '\r' || symbol == '\u0085' || symbol == '\u2028' || symbol == '\u2029';
+    }
+}
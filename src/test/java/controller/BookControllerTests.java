@@ -2,10 +2,19 @@ package controller;
 
 import exception.CustomException;
 import model.book.Book;
+import model.book.impl.PaperBook;
+import model.common.BookQuery;
+import model.common.CacheStatistics;
+import model.common.ImportReport;
+import model.common.Page;
 import model.user.impl.Author;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 import repository.UserRepository;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -263,6 +272,220 @@ public class BookControllerTests {
         Assertions.assertEquals("Joan Rolling", authorNameBookThree);
     }
 
+    @DisplayName("Search for book by author full name - second author, fragment across first and last name")
+    @Test
+    void searchByAuthorFullName_ShouldReturnBookOnce_ForInput_SecondAuthorOfBook() {
+        //Given
+        List<Author> authors = Arrays.asList(
+                new Author("Terry", "Pratchett", LocalDate.of(1948, 4, 28), null),
+                new Author("Neil", "Gaiman", LocalDate.of(1960, 11, 10), null));
+
+        bookController.addPaperBook("1234-8", "Good omens",
+                "A book about an angel and a demon who try to stop the end of the world.",
+                authors, FANTASY, Collections.singletonList(STORY), 2);
+
+        //When
+        List<Book> byFullName = bookController.searchBookByAuthorsFullName("il Gai");
+        List<Book> byLastName = bookController.searchBookByAuthorsLastName("a");
+
+        //Then
+        Assertions.assertEquals(1, byFullName.size());
+        Assertions.assertEquals("1234-8", byFullName.get(0).getISBN());
+        Assertions.assertEquals(1, byLastName.stream().filter(book -> book.getISBN().equals("1234-8")).count());
+    }
+
+    @DisplayName("Add a paper book - ISBN with surrounding white spaces is stored trimmed.")
+    @Test
+    void addPaperBook_ShouldTrimISBN_ForInput_ISBNWithWhiteSpaces() {
+        //Given
+        Author terryPratchett = new Author("Terry", "Pratchett", LocalDate.of(1948, 4, 28), null);
+
+        //When
+        bookController.addPaperBook(" 1234-9 ", "Mort", "A book about the apprentice of Death and the trouble he makes.",
+                Collections.singletonList(terryPratchett), FANTASY, Collections.singletonList(STORY), 1);
+        List<Book> foundBooks = bookController.searchBookByAuthorsLastName("Pratchett");
+
+        //Then
+        Assertions.assertEquals(1, foundBooks.size());
+        Assertions.assertEquals("1234-9", foundBooks.get(0).getISBN());
+    }
+
+    @DisplayName("Search with a query - genre, tag, author and title together")
+    @Test
+    void searchBooks_ShouldReturnOneBook_ForInput_AllCriteria() {
+        //Given
+        BookQuery query = BookQuery.builder()
+                .genre(FANTASY)
+                .withTags(STORY)
+                .authorNameContaining("Martin")
+                .titleContaining("thrones")
+                .build();
+
+        //When
+        List<Book> result = bookController.searchBooks(query);
+
+        //Then
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals("1234-5", result.get(0).getISBN());
+    }
+
+    @DisplayName("Search with a query - criteria that no book matches together")
+    @Test
+    void searchBooks_ShouldReturnEmptyList_ForInput_GenreAndTagOfDifferentBooks() {
+        //Given
+        BookQuery query = BookQuery.builder()
+                .genre(SCI_FI)
+                .withTags(STORY)
+                .build();
+
+        //When
+        List<Book> result = bookController.searchBooks(query);
+
+        //Then
+        Assertions.assertEquals(0, result.size());
+    }
+
+    @DisplayName("Search with a query - only available books")
+    @Test
+    void searchBooks_ShouldSkipPaperBooksWithoutCopies_ForInput_OnlyAvailable() {
+        //Given
+        bookController.addPaperBook("1234-8", "Good omens",
+                "A book about an angel and a demon who try to stop the end of the world.",
+                Collections.singletonList(new Author("Neil", "Gaiman", LocalDate.of(1960, 11, 10), null)),
+                FANTASY, Collections.singletonList(STORY), 1);
+
+        PaperBook goodOmens = (PaperBook) bookController.searchByBookTitle("Good omens").get(0);
+        goodOmens.takeCopy();
+
+        BookQuery query = BookQuery.builder()
+                .genre(FANTASY)
+                .onlyAvailable()
+                .build();
+
+        //When
+        List<Book> result = bookController.searchBooks(query);
+
+        //Then
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals("1234-5", result.get(0).getISBN());
+        Assertions.assertEquals("1234-6", result.get(1).getISBN());
+    }
+
+    @DisplayName("Search with a query - null")
+    @Test
+    void searchBooks_ShouldThrowCustomException_ForInput_Null() {
+        //When
+        //Then
+        assertThrows(CustomException.class, () -> bookController.searchBooks(null));
+    }
+
+    @DisplayName("Browse books by title - pages in order of title")
+    @Test
+    void browseBooksByTitle_ShouldReturnPagesInTitleOrder_ForInput_PageSizeTwo() {
+        //Given
+        bookController.addEBook("1234-8", "A brief history of time",
+                "A book about the universe, black holes and the beginning of time.",
+                Collections.singletonList(new Author("Stephen", "Hawking", LocalDate.of(1942, 1, 8), null)),
+                SCIENCE, Collections.singletonList(LEARNING), "http://briefhistory.read.com");
+
+        //When
+        Page<Book> firstPage = bookController.browseBooksByTitle(null, 2);
+        Page<Book> secondPage = bookController.browseBooksByTitle(firstPage.getNextCursor(), 2);
+
+        //Then
+        Assertions.assertEquals(2, firstPage.getItems().size());
+        Assertions.assertEquals("A brief history of time", firstPage.getItems().get(0).getTitle());
+        Assertions.assertEquals("Game of thrones", firstPage.getItems().get(1).getTitle());
+        Assertions.assertTrue(firstPage.hasNextPage());
+        Assertions.assertEquals(2, secondPage.getItems().size());
+        Assertions.assertEquals("Harry Potter", secondPage.getItems().get(0).getTitle());
+        Assertions.assertEquals("The day the earth stood still", secondPage.getItems().get(1).getTitle());
+        Assertions.assertFalse(secondPage.hasNextPage());
+    }
+
+    @DisplayName("Search for book by title - pages of one book")
+    @Test
+    void searchByTitle_ShouldReturnOneBookPerPage_ForInput_PageSizeOne() {
+        //When
+        Page<Book> firstPage = bookController.searchByBookTitle("o", null, 1);
+        Page<Book> secondPage = bookController.searchByBookTitle("o", firstPage.getNextCursor(), 1);
+        Page<Book> thirdPage = bookController.searchByBookTitle("o", secondPage.getNextCursor(), 1);
+
+        //Then
+        Assertions.assertEquals("1234-5", firstPage.getItems().get(0).getISBN());
+        Assertions.assertEquals("1234-6", secondPage.getItems().get(0).getISBN());
+        Assertions.assertEquals("1234-7", thirdPage.getItems().get(0).getISBN());
+        Assertions.assertNull(thirdPage.getNextCursor());
+    }
+
+    @DisplayName("Search for book by title - cursor of the title ordered pages")
+    @Test
+    void searchByTitle_ShouldThrowCustomException_ForInput_CursorOfOtherPaging() {
+        //Given
+        String browseCursor = bookController.browseBooksByTitle(null, 1).getNextCursor();
+
+        //When
+        //Then
+        assertThrows(CustomException.class, () -> bookController.searchByBookTitle("o", browseCursor, 1));
+        assertThrows(CustomException.class, () -> bookController.searchByBookTitle("o", "not a cursor!", 1));
+    }
+
+    @DisplayName("Search for books - cursor of a different query")
+    @Test
+    void searchBooks_ShouldThrowCustomException_ForInput_CursorOfOtherQuery() {
+        //Given
+        String titleCursor = bookController.searchByBookTitle("o", null, 1).getNextCursor();
+        BookQuery fantasyQuery = BookQuery.builder().titleContaining("o").genre(FANTASY).build();
+
+        //When
+        Exception otherTitle = assertThrows(CustomException.class,
+                () -> bookController.searchByBookTitle("h", titleCursor, 1));
+        Exception otherQuery = assertThrows(CustomException.class,
+                () -> bookController.searchBooks(fantasyQuery, titleCursor, 1));
+
+        //Then
+        Assertions.assertEquals("The provided page cursor belongs to a different search.", otherTitle.getMessage());
+        Assertions.assertEquals("The provided page cursor belongs to a different search.", otherQuery.getMessage());
+        Assertions.assertEquals("1234-6", bookController.searchBooks(BookQuery.builder().titleContaining("o").build(),
+                titleCursor, 1).getItems().get(0).getISBN());
+    }
+
+    @DisplayName("Search cache - repeated search should be served from the cache")
+    @Test
+    void searchCache_ShouldCountHit_ForInput_RepeatedGenreSearch() {
+        //Given
+        List<Book> firstResult = bookController.searchByBookGenre("fantasy");
+
+        //When
+        List<Book> secondResult = bookController.searchByBookGenre("FANTASY");
+        CacheStatistics statistics = bookController.getSearchCacheStatistics();
+
+        //Then
+        Assertions.assertSame(firstResult, secondResult);
+        Assertions.assertEquals(1, statistics.getHits());
+        Assertions.assertEquals(1, statistics.getMisses());
+        Assertions.assertEquals(0.5, statistics.getHitRate());
+    }
+
+    @DisplayName("Search cache - adding a book should invalidate the cached results")
+    @Test
+    void searchCache_ShouldReturnNewBook_ForInput_SearchAfterAddingBook() {
+        //Given
+        bookController.searchByBookTags("learning");
+
+        bookController.addEBook("1234-8", "A brief history of time",
+                "A book about the universe, black holes and the beginning of time.",
+                Collections.singletonList(new Author("Stephen", "Hawking", LocalDate.of(1942, 1, 8), null)),
+                SCIENCE, Collections.singletonList(LEARNING), "http://briefhistory.read.com");
+
+        //When
+        List<Book> result = bookController.searchByBookTags("learning");
+
+        //Then
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals(0, bookController.getSearchCacheStatistics().getHits());
+    }
+
     //genre test
 
     @DisplayName("Search for book by genre name - sci_fi")
@@ -277,6 +500,18 @@ public class BookControllerTests {
         Assertions.assertEquals(bookIsbnExpected, result.get(0).getISBN());
     }
 
+    @DisplayName("Search for book by genre name - FANTASY")
+    @Test
+    void searchByGenreName_ShouldReturnBooksInOrderAdded_ForInputUpperCaseGenre() {
+        //When
+        List<Book> result = bookController.searchByBookGenre("FANTASY");
+
+        //Then
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals("1234-5", result.get(0).getISBN());
+        Assertions.assertEquals("1234-6", result.get(1).getISBN());
+    }
+
     @DisplayName("Search for book by genre name - drama")
     @Test
     void searchByGenreName_ShouldReturnEmptyList_ForInputCorrectGenre() {
@@ -383,6 +618,39 @@ public class BookControllerTests {
         Assertions.assertEquals("Game of thrones", titleResult);
     }
 
+    @DisplayName("Search for book by title prefix - beginning of existing title")
+    @Test
+    void searchByTitlePrefix_ShouldReturnOneBook_ForInputBeginningOfExistingTitle() {
+        //When
+        List<Book> result = bookController.searchByBookTitlePrefix("Harry");
+
+        //Then
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals("Harry Potter", result.get(0).getTitle());
+    }
+
+    @DisplayName("Search for book by title prefix - part of existing title that is not its beginning")
+    @Test
+    void searchByTitlePrefix_ShouldReturnEmptyList_ForInputMiddleOfExistingTitle() {
+        //When
+        List<Book> result = bookController.searchByBookTitlePrefix("Potter");
+
+        //Then
+        Assertions.assertEquals(0, result.size());
+    }
+
+    @DisplayName("Search for book by title name - single letter contained in several titles")
+    @Test
+    void searchByTitleName_ShouldReturnBooksInLibraryOrder_ForInputSingleLetter() {
+        //When
+        List<Book> result = bookController.searchByBookTitle("h");
+
+        //Then
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals("Game of thrones", result.get(0).getTitle());
+        Assertions.assertEquals("The day the earth stood still", result.get(1).getTitle());
+    }
+
     // tags
 
     @DisplayName("Search for book by tag names - null")
@@ -459,6 +727,39 @@ public class BookControllerTests {
         Assertions.assertTrue(result.get(1).getBookTags().contains(STORY.name()));
     }
 
+    @DisplayName("Search for book by tag names - any of several tags")
+    @Test
+    void searchByTagNames_ShouldReturnBooksWithAnyTag_ForInput_HobbyAndLearning() {
+        //When
+        List<Book> result = bookController.searchByBookTags("hobby", "LEARNING", "non existing tag");
+
+        //Then
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals("Game of thrones", result.get(0).getTitle());
+        Assertions.assertEquals("The day the earth stood still", result.get(1).getTitle());
+    }
+
+    @DisplayName("Search for book by all tag names - story and children")
+    @Test
+    void searchByAllTagNames_ShouldReturnOneBook_ForInput_StoryAndChildren() {
+        //When
+        List<Book> result = bookController.searchByAllBookTags("story", "children");
+
+        //Then
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals("Harry Potter", result.get(0).getTitle());
+    }
+
+    @DisplayName("Search for book by all tag names - non existing tag")
+    @Test
+    void searchByAllTagNames_ShouldReturnEmptyList_ForInput_StoryAndNonExistingTag() {
+        //When
+        List<Book> result = bookController.searchByAllBookTags("story", "non existing tag");
+
+        //Then
+        Assertions.assertEquals(0, result.size());
+    }
+
     // tests isStringValid method -> isISBNInvalid -> isBookValid -> addPaperBook
 
     @DisplayName("Inverted validation for a string literal, ISBN input - null")
@@ -1208,4 +1509,72 @@ public class BookControllerTests {
         // Then
         Assertions.assertEquals("Book: " + title + " added successfully to library.", message);
     }
+
+    @DisplayName("Import books - valid CSV records should be added and invalid or duplicate records reported.")
+    @Test
+    void importBooks_ShouldAddValidBooksAndReportErrors_ForInput_CsvFile(@TempDir Path directory) throws IOException {
+        //Given
+        Path file = directory.resolve("books.csv");
+        String summary = "A summary that is long enough to pass the validation of the library.";
+
+        Files.write(file, Arrays.asList(
+                "type,isbn,title,summary,authors,genre,tags,copies,readLink,downloadLink",
+                "PAPER,2000-1,\"Dune, the novel\"," + summary + ",Frank Herbert,SCI_FI,STORY;HOBBY,3,,",
+                "EBOOK,2000-2,Foundation," + summary + ",Isaac Asimov,SCI_FI,LEARNING,,http://foundation.read.com,",
+                "PAPER,2000-1,Dune again," + summary + ",Frank Herbert,SCI_FI,STORY,3,,",
+                "PAPER,1234-5,Game of thrones," + summary + ",George Martin,FANTASY,STORY,3,,",
+                "PAPER,2000-3,Short,too short,Frank Herbert,SCI_FI,STORY,3,,",
+                "PAPER,2000-4,Unknown genre," + summary + ",Frank Herbert,POETRY,STORY,3,,"));
+
+        //When
+        ImportReport report = bookController.importBooks(file);
+
+        //Then
+        assertEquals(2, report.getImportedBooks());
+        assertEquals(4, report.getRejectedRecords());
+        assertTrue(report.getErrors().get(0).startsWith("Line 4: "));
+        assertEquals("Line 5: Book with ISBN 1234-5 is already in the library.", report.getErrors().get(1));
+        assertTrue(report.getErrors().get(2).startsWith("Line 6: The provided summary is not valid."));
+        assertTrue(report.getErrors().get(3).startsWith("Line 7: The provided genre/s of the book are not valid."));
+        assertEquals("Dune, the novel", bookController.searchByBookTitle("Dune").get(0).getTitle());
+        assertEquals(3, ((PaperBook) bookController.searchByBookTitle("Dune").get(0)).getCurrentlyAvailable());
+    }
+
+    @DisplayName("Import books - valid JSON lines records should be added and broken lines reported.")
+    @Test
+    void importBooks_ShouldAddValidBooksAndReportErrors_ForInput_JsonLinesFile(@TempDir Path directory) throws IOException {
+        //Given
+        Path file = directory.resolve("books.jsonl");
+        String summary = "A summary that is long enough to pass the validation of the library.";
+
+        Files.write(file, Arrays.asList(
+                "{\"type\": \"DOWNLOADABLE_EBOOK\", \"isbn\": \"3000-1\", \"title\": \"Neuromancer\", " +
+                        "\"summary\": \"" + summary + "\", \"authors\": [\"William Gibson\"], \"genre\": \"SCI_FI\", " +
+                        "\"tags\": [\"STORY\", \"LEARNING\"], \"readLink\": \"http://neuromancer.read.com\", " +
+                        "\"downloadLink\": \"http://neuromancer.download.com\"}",
+                "{\"type\": \"PAPER\", \"isbn\": \"3000-2\", \"title\": \"Broken\"",
+                "{\"type\": \"PAPER\", \"isbn\": \"3000-3\", \"title\": \"No copies\", \"summary\": \"" + summary +
+                        "\", \"authors\": \"Some Author\", \"genre\": \"drama\", \"tags\": \"story\", \"copies\": 0}"));
+
+        //When
+        ImportReport report = bookController.importBooks(file);
+
+        //Then
+        assertEquals(1, report.getImportedBooks());
+        assertEquals(2, report.getRejectedRecords());
+        assertTrue(report.getErrors().get(0).startsWith("Line 2: Invalid JSON."));
+        assertTrue(report.getErrors().get(1).startsWith("Line 3: The provided amount of copies is not valid."));
+        assertEquals(2, bookController.searchByBookTitle("Neuromancer").get(0).getBookTags().size());
+    }
+
+    @DisplayName("Import books - file with unsupported extension should throw exception.")
+    @Test
+    void importBooks_ShouldThrowCustomException_ForInput_UnsupportedFile(@TempDir Path directory) {
+        //Given
+        Path file = directory.resolve("books.xml");
+
+        //When
+        //Then
+        assertThrows(CustomException.class, () -> bookController.importBooks(file));
+    }
 }
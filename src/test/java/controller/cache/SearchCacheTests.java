@@ -0,0 +1,68 @@
+package controller.cache;
+
+import model.common.CacheStatistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchCacheTests {
+
+    SearchCache searchCache = new SearchCache(2, 10);
+
+    @DisplayName("testing get - the least recently used search should be evicted when the cache is full.")
+    @Test
+    void get_ShouldEvictLeastRecentlyUsedSearch_ForInput_ThirdSearch() {
+        //Given
+        searchCache.get("first", 0, ArrayList::new);
+        searchCache.get("second", 0, ArrayList::new);
+        searchCache.get("first", 0, ArrayList::new);
+
+        //When
+        searchCache.get("third", 0, ArrayList::new);
+        searchCache.get("first", 0, ArrayList::new);
+        searchCache.get("second", 0, ArrayList::new);
+        CacheStatistics statistics = searchCache.getStatistics();
+
+        //Then
+        assertEquals(2, statistics.getHits());
+        assertEquals(4, statistics.getMisses());
+        assertEquals(2, statistics.getEvictions());
+        assertEquals(2, statistics.getSize());
+    }
+
+    @DisplayName("testing get - a search computed for an older generation of the catalog should be computed again.")
+    @Test
+    void get_ShouldComputeSearchAgain_ForInput_NewerGeneration() {
+        //Given
+        searchCache.get("search", 0, ArrayList::new);
+
+        //When
+        searchCache.get("search", 1, ArrayList::new);
+        searchCache.get("search", 1, ArrayList::new);
+        CacheStatistics statistics = searchCache.getStatistics();
+
+        //Then
+        assertEquals(1, statistics.getHits());
+        assertEquals(2, statistics.getMisses());
+        assertEquals(1, statistics.getSize());
+    }
+
+    @DisplayName("testing get - results larger than the limit should not be kept.")
+    @Test
+    void get_ShouldNotKeepResult_ForInput_ResultLargerThanLimit() {
+        //Given
+        searchCache.get("search", 0, () -> new ArrayList<>(Collections.nCopies(11, null)));
+
+        //When
+        searchCache.get("search", 0, ArrayList::new);
+        CacheStatistics statistics = searchCache.getStatistics();
+
+        //Then
+        assertEquals(0, statistics.getHits());
+        assertEquals(2, statistics.getMisses());
+    }
+}
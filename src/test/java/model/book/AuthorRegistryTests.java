@@ -0,0 +1,113 @@
+package model.book;
+
+import enums.BookTags;
+import model.book.impl.PaperBook;
+import model.user.impl.Author;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import repository.BookRepository;
+import repository.UserRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static enums.BookGenre.FANTASY;
+import static enums.BookTags.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuthorRegistryTests {
+
+    UserRepository userRepository = new UserRepository();
+    BookRepository bookRepository = new BookRepository(userRepository);
+
+    @DisplayName("testing canonical - equal authors should share a copy that keeps a later date of death.")
+    @Test
+    void canonical_ShouldReturnSharedAuthor_ForInput_EqualAuthors() {
+        //Given
+        AuthorRegistry registry = new AuthorRegistry();
+        Author first = new Author("George", "Martin", LocalDate.of(1948, 9, 20), null);
+        Author second = new Author("George", "Martin", LocalDate.of(1948, 9, 20), LocalDate.of(2100, 1, 1));
+        Author namesake = new Author("George", "Martin", LocalDate.of(1990, 1, 1), null);
+
+        //When
+        List<Author> firstBook = registry.canonical(Collections.singletonList(first));
+        List<Author> secondBook = registry.canonical(new ArrayList<>(Collections.singletonList(second)));
+
+        //Then
+        assertNotSame(first, firstBook.get(0));
+        assertSame(firstBook.get(0), registry.canonical(second));
+        assertNotSame(firstBook.get(0), registry.canonical(namesake));
+        assertSame(firstBook, secondBook);
+        assertEquals(LocalDate.of(2100, 1, 1), firstBook.get(0).getDateOfDeath());
+        assertNull(first.getDateOfDeath());
+        assertEquals(2, registry.size());
+    }
+
+    @DisplayName("testing canonical - null authors should be kept in the shared list.")
+    @Test
+    void canonical_ShouldKeepNullAuthors_ForInput_ListWithNull() {
+        //Given
+        AuthorRegistry registry = new AuthorRegistry();
+        Author author = new Author("George", "Martin", LocalDate.of(1948, 9, 20), null);
+
+        //When
+        List<Author> sharedAuthors = registry.canonical(Arrays.asList(author, null));
+
+        //Then
+        assertEquals(2, sharedAuthors.size());
+        assertNull(sharedAuthors.get(1));
+        assertSame(sharedAuthors, registry.canonical(Arrays.asList(author, null)));
+        assertEquals(1, registry.size());
+    }
+
+    @DisplayName("testing the catalog - a book with a null author should be added and found by its other author.")
+    @Test
+    void addBookToLibrary_ShouldAddBook_ForInput_NullAuthor() {
+        //Given
+        Author author = new Author("George", "Martin", LocalDate.of(1948, 9, 20), null);
+        PaperBook book = new PaperBook("1234-5", "Title", "Summary", Arrays.asList(author, null), FANTASY,
+                Collections.singletonList(STORY), 1, 1);
+
+        //When
+        bookRepository.addBookToLibrary(book);
+
+        //Then
+        assertEquals(Collections.singletonList(book), bookRepository.findBooksByAuthorsLastName("Mar"));
+        assertNull(book.getAuthors().get(1));
+    }
+
+    @DisplayName("testing the catalog - books added to the library should share authors, author lists and tag lists.")
+    @Test
+    void addBooksToLibrary_ShouldShareAuthorsAndTags_ForInput_BooksOfFewAuthors() {
+        //Given
+        int bookCount = 2_000;
+        List<Book> books = new ArrayList<>();
+
+        for (int book = 0; book < bookCount; book++) {
+            // Every book gets its own author objects and tag list, as the importers create them.
+            Author author = new Author("Author" + (book % 20), "Surname" + (book % 20), LocalDate.of(1950, 1, 1), null);
+            List<BookTags> tags = new ArrayList<>(Arrays.asList(STORY, book % 2 == 0 ? HOBBY : CHILDREN));
+
+            books.add(new PaperBook(String.format("%04d-%d", book / 10, book % 10), "Title " + book, "Summary " + book,
+                    new ArrayList<>(Collections.singletonList(author)), FANTASY, tags, 1, 1));
+        }
+
+        //When
+        bookRepository.addBooksToLibrary(books);
+
+        List<Book> addedBooks = bookRepository.getAllBooksInLibrary();
+
+        //Then
+        assertEquals(bookCount, addedBooks.size());
+        assertEquals(20, bookRepository.getAuthorsSize());
+        assertSame(addedBooks.get(0).getAuthors().get(0), addedBooks.get(20).getAuthors().get(0));
+        assertSame(addedBooks.get(0).getAuthors(), addedBooks.get(20).getAuthors());
+        assertNotSame(addedBooks.get(0).getAuthors(), addedBooks.get(1).getAuthors());
+        assertSame(addedBooks.get(0).getTags(), addedBooks.get(2).getTags());
+        assertSame(addedBooks.get(0).getBookTags(), addedBooks.get(2).getBookTags());
+        assertNotSame(addedBooks.get(0).getTags(), addedBooks.get(1).getTags());
+    }
+}
@@ -0,0 +1,62 @@
+package model.book;
+
+import enums.BookTags;
+import model.book.impl.EBook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static enums.BookGenre.FANTASY;
+import static enums.BookTags.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TagRegistryTests {
+
+    @DisplayName("testing share - books with equal tags should share them only within the same registry.")
+    @Test
+    void share_ShouldShareTags_ForInput_BooksOfTheSameRegistry() {
+        //Given
+        TagRegistry firstLibrary = new TagRegistry();
+        TagRegistry secondLibrary = new TagRegistry();
+        Book first = createBook("1234-5", new ArrayList<>(Arrays.asList(STORY, HOBBY)));
+        Book second = createBook("1234-6", new ArrayList<>(Arrays.asList(STORY, HOBBY)));
+        Book third = createBook("1234-7", new ArrayList<>(Arrays.asList(STORY, HOBBY)));
+
+        //When
+        firstLibrary.share(first);
+        firstLibrary.share(second);
+        secondLibrary.share(third);
+
+        //Then
+        assertSame(first.getTags(), second.getTags());
+        assertSame(first.getBookTags(), second.getBookTags());
+        assertNotSame(first.getTags(), third.getTags());
+        assertEquals(first.getTags(), third.getTags());
+        assertEquals(1, firstLibrary.size());
+    }
+
+    @DisplayName("testing the tags - a book should keep its own copy of the tags until it is shared.")
+    @Test
+    void getTags_ShouldNotChange_ForInput_ChangedListOfTheCaller() {
+        //Given
+        List<BookTags> tags = new ArrayList<>(Collections.singletonList(STORY));
+        Book book = createBook("1234-5", tags);
+
+        //When
+        tags.add(CHILDREN);
+
+        //Then
+        assertEquals(Collections.singletonList(STORY), book.getTags());
+        assertEquals(Collections.singletonList("STORY"), book.getBookTags());
+        assertThrows(UnsupportedOperationException.class, () -> book.getTags().add(HOBBY));
+    }
+
+    private Book createBook(String ISBN, List<BookTags> tags) {
+        return new EBook(ISBN, "Title", "Summary", Collections.emptyList(), FANTASY, tags,
+                "http://book.online.read.com");
+    }
+}
@@ -0,0 +1,123 @@
+package model.common;
+
+import model.book.Book;
+import model.book.impl.PaperBook;
+import model.user.impl.Author;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import repository.history.OffHeapHistoryBlockStore;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static enums.BookGenre.FANTASY;
+import static enums.BookTags.STORY;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistoryTests {
+
+    @TempDir
+    Path spillDirectory;
+
+    Author georgeMartin = new Author("George", "Martin", LocalDate.of(1965, 1, 1), null);
+    LocalDate firstBorrowDate = LocalDate.of(2020, 1, 1);
+    List<Book> catalog = createCatalog(10);
+
+    @DisplayName("testing getUsedBooks - the same book objects should be returned in the order they were used.")
+    @Test
+    void getUsedBooks_ShouldReturnSameBooks_ForInput_SeveralBlocks() {
+        //Given
+        History history = createHistory(200);
+
+        //When
+        List<Book> usedBooks = history.getUsedBooks();
+
+        //Then
+        assertEquals(200, usedBooks.size());
+        for (int entry = 0; entry < 200; entry++) {
+            assertSame(catalog.get(entry % catalog.size()), usedBooks.get(entry));
+        }
+    }
+
+    @DisplayName("testing getEntries - a page in the middle of the history should hold the entries at its positions.")
+    @Test
+    void getEntries_ShouldReturnPage_ForInput_OffsetInsideBlock() {
+        //Given
+        History history = createHistory(200);
+
+        //When
+        List<HistoryEntry> page = history.getEntries(60, 10);
+        List<HistoryEntry> lastPage = history.getEntries(195, 10);
+
+        //Then
+        assertEquals(10, page.size());
+        assertSame(catalog.get(0), page.get(0).getBook());
+        assertEquals(firstBorrowDate.plusDays(60), page.get(0).getBorrowDate());
+        assertEquals(firstBorrowDate.plusDays(69), page.get(9).getBorrowDate());
+        assertEquals(5, lastPage.size());
+        assertTrue(history.getEntries(200, 10).isEmpty());
+    }
+
+    @DisplayName("testing getEntriesBetween - only the entries borrowed in the range should be returned.")
+    @Test
+    void getEntriesBetween_ShouldReturnEntriesInRange_ForInput_DateRange() {
+        //Given
+        History history = createHistory(200);
+
+        //When
+        List<HistoryEntry> entries = history.getEntriesBetween(firstBorrowDate.plusDays(100), firstBorrowDate.plusDays(129));
+
+        //Then
+        assertEquals(30, entries.size());
+        assertEquals(firstBorrowDate.plusDays(100), entries.get(0).getBorrowDate());
+        assertEquals(firstBorrowDate.plusDays(129), entries.get(29).getBorrowDate());
+    }
+
+    @DisplayName("testing moveBlocksTo - the history should read the same after its blocks move to a spill file.")
+    @Test
+    void moveBlocksTo_ShouldKeepEntries_ForInput_SpillFileStore() {
+        //Given
+        History history = createHistory(150);
+        List<Book> usedBooksBefore = history.getUsedBooks();
+
+        //When
+        try (OffHeapHistoryBlockStore store = new OffHeapHistoryBlockStore(spillDirectory.resolve("history.spill"))) {
+            history.moveBlocksTo(store);
+
+            for (int entry = 150; entry < 300; entry++) {
+                history.addUsedBook(entry % catalog.size(), firstBorrowDate.plusDays(entry), catalog::get);
+            }
+
+            //Then
+            assertTrue(store.getSpilledBytes() > 0);
+            assertEquals(usedBooksBefore, history.getUsedBooks().subList(0, 150));
+            assertEquals(300, history.size());
+            assertEquals(firstBorrowDate.plusDays(299), history.getEntries(299, 1).get(0).getBorrowDate());
+        }
+    }
+
+    private History createHistory(int entries) {
+        History history = new History();
+
+        for (int entry = 0; entry < entries; entry++) {
+            history.addUsedBook(entry % catalog.size(), firstBorrowDate.plusDays(entry), catalog::get);
+        }
+
+        return history;
+    }
+
+    private List<Book> createCatalog(int books) {
+        List<Book> createdBooks = new ArrayList<>();
+
+        for (int book = 0; book < books; book++) {
+            createdBooks.add(new PaperBook("1234-" + book, "Book " + book, "Summary.",
+                    Collections.singletonList(georgeMartin), FANTASY, Collections.singletonList(STORY), 1, 1));
+        }
+
+        return createdBooks;
+    }
+}
@@ -0,0 +1,202 @@
+package repository;
+
+import model.book.Book;
+import model.book.impl.PaperBook;
+import model.common.Address;
+import model.user.impl.Author;
+import model.user.impl.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static enums.BookGenre.FANTASY;
+import static enums.BookTags.STORY;
+import static enums.Gender.MALE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookRepositoryConcurrencyTests {
+
+    private static final int THREADS = 16;
+    private static final String OFFERED_MESSAGE = "You are first in line and there is available book in stock. " +
+            "You have 3 days to borrow the book.";
+
+    UserRepository userRepository = new UserRepository();
+    BookRepository bookRepository = new BookRepository(userRepository);
+
+    Author georgeMartin = new Author("George", "Martin", LocalDate.of(1965, 1, 1), null);
+    Address userAddress = new Address("Bulgaria", "Haskovo", "Orfej 16");
+
+    @DisplayName("concurrent requests for the same book should hand out exactly as many offers as there are copies.")
+    @Test
+    void requestBook_ShouldNeverHandOutMoreCopiesThanAvailable_ForConcurrentRequests() throws Exception {
+        //Given
+        int copies = 10;
+        int usersCount = 400;
+
+        PaperBook book = createPaperBook("1000-0", copies);
+        bookRepository.addBookToLibrary(book);
+
+        List<String> usernames = registerUsers(usersCount);
+
+        AtomicInteger offers = new AtomicInteger();
+
+        //When
+        runConcurrently(usersCount, index -> {
+            if (OFFERED_MESSAGE.equals(bookRepository.requestBook(usernames.get(index), book.getISBN()))) {
+                offers.incrementAndGet();
+            }
+        });
+
+        //Then
+        assertEquals(copies, offers.get());
+        assertEquals(0, book.getCurrentlyAvailable());
+        assertEquals(usersCount - copies, bookRepository.getRequestedBooksSize());
+    }
+
+    @DisplayName("concurrent request, borrow and return cycles should never lose or double allocate a copy.")
+    @Test
+    void requestBorrowReturn_ShouldKeepAllCopies_ForConcurrentCycles() throws Exception {
+        //Given
+        int booksCount = 8;
+        int copies = 3;
+        int usersCount = 64;
+        int cyclesPerUser = 200;
+
+        List<PaperBook> paperBooks = new ArrayList<>();
+        Map<String, AtomicInteger> copiesOut = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < booksCount; i++) {
+            PaperBook book = createPaperBook("200" + i + "-0", copies);
+
+            paperBooks.add(book);
+            copiesOut.put(book.getISBN(), new AtomicInteger());
+            bookRepository.addBookToLibrary(book);
+        }
+
+        List<String> usernames = registerUsers(usersCount);
+
+        AtomicInteger overAllocations = new AtomicInteger();
+
+        //When
+        runConcurrently(usersCount, index -> {
+            String username = usernames.get(index);
+            Random random = new Random(index);
+
+            for (int cycle = 0; cycle < cyclesPerUser; cycle++) {
+                String bookISBN = paperBooks.get(random.nextInt(booksCount)).getISBN();
+
+                if (!OFFERED_MESSAGE.equals(bookRepository.requestBook(username, bookISBN))) {
+                    continue;
+                }
+
+                if (copiesOut.get(bookISBN).incrementAndGet() > copies) {
+                    overAllocations.incrementAndGet();
+                }
+
+                bookRepository.borrowBook(username, bookISBN);
+
+                copiesOut.get(bookISBN).decrementAndGet();
+
+                bookRepository.returnBookToLibrary(username, bookISBN);
+            }
+        });
+
+        //Then
+        assertEquals(0, overAllocations.get());
+        assertEquals(0, bookRepository.getBorrowedBooksSize());
+        assertEquals(0, bookRepository.getOfferedBooksSize());
+
+        for (PaperBook book : paperBooks) {
+            assertEquals(copies, book.getCurrentlyAvailable());
+        }
+    }
+
+    @DisplayName("snapshots of the catalog taken while books are added should be complete and should not change.")
+    @Test
+    void getAllBooksInLibrary_ShouldReturnStableSnapshots_WhileBooksAreAdded() throws Exception {
+        //Given
+        int booksCount = 2_000;
+        AtomicInteger brokenSnapshots = new AtomicInteger();
+
+        //When
+        runConcurrently(booksCount * 2, index -> {
+            if (index % 2 == 0) {
+                bookRepository.addBookToLibrary(createPaperBook("300" + index + "-0", 1));
+                return;
+            }
+
+            List<Book> snapshot = bookRepository.getAllBooksInLibrary();
+            int size = snapshot.size();
+            int visited = 0;
+
+            for (Book book : snapshot) {
+                if (book == null) {
+                    brokenSnapshots.incrementAndGet();
+                }
+
+                visited++;
+            }
+
+            if (visited != size || snapshot.size() != size) {
+                brokenSnapshots.incrementAndGet();
+            }
+        });
+
+        //Then
+        assertEquals(0, brokenSnapshots.get());
+        assertEquals(booksCount, bookRepository.getAllBooksInLibrary().size());
+    }
+
+    private PaperBook createPaperBook(String ISBN, int copies) {
+        return new PaperBook(ISBN, "Game of thrones " + ISBN,
+                "Very interesting book about internal and  external royal family affairs.",
+                Collections.singletonList(georgeMartin), FANTASY, Collections.singletonList(STORY),
+                copies, copies);
+    }
+
+    private List<String> registerUsers(int count) {
+        List<String> usernames = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            String username = "concurrentUser" + i;
+
+            userRepository.addUser(new User("Simeon", "Atanasov", userAddress, MALE,
+                    username, "validPassword", "valid@email.address", true, 33));
+            usernames.add(username);
+        }
+
+        return usernames;
+    }
+
+    private void runConcurrently(int tasks, IntTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run(index);
+                return null;
+            }));
+        }
+
+        start.countDown();
+
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+
+        executor.shutdown();
+    }
+
+    private interface IntTask {
+        void run(int index);
+    }
+}
@@ -1,6 +1,7 @@
 package repository;
 
 import exception.CustomException;
+import model.book.Book;
 import model.book.impl.DownloadableEBook;
 import model.book.impl.EBook;
 import model.book.impl.PaperBook;
@@ -635,6 +636,32 @@ public class BookRepositoryTests {
         assertEquals(expectedMessage, actualMessage);
     }
 
+    @DisplayName("method requestBook should not return banned message after the overdue book is returned.")
+    @Test
+    void requestBook_ShouldNotReturnBannedMessage_ForOverdueBookReturned() {
+        //Given
+        userRepository.addUser(validUser);
+        bookRepository.addBookToLibrary(gameOfThrones);
+
+        String username = validUser.getUsername();
+        String bookIsbn = gameOfThrones.getISBN();
+
+        bookRepository.requestBook(username, bookIsbn);
+        bookRepository.borrowBook(username, bookIsbn);
+
+        bookRepository.changeDay(15);
+        bookRepository.changeDay(16);
+
+        String returnMessage = bookRepository.returnBookToLibrary(username, bookIsbn);
+
+        //When
+        String actualMessage = bookRepository.requestBook(username, bookIsbn);
+
+        //Then
+        assertTrue(returnMessage.endsWith("Penalty removed."));
+        assertNotEquals("User " + username + " is banned form the library for delayed books!", actualMessage);
+    }
+
     @DisplayName("request a book from the repository with invalid Isbn - null - Throws CustomException")
     @Test
     void requestBook_ShouldThrowCustomException_Input_ISBNNull() {
@@ -719,6 +746,189 @@ public class BookRepositoryTests {
         assertEquals(expectedMessage, actualMessage);
     }
 
+    @DisplayName("request a book twice from the repository with no copies left - " +
+            "second user should be second in line and first user should keep his place.")
+    @Test
+    void requestBook_ShouldReturnSecondPlaceInLine_ForSecondUserRequestingBook() {
+        //Given
+        gameOfThrones.setCurrentlyAvailable(0);
+        bookRepository.addBookToLibrary(gameOfThrones);
+
+        User secondUser = new User("Ivan", "Petrov", userAddress, MALE,
+                "secondUsername", "validPassword", "second@email.address",
+                true, 40);
+
+        userRepository.addUser(validUser);
+        userRepository.addUser(secondUser);
+
+        String bookISBN = gameOfThrones.getISBN();
+
+        bookRepository.requestBook(validUser.getUsername(), bookISBN);
+
+        String expectedMessage = "You are 2 in line for that book.\n" +
+                "Estimated date the book will become available: " + LocalDate.now().plusDays(42).toString();
+
+        //When
+        String actualMessage = bookRepository.requestBook(secondUser.getUsername(), bookISBN);
+
+        //Then
+        assertEquals(expectedMessage, actualMessage);
+        assertEquals(0, bookRepository.getPlaceInQueue(validUser.getUsername(), bookISBN));
+        assertEquals(2, bookRepository.getRequestedBooksSize());
+    }
+
+    @DisplayName("returned copy should be offered only to the first user in line on the next day.")
+    @Test
+    void changeDay_ShouldOfferReturnedCopyToFirstUserInLine() {
+        //Given
+        gameOfThrones.setCurrentlyAvailable(1);
+        bookRepository.addBookToLibrary(gameOfThrones);
+
+        User secondUser = new User("Ivan", "Petrov", userAddress, MALE,
+                "secondUsername", "validPassword", "second@email.address",
+                true, 40);
+        User thirdUser = new User("Maria", "Ivanova", userAddress, MALE,
+                "thirdUsername", "validPassword", "third@email.address",
+                true, 40);
+
+        userRepository.addUser(validUser);
+        userRepository.addUser(secondUser);
+        userRepository.addUser(thirdUser);
+
+        String bookISBN = gameOfThrones.getISBN();
+
+        bookRepository.requestBook(validUser.getUsername(), bookISBN);
+        bookRepository.borrowBook(validUser.getUsername(), bookISBN);
+        bookRepository.requestBook(secondUser.getUsername(), bookISBN);
+        bookRepository.requestBook(thirdUser.getUsername(), bookISBN);
+
+        bookRepository.returnBookToLibrary(validUser.getUsername(), bookISBN);
+
+        //When
+        bookRepository.changeDay(4);
+
+        //Then
+        assertEquals(0, gameOfThrones.getCurrentlyAvailable());
+        assertEquals(1, bookRepository.getRequestedBooksSize());
+        assertEquals(0, bookRepository.getPlaceInQueue(thirdUser.getUsername(), bookISBN));
+        assertEquals(-1, bookRepository.getPlaceInQueue(secondUser.getUsername(), bookISBN));
+    }
+
+    @DisplayName("offer not borrowed in 3 days should expire and the copy should return to the library.")
+    @Test
+    void changeDay_ShouldExpireOfferAndReturnCopy_ForOfferNotBorrowedInTime() {
+        //Given
+        bookRepository.addBookToLibrary(gameOfThrones);
+        userRepository.addUser(validUser);
+
+        bookRepository.requestBook(validUser.getUsername(), gameOfThrones.getISBN());
+
+        //When
+        bookRepository.changeDay(4);
+
+        //Then
+        assertEquals(5, gameOfThrones.getCurrentlyAvailable());
+        assertEquals(0, bookRepository.getOfferedBooksSize());
+    }
+
+    @DisplayName("borrowed book should not make the user banned before its postponed due date.")
+    @Test
+    void changeDay_ShouldNotBanUser_ForPostponedDueDateNotPassed() {
+        //Given
+        bookRepository.addBookToLibrary(gameOfThrones);
+        userRepository.addUser(validUser);
+
+        String username = validUser.getUsername();
+        String bookIsbn = gameOfThrones.getISBN();
+
+        bookRepository.requestBook(username, bookIsbn);
+        bookRepository.borrowBook(username, bookIsbn);
+        bookRepository.postponeDueDateWithSevenDays(username, bookIsbn);
+
+        //When
+        bookRepository.changeDay(15);
+
+        //Then
+        assertEquals("You are first in line and there is available book in stock. " +
+                "You have 3 days to borrow the book.", bookRepository.requestBook(username, bookIsbn));
+    }
+
+    @DisplayName("borrow forms of the user should be found by username and ISBN " +
+            "and the oldest copy should be returned first.")
+    @Test
+    void getBorrowDueDate_ShouldFindOldestLoan_ForUserHoldingTwoCopies() {
+        //Given
+        bookRepository.addBookToLibrary(gameOfThrones);
+        userRepository.addUser(validUser);
+
+        String username = validUser.getUsername();
+        String bookIsbn = gameOfThrones.getISBN();
+
+        bookRepository.requestBook(username, bookIsbn);
+        bookRepository.borrowBook(username, bookIsbn);
+        bookRepository.postponeDueDateWithSevenDays(username, bookIsbn);
+        bookRepository.requestBook(username, bookIsbn);
+        bookRepository.borrowBook(username, bookIsbn);
+
+        List<UserRegistryForm> loans = bookRepository.getBorrowFormsOf(username);
+        LocalDate postponedDueDate = loans.get(0).getEndDate();
+
+        //When
+        LocalDate dueDateBeforeReturn = bookRepository.getBorrowDueDate(username, bookIsbn);
+        bookRepository.returnBookToLibrary(username, bookIsbn);
+        LocalDate dueDateAfterReturn = bookRepository.getBorrowDueDate(username, bookIsbn);
+
+        //Then
+        assertEquals(2, loans.size());
+        assertEquals(postponedDueDate, dueDateBeforeReturn);
+        assertEquals(loans.get(1).getEndDate(), dueDateAfterReturn);
+        assertEquals(1, bookRepository.getBorrowFormsOf(username).size());
+        assertEquals(1, bookRepository.getBorrowedBooksSize());
+        assertTrue(bookRepository.getOfferFormsOf(username).isEmpty());
+    }
+
+    @DisplayName("due date of a book the user has not borrowed should throw exception.")
+    @Test
+    void getBorrowDueDate_ShouldThrowException_ForBookNotBorrowed() {
+        //Given
+        bookRepository.addBookToLibrary(gameOfThrones);
+        userRepository.addUser(validUser);
+
+        String username = validUser.getUsername();
+        String bookIsbn = gameOfThrones.getISBN();
+
+        bookRepository.requestBook(username, bookIsbn);
+
+        //When
+        CustomException exception = assertThrows(CustomException.class,
+                () -> bookRepository.getBorrowDueDate(username, bookIsbn));
+
+        //Then
+        assertEquals("No such book for this user.", exception.getMessage());
+        assertEquals(1, bookRepository.getOfferFormsOf(username).size());
+    }
+
+    @DisplayName("method addBookToUserHistory should record the borrow date and resolve the book by its id.")
+    @Test
+    void addBookToUserHistory_ShouldKeepBorrowDate_AndResolveBookById() {
+        //Given
+        userRepository.addUser(validUser);
+        bookRepository.addBookToLibrary(gameOfThrones);
+
+        String username = validUser.getUsername();
+        String bookIsbn = gameOfThrones.getISBN();
+
+        bookRepository.requestBook(username, bookIsbn);
+
+        //When
+        bookRepository.borrowBook(username, bookIsbn);
+
+        //Then
+        assertEquals(LocalDate.now(), validUser.getHistory().getEntries(0, 1).get(0).getBorrowDate());
+        assertSame(gameOfThrones, bookRepository.getBookById(0));
+        assertThrows(CustomException.class, () -> bookRepository.getBookById(1));
+    }
+
     @DisplayName("request a book from the repository with valid input and get success message " +
             "for completed request.")
     @Test
@@ -935,6 +1145,37 @@ public class BookRepositoryTests {
         assertEquals(1, bookRepository.getAllBooksInLibrary().size());
     }
 
+    @DisplayName("snapshot of the library should not see books added after it and should not be modifiable.")
+    @Test
+    void getAllBooksInLibrary_ShouldReturnUnmodifiableSnapshot() {
+        //Given
+        bookRepository.addBookToLibrary(gameOfThrones);
+
+        List<Book> snapshot = bookRepository.getAllBooksInLibrary();
+
+        //When
+        bookRepository.addBookToLibrary(harryPotter);
+
+        //Then
+        assertEquals(Collections.singletonList(gameOfThrones), snapshot);
+        assertEquals(2, bookRepository.getAllBooksInLibrary().size());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(dayEarthStoodStill));
+    }
+
+    @DisplayName("adding a batch of books should add the new books and return the ones already in the library.")
+    @Test
+    void addBooksToLibrary_ShouldReturnDuplicateBooks_ForInput_BookAlreadyInLibrary() {
+        //Given
+        bookRepository.addBookToLibrary(gameOfThrones);
+
+        //When
+        List<Book> duplicateBooks = bookRepository.addBooksToLibrary(Arrays.asList(harryPotter, gameOfThrones));
+
+        //Then
+        assertEquals(Collections.singletonList(gameOfThrones), duplicateBooks);
+        assertEquals(Arrays.asList(gameOfThrones, harryPotter), bookRepository.getAllBooksInLibrary());
+    }
+
     @DisplayName("Testing if the add methods adds one of each three types of books.")
     @Test
     void addBookToLibrary_ShouldAddThreeBooksToLibrary_Input_PaperBook_EBook_DownloadableEBook() {
@@ -0,0 +1,142 @@
+package repository;
+
+import model.common.Address;
+import model.user.impl.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static enums.Gender.MALE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserRepositoryTests {
+
+    private static final int THREADS = 16;
+
+    UserRepository userRepository = new UserRepository();
+
+    Address userAddress = new Address("Bulgaria", "Haskovo", "Orfej 16");
+
+    @DisplayName("testing getUser - a registered user should be found by username.")
+    @Test
+    void getUser_ShouldReturnUser_ForInput_RegisteredUsername() {
+        //Given
+        User simeon = createUser("validUsername", "validPassword");
+        User ivan = createUser("otherUsername", "otherPassword");
+
+        userRepository.addUser(simeon);
+        userRepository.addUser(ivan);
+
+        //When
+        User foundUser = userRepository.getUser("validUsername");
+
+        //Then
+        assertSame(simeon, foundUser);
+        assertSame(ivan, userRepository.getUser("otherUsername"));
+    }
+
+    @DisplayName("testing getUser - an unknown or null username should not be found.")
+    @Test
+    void getUser_ShouldReturnNull_ForInput_UnknownOrNullUsername() {
+        //Given
+        userRepository.addUser(createUser("validUsername", "validPassword"));
+
+        //When
+        User unknownUser = userRepository.getUser("unknownUsername");
+
+        //Then
+        assertNull(unknownUser);
+        assertNull(userRepository.getUser("VALIDUSERNAME"));
+        assertNull(userRepository.getUser(null));
+    }
+
+    @DisplayName("testing addUser - a registered user should be checked against the hash of the password.")
+    @Test
+    void addUser_ShouldCheckPasswordByHash_ForInput_NewlyRegisteredUser() {
+        //Given
+        userRepository.addUser(createUser("validUsername", "validPassword"));
+
+        //When
+        User foundUser = userRepository.getUser("validUsername");
+
+        //Then
+        assertNotNull(foundUser.getPasswordHash());
+        assertTrue(foundUser.getPasswordHash().matches("validPassword"));
+        assertTrue(foundUser.hasPassword("validPassword"));
+        assertFalse(foundUser.hasPassword("otherPassword"));
+        assertFalse(foundUser.hasPassword(null));
+    }
+
+    @DisplayName("testing addUser - a taken username should be rejected and the first user kept.")
+    @Test
+    void addUser_ShouldKeepFirstUser_ForInput_TakenUsername() {
+        //Given
+        User firstUser = createUser("validUsername", "firstPassword");
+
+        userRepository.addUser(firstUser);
+
+        //When
+        String message = userRepository.addUser(createUser("validUsername", "secondPassword"));
+
+        //Then
+        assertEquals("User with username validUsername already exists", message);
+        assertSame(firstUser, userRepository.getUser("validUsername"));
+        assertEquals(1, userRepository.getAllUsers().size());
+    }
+
+    @DisplayName("testing addUser - concurrent registrations of the same username should create exactly one user.")
+    @Test
+    void addUser_ShouldCreateOneUser_ForConcurrentRegistrationsOfSameUsername() throws Exception {
+        //Given
+        int registrations = 200;
+        List<User> candidates = new ArrayList<>();
+
+        for (int i = 0; i < registrations; i++) {
+            candidates.add(createUser("validUsername", "password" + i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>();
+
+        //When
+        for (User candidate : candidates) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return userRepository.addUser(candidate);
+            }));
+        }
+
+        start.countDown();
+
+        int created = 0;
+        int rejected = 0;
+
+        for (Future<String> future : futures) {
+            String message = future.get(1, TimeUnit.MINUTES);
+
+            if ("User with username validUsername was created.".equals(message)) {
+                created++;
+            } else if ("User with username validUsername already exists".equals(message)) {
+                rejected++;
+            }
+        }
+
+        executor.shutdown();
+
+        //Then
+        assertEquals(1, created);
+        assertEquals(registrations - 1, rejected);
+        assertEquals(1, userRepository.getAllUsers().size());
+        assertTrue(candidates.contains(userRepository.getUser("validUsername")));
+    }
+
+    private User createUser(String username, String password) {
+        return new User("Simeon", "Atanasov", userAddress, MALE,
+                username, password, "valid@email.address",
+                true, 33);
+    }
+}
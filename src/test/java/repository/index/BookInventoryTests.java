@@ -0,0 +1,146 @@
+package repository.index;
+
+import enums.BookGenre;
+import exception.CustomException;
+import model.book.Book;
+import model.book.impl.EBook;
+import model.book.impl.PaperBook;
+import model.user.impl.Author;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import repository.BookRepository;
+import repository.UserRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static enums.BookGenre.DRAMA;
+import static enums.BookGenre.FANTASY;
+import static enums.BookTags.STORY;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookInventoryTests {
+
+    Author georgeMartin = new Author("George", "Martin", LocalDate.of(1965, 1, 1), null);
+
+    UserRepository userRepository = new UserRepository();
+    BookRepository bookRepository = new BookRepository(userRepository);
+
+    @DisplayName("testing the inventory - counts of books in later chunks should be kept apart from the first chunk.")
+    @Test
+    void add_ShouldKeepCountsOfEveryBook_ForInput_MoreBooksThanOneChunk() {
+        //Given
+        int bookCount = BookInventory.CHUNK_SIZE + 100;
+        BookInventory inventory = new BookInventory();
+        long expectedAvailable = 0;
+
+        //When
+        for (int bookId = 0; bookId < bookCount; bookId++) {
+            inventory.add(bookId, createPaperBook(bookId, bookId % 3, 2));
+            expectedAvailable += bookId % 3;
+        }
+
+        //Then
+        assertEquals(bookCount, inventory.size());
+        assertEquals(2L * bookCount, inventory.sumTotal());
+        assertEquals(expectedAvailable, inventory.sumAvailable());
+        assertEquals((BookInventory.CHUNK_SIZE + 1) % 3, inventory.getAvailable(BookInventory.CHUNK_SIZE + 1));
+        assertEquals(bookCount - 1, inventory.countByGenre()[FANTASY.ordinal()]);
+    }
+
+    @DisplayName("testing the view - a paper book added to the library should take and return copies in the inventory.")
+    @Test
+    void paperBook_ShouldChangeInventory_AfterAddedToLibrary() {
+        //Given
+        PaperBook paperBook = createPaperBook(0, 2, 2);
+        EBook eBook = new EBook("1234-9", "E-book", "Summary.", Collections.singletonList(georgeMartin),
+                DRAMA, Collections.singletonList(STORY), "http://ebook.online.read.com");
+
+        bookRepository.addBookToLibrary(paperBook);
+        bookRepository.addBookToLibrary(eBook);
+
+        //When
+        boolean firstTaken = paperBook.takeCopy();
+        boolean secondTaken = paperBook.takeCopy();
+        boolean thirdTaken = paperBook.takeCopy();
+        List<Book> booksWithFreeCopiesBeforeReturn = bookRepository.findBooksWithFreeCopies();
+
+        paperBook.returnCopy();
+
+        //Then
+        assertTrue(firstTaken && secondTaken);
+        assertFalse(thirdTaken);
+        assertTrue(booksWithFreeCopiesBeforeReturn.isEmpty());
+        assertEquals(Collections.singletonList(paperBook), bookRepository.findBooksWithFreeCopies());
+        assertEquals(1, bookRepository.getFreeCopiesSize());
+        assertEquals(2, bookRepository.getTotalCopiesSize());
+        assertEquals(2, bookRepository.getBooksPerGenre().get(BookGenre.DRAMA));
+    }
+
+    @DisplayName("testing the view - a paper book already in a library should be rejected by a second library.")
+    @Test
+    void addBookToLibrary_ShouldThrowCustomException_ForInput_PaperBookOfOtherLibrary() {
+        //Given
+        PaperBook paperBook = createPaperBook(0, 2, 2);
+        BookRepository otherRepository = new BookRepository(new UserRepository());
+        BookInventory otherInventory = new BookInventory();
+
+        bookRepository.addBookToLibrary(paperBook);
+
+        //When
+        Exception exception = assertThrows(CustomException.class, () -> otherRepository.addBookToLibrary(paperBook));
+
+        //Then
+        assertEquals("Paper book with ISBN 0000-0 is already in a library.", exception.getMessage());
+        assertThrows(CustomException.class, () -> otherInventory.add(0, paperBook));
+        assertEquals(0, otherInventory.size());
+        assertTrue(otherRepository.getAllBooksInLibrary().isEmpty());
+        assertTrue(paperBook.takeCopy());
+        assertEquals(1, bookRepository.getFreeCopiesSize());
+    }
+
+    @DisplayName("testing takeCopy - concurrent borrowers should never take more copies than the inventory holds.")
+    @Test
+    void takeCopy_ShouldNotHandOutMoreCopies_ForConcurrentCallers() throws Exception {
+        //Given
+        int threads = 8;
+        BookInventory inventory = new BookInventory();
+        AtomicInteger taken = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        inventory.add(0, createPaperBook(0, 1_000, 1_000));
+
+        //When
+        for (int thread = 0; thread < threads; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int attempt = 0; attempt < 500; attempt++) {
+                    if (inventory.takeCopy(0)) {
+                        taken.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+
+        executor.shutdown();
+
+        //Then
+        assertEquals(1_000, taken.get());
+        assertEquals(0, inventory.getAvailable(0));
+    }
+
+    private PaperBook createPaperBook(int book, int availableCopies, int totalCopies) {
+        return new PaperBook(String.format("%04d-%d", book / 10, book % 10), "Title " + book, "Summary.",
+                Collections.singletonList(georgeMartin), book == 0 ? DRAMA : FANTASY,
+                Collections.singletonList(STORY), availableCopies, totalCopies);
+    }
+}
@@ -0,0 +1,119 @@
+package repository.metrics;
+
+import enums.Gender;
+import enums.LibraryOperation;
+import exception.CustomException;
+import model.book.impl.PaperBook;
+import model.common.Address;
+import model.common.OperationStatistics;
+import model.user.impl.Author;
+import model.user.impl.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import repository.BookRepository;
+import repository.UserRepository;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static enums.BookGenre.FANTASY;
+import static enums.BookTags.STORY;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LibraryMetricsTests {
+
+    UserRepository userRepository = new UserRepository();
+    BookRepository bookRepository = new BookRepository(userRepository);
+
+    PaperBook gameOfThrones = new PaperBook("1234-5", "Game of thrones", "Royal family affairs.",
+            Collections.singletonList(new Author("George", "Martin", LocalDate.of(1965, 1, 1), null)),
+            FANTASY, Collections.singletonList(STORY), 1, 1);
+
+    @DisplayName("testing getPercentileNanos - percentiles should be the upper bound of the power of two bucket.")
+    @Test
+    void getPercentileNanos_ShouldReturnBucketUpperBound_ForInput_KnownLatencies() {
+        //Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        //When
+        for (int i = 0; i < 98; i++) {
+            histogram.record(100);
+        }
+
+        histogram.record(5_000);
+        histogram.record(1_000_000);
+
+        //Then
+        assertEquals(100, histogram.getCount());
+        assertEquals(127, histogram.getPercentileNanos(0.5));
+        assertEquals(8_191, histogram.getPercentileNanos(0.99));
+        assertEquals(1_000_000, histogram.getPercentileNanos(1));
+        assertEquals(1_000_000, histogram.getMaxNanos());
+    }
+
+    @DisplayName("testing timed - failed calls should be counted as calls and as failures.")
+    @Test
+    void timed_ShouldCountFailures_ForInput_InvalidBook() {
+        //When
+        assertThrows(CustomException.class, () -> bookRepository.addBookToLibrary(null));
+        bookRepository.addBookToLibrary(gameOfThrones);
+        OperationStatistics statistics = userRepository.getMetrics().statisticsOf(LibraryOperation.ADD_BOOKS);
+
+        //Then
+        assertEquals(2, statistics.getCalls());
+        assertEquals(1, statistics.getFailures());
+        assertTrue(statistics.getMaxMicros() >= statistics.getMedianMicros());
+    }
+
+    @DisplayName("testing the library monitor - gauges and operations should be readable over JMX.")
+    @Test
+    void register_ShouldExposeGaugesAndOperations_OverJmx() throws Exception {
+        //Given
+        User firstUser = new User("Simeon", "Atanasov", new Address("Bulgaria", "Haskovo", "Orfej 16"),
+                Gender.MALE, "firstUsername", "validPassword", "valid@email.address", true, 33);
+        User secondUser = new User("Simeon", "Atanasov", new Address("Bulgaria", "Haskovo", "Orfej 16"),
+                Gender.MALE, "secondUsername", "validPassword", "valid@email.address", true, 33);
+
+        userRepository.addUser(firstUser);
+        userRepository.addUser(secondUser);
+        bookRepository.addBookToLibrary(gameOfThrones);
+        bookRepository.requestBook("firstUsername", "1234-5");
+        bookRepository.borrowBook("firstUsername", "1234-5");
+        bookRepository.requestBook("secondUsername", "1234-5");
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = LibraryMonitor.register(bookRepository, "metrics-test");
+
+        try {
+            //When
+            int borrowedBooks = (Integer) server.getAttribute(name, "BorrowedBooks");
+            int waitingRequests = (Integer) server.getAttribute(name, "WaitingRequests");
+            CompositeData[] operations = (CompositeData[]) server.getAttribute(name, "Operations");
+
+            //Then
+            assertEquals(1, borrowedBooks);
+            assertEquals(1, waitingRequests);
+            assertEquals(1, bookRepository.getWaitlistSizes().get("1234-5"));
+            assertTrue(operations.length >= 3);
+            assertEquals(2L, findOperation(operations, "REQUEST_BOOK").get("calls"));
+        } finally {
+            LibraryMonitor.unregister("metrics-test");
+        }
+
+        assertFalse(server.isRegistered(name));
+    }
+
+    private CompositeData findOperation(CompositeData[] operations, String operation) {
+        for (CompositeData statistics : operations) {
+            if (operation.equals(statistics.get("operation"))) {
+                return statistics;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,387 @@
+package repository.storage;
+
+import exception.CustomException;
+import model.book.Book;
+import model.book.impl.DownloadableEBook;
+import model.book.impl.EBook;
+import model.book.impl.PaperBook;
+import model.common.Address;
+import model.common.UserRegistryForm;
+import model.user.impl.Author;
+import model.user.impl.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import repository.BookRepository;
+import repository.UserRepository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static enums.BookGenre.FANTASY;
+import static enums.BookGenre.SCI_FI;
+import static enums.BookTags.*;
+import static enums.Gender.MALE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedFileStorageEngineTests {
+
+    @TempDir
+    Path libraryDirectory;
+
+    Author georgeMartin = new Author("George", "Martin", LocalDate.of(1965, 1, 1), null);
+    Author joanRolling = new Author("Joan", "Rolling", LocalDate.of(1972, 3, 22), null);
+
+    Address userAddress = new Address("Bulgaria", "Haskovo", "Orfej 16");
+
+    User validUser = new User("Simeon", "Atanasov", userAddress, MALE,
+            "validUsername", "validPassword", "valid@email.address",
+            true, 33);
+
+    PaperBook gameOfThrones = new PaperBook(
+            "1234-5",
+            "Game of thrones",
+            "Very interesting book about internal and  external royal family affairs.",
+            Collections.singletonList(georgeMartin),
+            FANTASY,
+            Arrays.asList(STORY, HOBBY),
+            5,
+            5);
+
+    EBook harryPotter = new EBook(
+            "1234-6",
+            "Harry Potter",
+            "A book about magic and magicians. For kids of all ages - small or big.",
+            Collections.singletonList(joanRolling),
+            FANTASY,
+            Arrays.asList(STORY, CHILDREN),
+            "http://harrypotter.online.read.com");
+
+    DownloadableEBook dayEarthStoodStill = new DownloadableEBook(
+            "1234-7",
+            "The day the earth stood still",
+            "A book about aliens and post apocaliptic world scenarious.",
+            Collections.singletonList(joanRolling),
+            SCI_FI,
+            Collections.singletonList(LEARNING),
+            "http://earthstood.online.read.com",
+            "http://stillearth.online.download.com");
+
+    @DisplayName("testing the storage - books and users added to the library should be loaded after restart.")
+    @Test
+    void repositories_ShouldLoadBooksAndUsers_AfterRestart() {
+        //Given
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            UserRepository userRepository = new UserRepository(storage);
+            BookRepository bookRepository = new BookRepository(userRepository, storage);
+
+            userRepository.addUser(validUser);
+            bookRepository.addBookToLibrary(gameOfThrones);
+            bookRepository.addBookToLibrary(harryPotter);
+            bookRepository.addBookToLibrary(dayEarthStoodStill);
+        }
+
+        //When
+        List<Book> loadedBooks;
+        User loadedUser;
+
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            UserRepository userRepository = new UserRepository(storage);
+            BookRepository bookRepository = new BookRepository(userRepository, storage);
+
+            loadedBooks = bookRepository.getAllBooksInLibrary();
+            loadedUser = userRepository.getUser(validUser.getUsername());
+        }
+
+        //Then
+        assertEquals(3, loadedBooks.size());
+        assertEquals(gameOfThrones.getTitle(), loadedBooks.get(0).getTitle());
+        assertEquals(gameOfThrones.getTags(), loadedBooks.get(0).getTags());
+        assertEquals(georgeMartin.getFirstName(), loadedBooks.get(0).getAuthors().get(0).getFirstName());
+        assertTrue(loadedBooks.get(1) instanceof EBook);
+        assertEquals(dayEarthStoodStill.getDownLoadLink(), ((DownloadableEBook) loadedBooks.get(2)).getDownLoadLink());
+        assertNotNull(loadedUser);
+        assertEquals(validUser.getEmail(), loadedUser.getEmail());
+    }
+
+    @DisplayName("testing the storage - a book the storage rejects should not be added to the library.")
+    @Test
+    void addBookToLibrary_ShouldNotAddBook_ForInput_IsbnRejectedByStorage() {
+        //Given
+        PaperBook untrimmedBook = new PaperBook(" 1234-8", "Untrimmed", "A book with spaces around its ISBN.",
+                Collections.singletonList(georgeMartin), FANTASY, Collections.singletonList(STORY), 1, 1);
+
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            BookRepository bookRepository = new BookRepository(new UserRepository(storage), storage);
+
+            //When
+            assertThrows(CustomException.class, () -> bookRepository.addBookToLibrary(untrimmedBook));
+            bookRepository.addBookToLibrary(gameOfThrones);
+
+            //Then
+            assertFalse(bookRepository.containsBook(untrimmedBook.getISBN()));
+            assertEquals(Collections.singletonList(gameOfThrones), bookRepository.getAllBooksInLibrary());
+            assertEquals(5L, bookRepository.getTotalCopiesSize());
+        }
+    }
+
+    @DisplayName("testing the storage - users should be stored with a password hash and still log in after restart.")
+    @Test
+    void repositories_ShouldNotStorePassword_ButAuthenticateUser_AfterRestart() throws IOException {
+        //Given
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            new UserRepository(storage).addUser(validUser);
+        }
+
+        //When
+        String log = new String(Files.readAllBytes(libraryDirectory.resolve(MappedFileStorageEngine.LOG_FILE)),
+                StandardCharsets.ISO_8859_1);
+        User loadedUser;
+
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            loadedUser = new UserRepository(storage).getUser(validUser.getUsername());
+        }
+
+        //Then
+        assertFalse(log.contains("validPassword"));
+        assertTrue(log.contains(validUser.getUsername()));
+        assertTrue(loadedUser.hasPassword("validPassword"));
+        assertFalse(loadedUser.hasPassword("otherPassword"));
+    }
+
+    @DisplayName("testing the storage - free copies and borrowed books should be loaded after restart.")
+    @Test
+    void repositories_ShouldLoadCopiesAndBorrowedBooks_AfterRestart() {
+        //Given
+        String username = validUser.getUsername();
+        String bookISBN = gameOfThrones.getISBN();
+
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            UserRepository userRepository = new UserRepository(storage);
+            BookRepository bookRepository = new BookRepository(userRepository, storage);
+
+            userRepository.addUser(validUser);
+            bookRepository.addBookToLibrary(gameOfThrones);
+            bookRepository.requestBook(username, bookISBN);
+            bookRepository.borrowBook(username, bookISBN);
+        }
+
+        //When
+        String returnMessage;
+        int freeCopiesBeforeReturn;
+        int freeCopiesAfterReturn;
+
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            UserRepository userRepository = new UserRepository(storage);
+            BookRepository bookRepository = new BookRepository(userRepository, storage);
+            PaperBook loadedBook = (PaperBook) bookRepository.getAllBooksInLibrary().get(0);
+
+            freeCopiesBeforeReturn = loadedBook.getCurrentlyAvailable();
+            returnMessage = bookRepository.returnBookToLibrary(username, bookISBN);
+            freeCopiesAfterReturn = loadedBook.getCurrentlyAvailable();
+        }
+
+        //Then
+        assertEquals(4, freeCopiesBeforeReturn);
+        assertEquals("Book successfully returned to the library.", returnMessage);
+        assertEquals(5, freeCopiesAfterReturn);
+    }
+
+    @DisplayName("testing the storage - every copy a user borrowed should be loaded after restart, not only the last one.")
+    @Test
+    void repositories_ShouldLoadEveryBorrowedCopy_AfterRestart() {
+        //Given
+        String username = validUser.getUsername();
+        String bookISBN = gameOfThrones.getISBN();
+
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            UserRepository userRepository = new UserRepository(storage);
+            BookRepository bookRepository = new BookRepository(userRepository, storage);
+
+            userRepository.addUser(validUser);
+            bookRepository.addBookToLibrary(gameOfThrones);
+            bookRepository.requestBook(username, bookISBN);
+            bookRepository.borrowBook(username, bookISBN);
+            bookRepository.requestBook(username, bookISBN);
+            bookRepository.borrowBook(username, bookISBN);
+            bookRepository.requestBook(username, bookISBN);
+            bookRepository.borrowBook(username, bookISBN);
+            bookRepository.returnBookToLibrary(username, bookISBN);
+        }
+
+        //When
+        int borrowedAfterRestart;
+        int freeCopiesAfterRestart;
+
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            BookRepository bookRepository = new BookRepository(new UserRepository(storage), storage);
+
+            borrowedAfterRestart = bookRepository.getBorrowedBooksSize();
+            freeCopiesAfterRestart = ((PaperBook) bookRepository.getAllBooksInLibrary().get(0)).getCurrentlyAvailable();
+        }
+
+        //Then
+        assertEquals(2, borrowedAfterRestart);
+        assertEquals(3, freeCopiesAfterRestart);
+    }
+
+    @DisplayName("testing durability - changes should be loaded by a new engine while the writing engine is not closed.")
+    @Test
+    void repositories_ShouldLoadChanges_ForInput_EngineNotClosed() {
+        //Given
+        Path forcedDirectory = libraryDirectory.resolve("forced");
+        StorageEngine unclosedStorage = new MappedFileStorageEngine(libraryDirectory);
+        StorageEngine unclosedForcedStorage = new MappedFileStorageEngine(forcedDirectory, true);
+
+        try {
+            UserRepository userRepository = new UserRepository(unclosedStorage);
+
+            userRepository.addUser(validUser);
+            new BookRepository(userRepository, unclosedStorage).addBookToLibrary(gameOfThrones);
+            new BookRepository(new UserRepository(unclosedForcedStorage), unclosedForcedStorage)
+                    .addBookToLibrary(harryPotter);
+
+            //When
+            List<Book> loadedBooks;
+            List<Book> loadedForcedBooks;
+            User loadedUser;
+
+            try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory);
+                 StorageEngine forcedStorage = new MappedFileStorageEngine(forcedDirectory, true)) {
+                UserRepository loadedUserRepository = new UserRepository(storage);
+
+                loadedBooks = new BookRepository(loadedUserRepository, storage).getAllBooksInLibrary();
+                loadedUser = loadedUserRepository.getUser(validUser.getUsername());
+                loadedForcedBooks = new BookRepository(new UserRepository(forcedStorage), forcedStorage)
+                        .getAllBooksInLibrary();
+            }
+
+            //Then
+            assertEquals(1, loadedBooks.size());
+            assertEquals(5, ((PaperBook) loadedBooks.get(0)).getCurrentlyAvailable());
+            assertNotNull(loadedUser);
+            assertEquals(1, loadedForcedBooks.size());
+            assertEquals(harryPotter.getTitle(), loadedForcedBooks.get(0).getTitle());
+        } finally {
+            unclosedStorage.close();
+            unclosedForcedStorage.close();
+        }
+    }
+
+    @DisplayName("testing the storage - an incomplete record at the end of the log should be cut off on start.")
+    @Test
+    void mappedFileStorageEngine_ShouldSkipIncompleteRecord_InputTornLog() throws IOException {
+        //Given
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            new UserRepository(storage).addUser(validUser);
+        }
+
+        Path log = libraryDirectory.resolve(MappedFileStorageEngine.LOG_FILE);
+        long completeSize = Files.size(log);
+
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 100, 2, 1}));
+        }
+
+        //When
+        List<User> loadedUsers;
+
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            loadedUsers = new UserRepository(storage).getAllUsers();
+        }
+
+        //Then
+        assertEquals(1, loadedUsers.size());
+        assertEquals(completeSize, Files.size(log));
+    }
+
+    @DisplayName("testing the storage - a record with a wrong checksum at the end of the log should be cut off on start.")
+    @Test
+    void mappedFileStorageEngine_ShouldSkipDamagedRecord_InputChangedByte() throws IOException {
+        //Given
+        User secondUser = new User("Ivan", "Ivanov", userAddress, MALE,
+                "secondUsername", "validPassword", "second@email.address", true, 40);
+
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            new UserRepository(storage).addUser(validUser);
+        }
+
+        Path log = libraryDirectory.resolve(MappedFileStorageEngine.LOG_FILE);
+        long firstRecordEnd = Files.size(log);
+
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            new UserRepository(storage).addUser(secondUser);
+        }
+
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{99}), Files.size(log) - 1);
+        }
+
+        //When
+        List<User> loadedUsers;
+
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            loadedUsers = new UserRepository(storage).getAllUsers();
+        }
+
+        //Then
+        assertEquals(1, loadedUsers.size());
+        assertEquals(validUser.getUsername(), loadedUsers.get(0).getUsername());
+        assertEquals(firstRecordEnd, Files.size(log));
+    }
+
+    @DisplayName("testing compaction - replaced forms should be dropped from the form log and the live forms kept.")
+    @Test
+    void saveForms_ShouldCompactFormLog_ForInput_ManyChangesOfTheSameForms() {
+        //Given
+        LocalDate startDate = LocalDate.of(2020, 1, 1);
+        UserRegistryForm offeredForm = new UserRegistryForm("otherUsername", "1234-6", startDate, 3);
+        List<UserRegistryForm> borrowedForms = Arrays.asList(
+                new UserRegistryForm(validUser.getUsername(), "1234-5", startDate, 14),
+                new UserRegistryForm(validUser.getUsername(), "1234-5", startDate, 21));
+        long formLogSize;
+
+        //When
+        try (MappedFileStorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            storage.saveForms(FormType.OFFER, "otherUsername", "1234-6", Collections.singletonList(offeredForm));
+
+            while (storage.getFormLogSize() < MappedFileStorageEngine.COMPACTION_THRESHOLD / 2) {
+                storage.saveForms(FormType.BORROW, validUser.getUsername(), "1234-5", borrowedForms.subList(0, 1));
+                storage.saveForms(FormType.BORROW, validUser.getUsername(), "1234-5", Collections.emptyList());
+            }
+
+            for (int change = 0; change < 100_000; change++) {
+                storage.saveForms(FormType.BORROW, validUser.getUsername(), "1234-5", borrowedForms);
+            }
+
+            formLogSize = storage.getFormLogSize();
+        }
+
+        List<FormType> loadedTypes = new ArrayList<>();
+        List<UserRegistryForm> loadedForms = new ArrayList<>();
+
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory)) {
+            storage.loadForms((type, form) -> {
+                loadedTypes.add(type);
+                loadedForms.add(form);
+            });
+        }
+
+        //Then
+        assertTrue(formLogSize < MappedFileStorageEngine.COMPACTION_THRESHOLD);
+        assertEquals(Arrays.asList(FormType.OFFER, FormType.BORROW, FormType.BORROW), loadedTypes);
+        assertEquals(offeredForm.getEndDate(), loadedForms.get(0).getEndDate());
+        assertEquals(borrowedForms.get(0).getEndDate(), loadedForms.get(1).getEndDate());
+        assertEquals(borrowedForms.get(1).getEndDate(), loadedForms.get(2).getEndDate());
+    }
+}
@@ -0,0 +1,353 @@
+package repository.wal;
+
+import exception.CustomException;
+import model.book.impl.PaperBook;
+import model.common.Address;
+import model.common.UserRegistryForm;
+import model.user.impl.Author;
+import model.user.impl.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import repository.BookRepository;
+import repository.UserRepository;
+import repository.storage.FormType;
+import repository.storage.MappedFileStorageEngine;
+import repository.storage.StorageEngine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import static enums.BookGenre.FANTASY;
+import static enums.BookTags.STORY;
+import static enums.Gender.MALE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteAheadLogTests {
+
+    @TempDir
+    Path libraryDirectory;
+
+    Author georgeMartin = new Author("George", "Martin", LocalDate.of(1965, 1, 1), null);
+    Address userAddress = new Address("Bulgaria", "Haskovo", "Orfej 16");
+
+    PaperBook gameOfThrones = new PaperBook("1234-5", "Game of thrones",
+            "Very interesting book about internal and  external royal family affairs.",
+            Collections.singletonList(georgeMartin), FANTASY, Collections.singletonList(STORY), 1, 1);
+
+    @DisplayName("testing recovery - loans, waiting users and bans should be replayed from the journal after restart.")
+    @Test
+    void bookRepository_ShouldRecoverLoanState_FromJournal() {
+        //Given
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory.resolve("catalog"));
+             LoanJournal journal = new WriteAheadLog(libraryDirectory.resolve("journal"))) {
+            UserRepository userRepository = new UserRepository(storage);
+            BookRepository bookRepository = new BookRepository(userRepository, storage, journal);
+
+            userRepository.addUser(createUser("firstUsername"));
+            userRepository.addUser(createUser("secondUsername"));
+            bookRepository.addBookToLibrary(gameOfThrones);
+            bookRepository.requestBook("firstUsername", "1234-5");
+            bookRepository.borrowBook("firstUsername", "1234-5");
+            bookRepository.requestBook("secondUsername", "1234-5");
+            bookRepository.changeDay(30);
+        }
+
+        //When
+        BookRepository recoveredRepository;
+        PaperBook recoveredBook;
+
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory.resolve("catalog"));
+             LoanJournal journal = new WriteAheadLog(libraryDirectory.resolve("journal"))) {
+            recoveredRepository = new BookRepository(new UserRepository(storage), storage, journal);
+            recoveredBook = (PaperBook) recoveredRepository.getAllBooksInLibrary().get(0);
+        }
+
+        //Then
+        assertEquals(1, recoveredRepository.getBorrowedBooksSize());
+        assertEquals(0, recoveredBook.getCurrentlyAvailable());
+        assertEquals(1, recoveredRepository.getRequestedBooksSize());
+        assertEquals(1, recoveredRepository.getPenaltiesSize());
+        assertEquals("User firstUsername is banned form the library for delayed books!",
+                recoveredRepository.requestBook("firstUsername", "1234-5"));
+    }
+
+    @DisplayName("testing recovery - a journal without a storage that keeps the books should be rejected.")
+    @Test
+    void bookRepository_ShouldThrowCustomException_ForInput_JournalWithoutStorage() {
+        //Given
+        try (LoanJournal journal = new WriteAheadLog(libraryDirectory)) {
+            UserRepository userRepository = new UserRepository();
+
+            //When
+            Exception exception = assertThrows(CustomException.class,
+                    () -> new BookRepository(userRepository, StorageEngine.NONE, journal));
+
+            //Then
+            assertEquals("A loan journal needs a storage engine that keeps the books of the library.",
+                    exception.getMessage());
+        }
+    }
+
+    @DisplayName("testing replay - records should hold the state after the change, so replaying twice gives the same state.")
+    @Test
+    void replay_ShouldPassAbsoluteState_ForEachRecord() {
+        //Given
+        UserRegistryForm form = new UserRegistryForm("validUsername", "1234-5", LocalDate.of(2020, 1, 1), 14);
+
+        try (WriteAheadLog journal = new WriteAheadLog(libraryDirectory)) {
+            journal.logCopies("1234-5", 4);
+            journal.logForms(FormType.BORROW, "validUsername", "1234-5", Collections.singletonList(form));
+            journal.logForms(FormType.OFFER, "validUsername", "1234-5", Collections.emptyList());
+            journal.commit();
+        }
+
+        //When
+        List<String> replayed = new ArrayList<>();
+
+        try (WriteAheadLog journal = new WriteAheadLog(libraryDirectory)) {
+            journal.replay(new RecordingVisitor(replayed));
+        }
+
+        //Then
+        assertEquals(Arrays.asList("copies 1234-5 4", "BORROW validUsername 1234-5 [2020-01-15]",
+                "OFFER validUsername 1234-5 []"), replayed);
+    }
+
+    @DisplayName("testing the journal - a torn record at the end of the last segment should be cut off on start.")
+    @Test
+    void writeAheadLog_ShouldCutOffTornRecord_InputTornSegment() throws IOException {
+        //Given
+        try (WriteAheadLog journal = new WriteAheadLog(libraryDirectory)) {
+            journal.logBan("validUsername", "1234-5");
+            journal.commit();
+        }
+
+        Path segment = segments().get(0);
+        long completeSize = Files.size(segment);
+
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2, 3}));
+        }
+
+        //When
+        List<String> replayed = new ArrayList<>();
+        long durableLsn;
+
+        try (WriteAheadLog journal = new WriteAheadLog(libraryDirectory)) {
+            journal.replay(new RecordingVisitor(replayed));
+            durableLsn = journal.getDurableLsn();
+        }
+
+        //Then
+        assertEquals(Collections.singletonList("ban validUsername 1234-5"), replayed);
+        assertEquals(1, durableLsn);
+        assertEquals(completeSize, Files.size(segment));
+    }
+
+    @DisplayName("testing group commit - concurrent commits should share forces and every record should be replayed in order.")
+    @Test
+    void commit_ShouldMakeAllRecordsDurable_ForConcurrentWriters() throws Exception {
+        //Given
+        int threads = 8;
+        int recordsPerThread = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        long syncCount;
+
+        //When
+        try (WriteAheadLog journal = new WriteAheadLog(libraryDirectory, 4 * 1024)) {
+            for (int thread = 0; thread < threads; thread++) {
+                String username = "user" + thread;
+
+                futures.add(executor.submit(() -> {
+                    for (int record = 0; record < recordsPerThread; record++) {
+                        journal.logCopies(username, record);
+                        journal.commit();
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+
+            executor.shutdown();
+            syncCount = journal.getSyncCount();
+
+            assertEquals(threads * recordsPerThread, journal.getDurableLsn());
+        }
+
+        Map<String, Integer> lastCopiesOfUser = new HashMap<>();
+        int[] outOfOrder = {0};
+
+        try (WriteAheadLog journal = new WriteAheadLog(libraryDirectory, 4 * 1024)) {
+            journal.replay(new RecordingVisitor(new ArrayList<>()) {
+                @Override
+                public void onCopies(String ISBN, int freeCopies) {
+                    Integer previous = lastCopiesOfUser.put(ISBN, freeCopies);
+
+                    if (previous != null && previous != freeCopies - 1) {
+                        outOfOrder[0]++;
+                    }
+                }
+            });
+        }
+
+        //Then
+        assertTrue(syncCount <= threads * recordsPerThread);
+        assertTrue(segments().size() > 1);
+        assertEquals(0, outOfOrder[0]);
+        assertEquals(threads, lastCopiesOfUser.size());
+        lastCopiesOfUser.values().forEach(copies -> assertEquals(recordsPerThread - 1, copies));
+    }
+
+    @DisplayName("testing snapshots - the covered segments should be deleted and replay should start from the snapshot.")
+    @Test
+    void snapshot_ShouldDeleteCoveredSegments_AndReplayLaterRecords() throws IOException {
+        //Given
+        try (WriteAheadLog journal = new WriteAheadLog(libraryDirectory, 1024)) {
+            for (int copies = 0; copies < 200; copies++) {
+                journal.logCopies("1234-5", copies);
+                journal.commit();
+            }
+
+            journal.snapshot(snapshot -> {
+                snapshot.onCopies("1234-5", 199);
+                snapshot.onBan("validUsername", "1234-5");
+            });
+
+            journal.logBanLifted("validUsername", "1234-5");
+            journal.commit();
+        }
+
+        //When
+        List<String> replayed = new ArrayList<>();
+
+        try (WriteAheadLog journal = new WriteAheadLog(libraryDirectory, 1024)) {
+            journal.replay(new RecordingVisitor(replayed));
+        }
+
+        //Then
+        assertEquals(1, segments().size());
+        assertEquals(Arrays.asList("copies 1234-5 199", "ban validUsername 1234-5",
+                "ban lifted validUsername 1234-5"), replayed);
+    }
+
+    @DisplayName("testing snapshots - the repository should recover the same loans from a snapshot and the records after it.")
+    @Test
+    void bookRepository_ShouldRecoverLoanState_FromSnapshotAndLaterRecords() throws IOException {
+        //Given
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory.resolve("catalog"));
+             LoanJournal journal = new WriteAheadLog(libraryDirectory.resolve("journal"))) {
+            UserRepository userRepository = new UserRepository(storage);
+            BookRepository bookRepository = new BookRepository(userRepository, storage, journal);
+
+            userRepository.addUser(createUser("firstUsername"));
+            userRepository.addUser(createUser("secondUsername"));
+            userRepository.addUser(createUser("thirdUsername"));
+            bookRepository.addBookToLibrary(gameOfThrones);
+            bookRepository.requestBook("firstUsername", "1234-5");
+            bookRepository.borrowBook("firstUsername", "1234-5");
+            bookRepository.requestBook("secondUsername", "1234-5");
+            bookRepository.changeDay(30);
+            bookRepository.snapshotLoans();
+            bookRepository.requestBook("thirdUsername", "1234-5");
+        }
+
+        //When
+        BookRepository recoveredRepository;
+        PaperBook recoveredBook;
+        long snapshots;
+
+        try (StorageEngine storage = new MappedFileStorageEngine(libraryDirectory.resolve("catalog"));
+             LoanJournal journal = new WriteAheadLog(libraryDirectory.resolve("journal"))) {
+            recoveredRepository = new BookRepository(new UserRepository(storage), storage, journal);
+            recoveredBook = (PaperBook) recoveredRepository.getAllBooksInLibrary().get(0);
+        }
+
+        try (Stream<Path> files = Files.list(libraryDirectory.resolve("journal"))) {
+            snapshots = files.filter(file -> file.getFileName().toString().endsWith(WriteAheadLog.SNAPSHOT_SUFFIX)).count();
+        }
+
+        //Then
+        assertEquals(1, snapshots);
+        assertEquals(1, recoveredRepository.getBorrowedBooksSize());
+        assertEquals(0, recoveredBook.getCurrentlyAvailable());
+        assertEquals(2, recoveredRepository.getRequestedBooksSize());
+        assertEquals(1, recoveredRepository.getPenaltiesSize());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(libraryDirectory)) {
+            List<Path> segments = new ArrayList<>();
+
+            files.filter(file -> file.getFileName().toString().startsWith(WriteAheadLog.SEGMENT_PREFIX))
+                    .sorted()
+                    .forEach(segments::add);
+
+            return segments;
+        }
+    }
+
+    private User createUser(String username) {
+        return new User("Simeon", "Atanasov", userAddress, MALE, username, "validPassword",
+                "valid@email.address", true, 33);
+    }
+
+    private static class RecordingVisitor implements LoanRecordVisitor {
+
+        private final List<String> records;
+
+        RecordingVisitor(List<String> records) {
+            this.records = records;
+        }
+
+        @Override
+        public void onForms(FormType type, String username, String ISBN, List<UserRegistryForm> forms) {
+            List<LocalDate> dueDates = new ArrayList<>();
+
+            forms.forEach(form -> dueDates.add(form.getEndDate()));
+            records.add(type + " " + username + " " + ISBN + " " + dueDates);
+        }
+
+        @Override
+        public void onCopies(String ISBN, int freeCopies) {
+            records.add("copies " + ISBN + " " + freeCopies);
+        }
+
+        @Override
+        public void onWaiting(String ISBN, String username) {
+            records.add("waiting " + ISBN + " " + username);
+        }
+
+        @Override
+        public void onNotWaiting(String ISBN, String username) {
+            records.add("not waiting " + ISBN + " " + username);
+        }
+
+        @Override
+        public void onBan(String username, String ISBN) {
+            records.add("ban " + username + " " + ISBN);
+        }
+
+        @Override
+        public void onBanLifted(String username, String ISBN) {
+            records.add("ban lifted " + username + " " + ISBN);
+        }
+
+        @Override
+        public void onDay(LocalDate currentDate) {
+            records.add("day " + currentDate);
+        }
+    }
+}
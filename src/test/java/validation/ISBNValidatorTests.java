@@ -0,0 +1,53 @@
+package validation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ISBNValidatorTests {
+
+    private static final Pattern ISBN_PATTERN = Pattern.compile("^([0-9]){4}-[0-9]");
+    private static final String SYMBOLS = "0123456789--a \u0663";
+
+    @DisplayName("testing isValid - should accept ISBN in format ####-# and reject everything else.")
+    @Test
+    void isValid_ShouldReturnTrueOnlyForFormat_ForInput_DifferentStrings() {
+        //Given
+        //When
+        //Then
+        assertTrue(ISBNValidator.isValid("1234-5"));
+        assertFalse(ISBNValidator.isValid(null));
+        assertFalse(ISBNValidator.isValid(" 1234-5"));
+        assertFalse(ISBNValidator.isValid("12345"));
+        assertFalse(ISBNValidator.isValid("1234-56"));
+        assertFalse(ISBNValidator.isValid("12a4-5"));
+    }
+
+    @DisplayName("testing isValid - should give the same result as the regular expression for random strings.")
+    @Test
+    void isValid_ShouldMatchRegularExpression_ForInput_RandomStrings() {
+        //Given
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder ISBN = new StringBuilder();
+            int length = 4 + random.nextInt(4);
+
+            for (int symbol = 0; symbol < length; symbol++) {
+                ISBN.append(symbol == 4 && random.nextBoolean() ? '-' : SYMBOLS.charAt(random.nextInt(SYMBOLS.length())));
+            }
+
+            String input = ISBN.toString();
+
+            //When
+            boolean actual = ISBNValidator.isValid(input);
+
+            //Then
+            assertEquals(ISBN_PATTERN.matcher(input).matches(), actual, input);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package validation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LinkValidatorTests {
+
+    private static final Pattern LINK_PATTERN =
+            Pattern.compile("^(http)(s)*://(www.)*([a-z0-9]+.)+[a-z]+(:[0-9]{1,4})*");
+    private static final String[] PARTS = {
+            "http", "https", "s", "://", "www.", "www", ".", "a", "z", "0", "9", "A", ":", "80", "8080", "12345",
+            "-", "/", "\n", "\u2028", "\uD83D\uDE00", "library", "com", " "};
+
+    @DisplayName("testing isValid - should accept the links of the library.")
+    @Test
+    void isValid_ShouldReturnTrue_ForInput_ValidLinks() {
+        //Given
+        //When
+        //Then
+        assertTrue(LinkValidator.isValid("http://harrypotter.online.read.com"));
+        assertTrue(LinkValidator.isValid("https://www.library.com:8080"));
+        assertTrue(LinkValidator.isValid("httpsss://a-b"));
+        assertTrue(LinkValidator.isValid("http://a\uD83D\uDE00b.com"));
+    }
+
+    @DisplayName("testing isValid - should reject null and links that don't match.")
+    @Test
+    void isValid_ShouldReturnFalse_ForInput_InvalidLinks() {
+        //Given
+        //When
+        //Then
+        assertFalse(LinkValidator.isValid(null));
+        assertFalse(LinkValidator.isValid("ftp://library.com"));
+        assertFalse(LinkValidator.isValid("http://.com"));
+        assertFalse(LinkValidator.isValid("http://library.com:12345"));
+        assertFalse(LinkValidator.isValid("http://library\n.com"));
+        assertFalse(LinkValidator.isValid("http://library.com/"));
+    }
+
+    @DisplayName("testing isValid - should give the same result as the regular expression for random links.")
+    @Test
+    void isValid_ShouldMatchRegularExpression_ForInput_RandomLinks() {
+        //Given
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder link = new StringBuilder(random.nextInt(4) == 0 ? "" : "http://");
+            int parts = random.nextInt(8);
+
+            for (int part = 0; part < parts; part++) {
+                link.append(PARTS[random.nextInt(PARTS.length)]);
+            }
+
+            String input = link.toString();
+
+            //When
+            boolean actual = LinkValidator.isValid(input);
+
+            //Then
+            assertEquals(LINK_PATTERN.matcher(input).matches(), actual, input);
+        }
+    }
+}